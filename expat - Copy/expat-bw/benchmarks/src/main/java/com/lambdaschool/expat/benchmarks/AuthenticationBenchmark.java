@@ -0,0 +1,74 @@
+package com.lambdaschool.expat.benchmarks;
+
+import com.lambdaschool.expat.services.UserPrincipalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SecurityUserServiceImpl.loadUserByUsername, the lookup done for every password login,
+ * with the principal in the cache and with the principal evicted first so it is read from the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AuthenticationBenchmark
+{
+    private ConfigurableApplicationContext context;
+
+    private UserDetailsService securityUserService;
+
+    private UserPrincipalService userPrincipalService;
+
+    private final String username = BenchmarkData.username(1);
+
+    @Setup
+    public void setup()
+    {
+        context = BenchmarkApplication.start();
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class),
+            100,
+            1,
+            1,
+            0);
+        securityUserService = context.getBean("securityUserService",
+            UserDetailsService.class);
+        userPrincipalService = context.getBean(UserPrincipalService.class);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsernameCached()
+    {
+        return securityUserService.loadUserByUsername(username);
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsernameUncached()
+    {
+        userPrincipalService.evict(username);
+        return securityUserService.loadUserByUsername(username);
+    }
+}
@@ -0,0 +1,48 @@
+package com.lambdaschool.expat.benchmarks;
+
+import com.lambdaschool.expat.config.CacheConfig;
+import com.lambdaschool.expat.config.DataSourceConfig;
+import com.lambdaschool.expat.services.TokenServiceImpl;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * The part of the application the benchmarks need: the services, repositories, caches and an in memory H2 database.
+ * No web server, no H2 servers and no OAuth2 endpoints are started.
+ */
+@Configuration
+@EnableAutoConfiguration
+@EnableJpaAuditing
+@EntityScan("com.lambdaschool.expat.models")
+@EnableJpaRepositories("com.lambdaschool.expat.repository")
+@ComponentScan(basePackages = "com.lambdaschool.expat.services",
+    excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+        classes = TokenServiceImpl.class))
+@Import({CacheConfig.class, DataSourceConfig.class})
+public class BenchmarkApplication
+{
+    /**
+     * Starts the application with the settings of application.properties, on H2
+     *
+     * @return the running application context. Close it when the benchmark is done.
+     */
+    public static ConfigurableApplicationContext start()
+    {
+        return new SpringApplicationBuilder(BenchmarkApplication.class)
+            .web(WebApplicationType.NONE)
+            .logStartupInfo(false)
+            .run("--local.run.db=h2",
+                "--h2.tcp.enabled=false",
+                "--h2.web.enabled=false",
+                "--logging.level.root=WARN");
+    }
+}
@@ -0,0 +1,123 @@
+package com.lambdaschool.expat.benchmarks;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the benchmark database with JDBC batches, so even a million posts are seeded in seconds.
+ * Ids are assigned here, so nothing should be added through JPA afterwards.
+ */
+public final class BenchmarkData
+{
+    /**
+     * Rows sent to the database in one batch
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Every seeded user has this password
+     */
+    public static final String PASSWORD = "password";
+
+    private BenchmarkData()
+    {
+    }
+
+    /**
+     * The name of a seeded user
+     *
+     * @param user the number (long) of the user, from 1
+     * @return the username (String)
+     */
+    public static String username(long user)
+    {
+        return "user" + user;
+    }
+
+    /**
+     * Seeds users, photos, stories and posts. Post n belongs to user (n mod users) + 1, so each user has
+     * posts / users posts, and the created dates go back one minute per post.
+     *
+     * @param jdbc    the connection to the benchmark database
+     * @param users   the number (int) of users
+     * @param photos  the number (int) of photos
+     * @param stories the number (int) of stories
+     * @param posts   the number (int) of posts
+     */
+    public static void seed(
+        JdbcTemplate jdbc,
+        int users,
+        int photos,
+        int stories,
+        int posts)
+    {
+        long now = System.currentTimeMillis();
+        Timestamp created = new Timestamp(now);
+        String hash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        insert(jdbc,
+            "INSERT INTO users (userid, username, password, primaryemail, created_by, created_date, last_modified_by, last_modified_date) " +
+                "VALUES (?, ?, ?, ?, 'SYSTEM', ?, 'SYSTEM', ?)",
+            users,
+            i -> new Object[]{i, username(i), hash, username(i) + "@benchmark.local", created, created});
+        insert(jdbc,
+            "INSERT INTO photos (photo_id, name, created_by, created_date, last_modified_by, last_modified_date) " +
+                "VALUES (?, ?, 'SYSTEM', ?, 'SYSTEM', ?)",
+            photos,
+            i -> new Object[]{i, "photo" + i + ".jpg", created, created});
+        insert(jdbc,
+            "INSERT INTO storys (story_id, name, created_by, created_date, last_modified_by, last_modified_date) " +
+                "VALUES (?, ?, 'SYSTEM', ?, 'SYSTEM', ?)",
+            stories,
+            i -> new Object[]{i, "story " + i, created, created});
+        insert(jdbc,
+            "INSERT INTO posts (post_id, name, description, user_id, photo_id, story_id, created_by, created_date, last_modified_by, last_modified_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?, 'SYSTEM', ?, 'SYSTEM', ?)",
+            posts,
+            i ->
+            {
+                Timestamp date = new Timestamp(now - i * 60_000L);
+                return new Object[]{i, "post " + i, "A day in the life, part " + i,
+                    i % users + 1, i % photos + 1, i % stories + 1, date, date};
+            });
+    }
+
+    /**
+     * Inserts rows 1 to count in batches
+     *
+     * @param jdbc  the connection to the benchmark database
+     * @param sql   the insert statement (String)
+     * @param count the number (int) of rows
+     * @param row   the values of row i
+     */
+    private static void insert(
+        JdbcTemplate jdbc,
+        String sql,
+        int count,
+        Row row)
+    {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long i = 1; i <= count; i++)
+        {
+            batch.add(row.values(i));
+            if (batch.size() == BATCH_SIZE || i == count)
+            {
+                jdbc.batchUpdate(sql,
+                    batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * The values of one seeded row
+     */
+    private interface Row
+    {
+        Object[] values(long i);
+    }
+}
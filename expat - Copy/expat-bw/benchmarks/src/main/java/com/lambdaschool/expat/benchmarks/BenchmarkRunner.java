@@ -0,0 +1,38 @@
+package com.lambdaschool.expat.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks. Takes the usual JMH command line options, see java -jar target/benchmarks.jar -h.
+ * Unless -rf and -rff say otherwise, the results are written as JSON to jmh-result.json,
+ * so runs of different versions can be compared.
+ */
+public class BenchmarkRunner
+{
+    /**
+     * Main method to run the benchmarks.
+     *
+     * @param args JMH command line options
+     * @throws Exception if the options are invalid or a benchmark fails
+     */
+    public static void main(String[] args) throws Exception
+    {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat()
+            .hasValue())
+        {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult()
+            .hasValue())
+        {
+            options.result("jmh-result.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.lambdaschool.expat.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.models.Role;
+import com.lambdaschool.expat.models.Story;
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.models.UserRoles;
+import com.lambdaschool.expat.models.Useremail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a list of posts, with their user, photo and story, as JSON. The object mapper is set up
+ * the way application.properties sets up the one used by the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PostSerializationBenchmark
+{
+    /**
+     * The number of posts in the list
+     */
+    @Param({"20", "1000"})
+    private int posts;
+
+    private ObjectMapper objectMapper;
+
+    private List<Post> postList;
+
+    @Setup
+    public void setup()
+    {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("America/Los_Angeles"));
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .dateFormat(dateFormat)
+            .featuresToDisable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .build();
+
+        Role role = new Role("user");
+        role.setRoleid(1);
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 10; i++)
+        {
+            User user = new User(BenchmarkData.username(i),
+                BenchmarkData.PASSWORD,
+                BenchmarkData.username(i) + "@benchmark.local");
+            user.setUserid(i);
+            user.getRoles()
+                .add(new UserRoles(user,
+                    role));
+            user.getUseremails()
+                .add(new Useremail(user,
+                    BenchmarkData.username(i) + "@home.local"));
+            users.add(user);
+        }
+
+        postList = new ArrayList<>();
+        for (int i = 1; i <= posts; i++)
+        {
+            Photo photo = new Photo("photo" + i + ".jpg");
+            photo.setPhotoId(i);
+            Story story = new Story("story " + i % 5);
+            story.setStoryId(i % 5);
+            Post post = new Post("post " + i,
+                "A day in the life, part " + i);
+            post.setPostId(i);
+            post.setUser(users.get(i % users.size()));
+            post.setPhoto(photo);
+            post.setStory(story);
+            postList.add(post);
+        }
+    }
+
+    @Benchmark
+    public byte[] writePosts() throws Exception
+    {
+        return objectMapper.writeValueAsBytes(postList);
+    }
+}
@@ -0,0 +1,76 @@
+package com.lambdaschool.expat.benchmarks;
+
+import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.services.PostService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading posts through PostServiceImpl from an H2 database seeded with the given number of posts,
+ * spread over 100 users. Run larger sizes with -p posts=100000,1000000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PostServiceBenchmark
+{
+    private static final int USERS = 100;
+
+    /**
+     * The number of posts in the database
+     */
+    @Param({"10000"})
+    private int posts;
+
+    private ConfigurableApplicationContext context;
+
+    private PostService postService;
+
+    @Setup
+    public void setup()
+    {
+        context = BenchmarkApplication.start();
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class),
+            USERS,
+            50,
+            20,
+            posts);
+        postService = context.getBean(PostService.class);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Post> findAllPosts()
+    {
+        return postService.findAllPosts();
+    }
+
+    @Benchmark
+    public List<Post> findByUserId()
+    {
+        return postService.findByUserId(USERS / 2);
+    }
+}
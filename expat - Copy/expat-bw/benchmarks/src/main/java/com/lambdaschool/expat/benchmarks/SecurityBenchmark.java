@@ -0,0 +1,171 @@
+package com.lambdaschool.expat.benchmarks;
+
+import com.lambdaschool.expat.exceptions.ResourceNotFoundException;
+import com.lambdaschool.expat.models.UserPrincipal;
+import com.lambdaschool.expat.services.HelperFunctions;
+import com.lambdaschool.expat.services.HelperFunctionsImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password hashing at the given BCrypt cost, as UserServiceImpl does before saving a user, and the check in
+ * HelperFunctionsImpl.isAuthorizedToMakeChange. Neither needs the application to be running.
+ * <p>
+ * The check is measured for each way it can end: the user changes their own data (the name matches), an admin
+ * changes another user's data (the role bits of the principal, see RoleIndex), and a user who is neither is turned
+ * away with an exception.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SecurityBenchmark
+{
+    /**
+     * The BCrypt cost (log rounds). 10 is what application.properties uses.
+     */
+    @Param({"4", "10"})
+    private int cost;
+
+    private HelperFunctions helperFunctions;
+
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Setup
+    public void setup()
+    {
+        passwordEncoder = new BCryptPasswordEncoder(cost);
+        helperFunctions = new HelperFunctionsImpl();
+    }
+
+    @Benchmark
+    public String hashPassword()
+    {
+        return passwordEncoder.encode(BenchmarkData.PASSWORD);
+    }
+
+    @Benchmark
+    public boolean isAuthorizedToMakeChange(Owner owner)
+    {
+        return helperFunctions.isAuthorizedToMakeChange(BenchmarkData.username(1));
+    }
+
+    @Benchmark
+    public boolean isAuthorizedToMakeChangeAsAdmin(Admin admin)
+    {
+        return helperFunctions.isAuthorizedToMakeChange(BenchmarkData.username(1));
+    }
+
+    @Benchmark
+    public boolean isAuthorizedToMakeChangeRejected(Other other)
+    {
+        try
+        {
+            return helperFunctions.isAuthorizedToMakeChange(BenchmarkData.username(1));
+        } catch (ResourceNotFoundException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Signs a user on for the benchmark thread, as a principal carrying the user's roles the way a request does
+     *
+     * @param userid the primary key (long) of the user signed on
+     * @param roles  the authorities of the user in the form ROLE_NAME
+     */
+    private static void signOn(
+        long userid,
+        List<String> roles)
+    {
+        UserPrincipal principal = new UserPrincipal(userid,
+            BenchmarkData.username(userid),
+            roles);
+        SecurityContextHolder.getContext()
+            .setAuthentication(new UsernamePasswordAuthenticationToken(principal,
+                "N/A",
+                AuthorityUtils.createAuthorityList(roles.toArray(new String[0]))));
+    }
+
+    /**
+     * User 1, changing their own data
+     */
+    @State(Scope.Thread)
+    public static class Owner
+    {
+        @Setup
+        public void setup()
+        {
+            signOn(1,
+                Collections.singletonList("ROLE_USER"));
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * An admin, user 2, changing the data of user 1
+     */
+    @State(Scope.Thread)
+    public static class Admin
+    {
+        @Setup
+        public void setup()
+        {
+            signOn(2,
+                Arrays.asList("ROLE_USER",
+                    "ROLE_ADMIN"));
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * A user who is not an admin, user 3, trying to change the data of user 1
+     */
+    @State(Scope.Thread)
+    public static class Other
+    {
+        @Setup
+        public void setup()
+        {
+            signOn(3,
+                Collections.singletonList("ROLE_USER"));
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.lambdaschool.expat.services.RoleService;
 import com.lambdaschool.expat.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,9 +22,12 @@ import java.util.Locale;
  * <p>
  * CoomandLineRunner: Spring Boot automatically runs the run method once and only once
  * after the application context has been loaded.
+ * <p>
+ * Runs before SyntheticData, which adds generated data after the seed data is committed.
  */
 @Transactional
 @Component
+@Order(1)
 public class SeedData
     implements CommandLineRunner
 {
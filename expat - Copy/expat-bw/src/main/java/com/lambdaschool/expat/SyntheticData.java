@@ -0,0 +1,68 @@
+package com.lambdaschool.expat;
+
+import com.lambdaschool.expat.services.SyntheticDataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * SyntheticData adds generated users, stories, photos and posts to the database for load and capacity testing.
+ * It implements CommandLineRunner and runs once the application context has been loaded, after SeedData.
+ * <p>
+ * Nothing is generated unless synthetic.data.users is set above 0. See application.properties for the sizes and
+ * SyntheticDataServiceImpl for how the data is generated.
+ */
+@Component
+@Order(2)
+public class SyntheticData
+    implements CommandLineRunner
+{
+    /**
+     * Connects the synthetic data service to this process
+     */
+    @Autowired
+    SyntheticDataService syntheticDataService;
+
+    /**
+     * The number of users to generate, none when 0
+     */
+    @Value("${synthetic.data.users:0}")
+    long users;
+
+    /**
+     * The number of stories to generate
+     */
+    @Value("${synthetic.data.stories:0}")
+    long stories;
+
+    /**
+     * The number of photos to generate
+     */
+    @Value("${synthetic.data.photos:0}")
+    long photos;
+
+    /**
+     * The number of posts to generate
+     */
+    @Value("${synthetic.data.posts:0}")
+    long posts;
+
+    /**
+     * Generates the configured synthetic data, if any
+     *
+     * @param args The parameter is required by the parent interface but is not used in this process.
+     */
+    @Override
+    public void run(String[] args)
+    {
+        if (users > 0)
+        {
+            syntheticDataService.generate(users,
+                stories,
+                photos,
+                posts);
+        }
+    }
+}
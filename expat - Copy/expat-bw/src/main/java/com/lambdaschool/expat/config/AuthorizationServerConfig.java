@@ -1,13 +1,18 @@
 package com.lambdaschool.expat.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.config.annotation.configurers.ClientDetailsServiceConfigurer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.AuthorizationServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableAuthorizationServer;
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerEndpointsConfigurer;
+import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerSecurityConfigurer;
 import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
 
 /**
  * This class enables and configures the Authorization Server. The class is also responsible for granting authorization to the client.
@@ -38,6 +43,12 @@ public class AuthorizationServerConfig
      */
     static final String AUTHORIZATION_CODE = "authorization_code";
 
+    /**
+     * A client can trade a refresh token for a new access token, so the user does not have to sign on again
+     * when the access token expires
+     */
+    static final String REFRESH_TOKEN = "refresh_token";
+
     /**
      * Scopes are meant to limit what a user can do with the application as a whole.
      * Here we allow the user to read from the application.
@@ -60,10 +71,18 @@ public class AuthorizationServerConfig
     static final String TRUST = "trust";
 
     /**
-     * Tells how long in seconds the access code should be kept valid. After this timeout, the user has to sign on again.
-     * set to -1 if you want the token to be valid forever. 1 * 60 * 60 would give us 1 hour.
+     * Tells how long in seconds the access code should be kept valid. After this timeout, the client has to use
+     * the refresh token. Read from the property token.access.validity.seconds, 1 hour by default.
+     */
+    @Value("${token.access.validity.seconds:3600}")
+    private int accessTokenValiditySeconds;
+
+    /**
+     * Tells how long in seconds the refresh token should be kept valid. After this timeout, the user has to sign on again.
+     * Read from the property token.refresh.validity.seconds, 30 days by default.
      */
-    static final int ACCESS_TOKEN_VALIDITY_SECONDS = -1;
+    @Value("${token.refresh.validity.seconds:2592000}")
+    private int refreshTokenValiditySeconds;
 
     /**
      * The token store is configured in Security Config. However, the authorization server manages it
@@ -80,14 +99,33 @@ public class AuthorizationServerConfig
      */
     private final PasswordEncoder encoder;
 
+    /**
+     * Reloads the user when a refresh token is used, so a deleted user cannot refresh their token
+     */
+    private final UserDetailsService userDetailsService;
+
+    /**
+     * Signs the tokens when the token store is jwt. See Token Store Config.
+     */
+    private final ObjectProvider<JwtAccessTokenConverter> jwtAccessTokenConverter;
+
+    /**
+     * Answers work turned away by the password hashing threads with 503 Service Unavailable, not 500
+     */
+    private final ServerBusyExceptionTranslator exceptionTranslator = new ServerBusyExceptionTranslator();
+
     public AuthorizationServerConfig(
             TokenStore tokenStore,
             AuthenticationManager authenticationManager,
-            PasswordEncoder encoder
+            PasswordEncoder encoder,
+            UserDetailsService securityUserService,
+            ObjectProvider<JwtAccessTokenConverter> jwtAccessTokenConverter
     ) {
         this.tokenStore = tokenStore;
         this.authenticationManager = authenticationManager;
         this.encoder = encoder;
+        this.userDetailsService = securityUserService;
+        this.jwtAccessTokenConverter = jwtAccessTokenConverter;
     }
 
     /**
@@ -105,9 +143,21 @@ public class AuthorizationServerConfig
                 .inMemory()
                 .withClient(CLIENT_ID)
                 .secret(encoder.encode(CLIENT_SECRET))
-                .authorizedGrantTypes(GRANT_TYPE_PASSWORD, AUTHORIZATION_CODE)
+                .authorizedGrantTypes(GRANT_TYPE_PASSWORD, AUTHORIZATION_CODE, REFRESH_TOKEN)
                 .scopes(SCOPE_READ, SCOPE_WRITE, TRUST)
-                .accessTokenValiditySeconds(ACCESS_TOKEN_VALIDITY_SECONDS);
+                .accessTokenValiditySeconds(accessTokenValiditySeconds)
+                .refreshTokenValiditySeconds(refreshTokenValiditySeconds);
+    }
+
+    /**
+     * Verifying the client secret can be turned away by a full password hashing pool too, before the token endpoint
+     * is reached. That is answered with 503 Service Unavailable as well.
+     *
+     * @param security The Authorization Server Security Configurer is created and managed by Spring Boot Security.
+     */
+    @Override
+    public void configure(AuthorizationServerSecurityConfigurer security) {
+        security.addTokenEndpointAuthenticationFilter(new ServerBusyFilter(exceptionTranslator));
     }
 
     /**
@@ -121,7 +171,11 @@ public class AuthorizationServerConfig
     public void configure(AuthorizationServerEndpointsConfigurer endpoints) {
         endpoints
                 .tokenStore(tokenStore)
-                .authenticationManager(authenticationManager);
+                .authenticationManager(authenticationManager)
+                .userDetailsService(userDetailsService)
+                .exceptionTranslator(exceptionTranslator);
+        // signed tokens carry the user and authorities, so they are written by the converter
+        jwtAccessTokenConverter.ifAvailable(endpoints::accessTokenConverter);
         // here instead of our clients requesting authentication at the endpoint /oauth/token, they request it at the endpoint /login
         endpoints.pathMapping("/oauth/token", "/login");
     }
@@ -0,0 +1,206 @@
+package com.lambdaschool.expat.config;
+
+import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.Role;
+import com.lambdaschool.expat.models.Story;
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.models.UserRoles;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import javax.cache.CacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches for reference data that almost never changes: story categories, photos and roles,
+ * the principal cache holding the authenticated users and the caches in front of the token store.
+ * <p>
+ * One JCache (Ehcache) cache manager backs both the Spring caches used by the services and the Hibernate
+ * second level cache, so every region is bounded, expires and reports its hits and misses
+ * through the actuator metrics endpoint (cache.gets with result hit or miss).
+ */
+@EnableCaching
+@Configuration
+public class CacheConfig
+{
+    /**
+     * Spring cache holding the story category list
+     */
+    public static final String STORY_CATEGORIES = "storyCategories";
+
+    /**
+     * Spring cache holding the list of photos
+     */
+    public static final String PHOTOS = "photos";
+
+    /**
+     * Spring cache holding the principals of authenticated users, by username
+     */
+    public static final String PRINCIPALS = "principals";
+
+    /**
+     * Spring cache holding access tokens, by token key. See CachingJdbcTokenStore.
+     */
+    public static final String ACCESS_TOKENS = "accessTokens";
+
+    /**
+     * Spring cache holding the authentication behind each access token, by token key. See CachingJdbcTokenStore.
+     */
+    public static final String TOKEN_AUTHENTICATIONS = "tokenAuthentications";
+
+    /**
+     * Hibernate region holding the results of cacheable queries
+     */
+    public static final String QUERY_RESULTS = "default-query-results-region";
+
+    /**
+     * Hibernate region holding the last time each table was written. Used to throw out stale query results,
+     * so it must never expire before the query results do.
+     */
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    /**
+     * The Spring caches holding lists of each entity class (Class), by class. The principals are built from users,
+     * their roles and the role names, so they are cleared with those.
+     */
+    private static final Map<Class<?>, String[]> LIST_CACHES = new HashMap<>();
+
+    static
+    {
+        LIST_CACHES.put(Story.class,
+            new String[]{STORY_CATEGORIES});
+        LIST_CACHES.put(Photo.class,
+            new String[]{PHOTOS});
+        for (Class<?> entityClass : new Class<?>[]{User.class, UserRoles.class, Role.class})
+        {
+            LIST_CACHES.put(entityClass,
+                new String[]{PRINCIPALS});
+        }
+    }
+
+    @Value("${cache.reference.max.entries:1000}")
+    private long maxEntries;
+
+    @Value("${cache.reference.ttl.seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${cache.principal.max.entries:10000}")
+    private long principalMaxEntries;
+
+    @Value("${cache.principal.ttl.seconds:300}")
+    private long principalTtlSeconds;
+
+    @Value("${cache.token.max.entries:10000}")
+    private long tokenMaxEntries;
+
+    @Value("${cache.token.ttl.seconds:60}")
+    private long tokenTtlSeconds;
+
+    /**
+     * The Spring caches holding lists of an entity class. They are cleared once a transaction saving, updating or
+     * deleting rows of the class commits, whichever service made the change (see ResourceVersionServiceImpl).
+     *
+     * @param entityClass the entity class whose rows changed
+     * @return the names (String) of the caches to clear, none if no list of the class is cached
+     */
+    public static String[] listCachesOf(Class<?> entityClass)
+    {
+        return LIST_CACHES.getOrDefault(entityClass,
+            new String[0]);
+    }
+
+    /**
+     * Creates every cache up front with a size bound and a time to live, and turns on statistics
+     * so the hit and miss counts show up in the metrics.
+     *
+     * @return the customizer applied to the JCache cache manager when Spring creates it
+     */
+    @Bean
+    public JCacheManagerCustomizer referenceDataCaches()
+    {
+        return cacheManager ->
+        {
+            String[] expiring = {STORY_CATEGORIES, PHOTOS, QUERY_RESULTS,
+                Story.class.getName(), Photo.class.getName(), Role.class.getName()};
+            for (String name : expiring)
+            {
+                createCache(cacheManager,
+                    name,
+                    maxEntries,
+                    ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ttlSeconds)));
+            }
+
+            createCache(cacheManager,
+                PRINCIPALS,
+                principalMaxEntries,
+                ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(principalTtlSeconds)));
+
+            for (String name : new String[]{ACCESS_TOKENS, TOKEN_AUTHENTICATIONS})
+            {
+                createCache(cacheManager,
+                    name,
+                    tokenMaxEntries,
+                    ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(tokenTtlSeconds)));
+            }
+
+            // one entry per table, kept for as long as the application runs
+            createCache(cacheManager,
+                UPDATE_TIMESTAMPS,
+                maxEntries,
+                ExpiryPolicyBuilder.noExpiration());
+        };
+    }
+
+    /**
+     * Creates a bounded cache with statistics turned on. The JCache cache manager is shared by every application
+     * context in the JVM, such as test contexts with different properties, so a cache already created is kept.
+     *
+     * @param cacheManager the JCache cache manager to add the cache to
+     * @param name         the name (String) of the cache
+     * @param entries      the most entries (long) the cache holds
+     * @param expiry       when entries expire
+     */
+    private void createCache(
+        CacheManager cacheManager,
+        String name,
+        long entries,
+        ExpiryPolicy<Object, Object> expiry)
+    {
+        if (cacheManager.getCache(name) != null)
+        {
+            return;
+        }
+        cacheManager.createCache(name,
+            Eh107Configuration.fromEhcacheCacheConfiguration(CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class,
+                    Object.class,
+                    ResourcePoolsBuilder.heap(entries))
+                .withExpiry(expiry)));
+        cacheManager.enableStatistics(name,
+            true);
+    }
+
+    /**
+     * Hands the Spring managed cache manager to Hibernate so the second level cache uses the regions created above.
+     *
+     * @param cacheManager the JCache cache manager created by Spring
+     * @return the customizer adding the cache manager to the Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManager(CacheManager cacheManager)
+    {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER,
+            cacheManager);
+    }
+}
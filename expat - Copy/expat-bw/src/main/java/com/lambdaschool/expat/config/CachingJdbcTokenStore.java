@@ -0,0 +1,246 @@
+package com.lambdaschool.expat.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.store.JdbcTokenStore;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A token store kept in the database, so tokens survive restarts and are shared by every instance of the application.
+ * <p>
+ * Every request reads its access token and the authentication behind it, so both are cached in memory
+ * by token key. The cache is read through and evicted whenever this instance removes a token. Another instance
+ * removing a token (logout) is seen here once the cache entry expires, so the cache time to live is kept short.
+ * <p>
+ * The expiration of every token is also written to its own column, so expired tokens can be deleted
+ * in batches without reading each token back.
+ */
+public class CachingJdbcTokenStore
+    extends JdbcTokenStore
+    implements ExpiringTokenStore
+{
+    /**
+     * Creates the token tables if they are not there yet. Works on both H2 and PostgreSQL.
+     */
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS oauth_access_token (token_id VARCHAR(256), token BYTEA, " +
+            "authentication_id VARCHAR(256) PRIMARY KEY, user_name VARCHAR(256), client_id VARCHAR(256), " +
+            "authentication BYTEA, refresh_token VARCHAR(256), expiration TIMESTAMP)",
+        "CREATE TABLE IF NOT EXISTS oauth_refresh_token (token_id VARCHAR(256), token BYTEA, " +
+            "authentication BYTEA, expiration TIMESTAMP)",
+        "CREATE INDEX IF NOT EXISTS idx_oauth_access_token_id ON oauth_access_token (token_id)",
+        "CREATE INDEX IF NOT EXISTS idx_oauth_access_token_refresh ON oauth_access_token (refresh_token)",
+        "CREATE INDEX IF NOT EXISTS idx_oauth_access_token_expiration ON oauth_access_token (expiration)",
+        "CREATE INDEX IF NOT EXISTS idx_oauth_refresh_token_id ON oauth_refresh_token (token_id)",
+        "CREATE INDEX IF NOT EXISTS idx_oauth_refresh_token_expiration ON oauth_refresh_token (expiration)"
+    };
+
+    /**
+     * Runs the statements the parent class does not know about
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Access tokens by token key
+     */
+    private final Cache accessTokens;
+
+    /**
+     * Authentications by access token key
+     */
+    private final Cache authentications;
+
+    /**
+     * Given the params, create a new token store and the token tables if needed
+     *
+     * @param dataSource      the database the tokens are kept in
+     * @param accessTokens    the cache of access tokens
+     * @param authentications the cache of authentications
+     */
+    public CachingJdbcTokenStore(
+        DataSource dataSource,
+        Cache accessTokens,
+        Cache authentications)
+    {
+        super(dataSource);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.accessTokens = accessTokens;
+        this.authentications = authentications;
+
+        for (String statement : SCHEMA)
+        {
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    @Override
+    public void storeAccessToken(
+        OAuth2AccessToken token,
+        OAuth2Authentication authentication)
+    {
+        super.storeAccessToken(token,
+            authentication);
+
+        String key = extractTokenKey(token.getValue());
+        jdbcTemplate.update("UPDATE oauth_access_token SET expiration = ? WHERE token_id = ?",
+            toTimestamp(token.getExpiration()),
+            key);
+        accessTokens.evict(key);
+        authentications.evict(key);
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue)
+    {
+        String key = extractTokenKey(tokenValue);
+        OAuth2AccessToken token = accessTokens.get(key,
+            OAuth2AccessToken.class);
+        if (token == null)
+        {
+            token = super.readAccessToken(tokenValue);
+            if (token != null)
+            {
+                accessTokens.put(key,
+                    token);
+            }
+        }
+        return token;
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String token)
+    {
+        String key = extractTokenKey(token);
+        OAuth2Authentication authentication = authentications.get(key,
+            OAuth2Authentication.class);
+        if (authentication == null)
+        {
+            authentication = super.readAuthentication(token);
+            if (authentication != null)
+            {
+                authentications.put(key,
+                    authentication);
+            }
+        }
+        return authentication;
+    }
+
+    @Override
+    public void removeAccessToken(String tokenValue)
+    {
+        super.removeAccessToken(tokenValue);
+        evict(extractTokenKey(tokenValue));
+    }
+
+    @Override
+    public void storeRefreshToken(
+        OAuth2RefreshToken refreshToken,
+        OAuth2Authentication authentication)
+    {
+        super.storeRefreshToken(refreshToken,
+            authentication);
+
+        if (refreshToken instanceof ExpiringOAuth2RefreshToken)
+        {
+            jdbcTemplate.update("UPDATE oauth_refresh_token SET expiration = ? WHERE token_id = ?",
+                toTimestamp(((ExpiringOAuth2RefreshToken) refreshToken).getExpiration()),
+                extractTokenKey(refreshToken.getValue()));
+        }
+    }
+
+    @Override
+    public void removeAccessTokenUsingRefreshToken(String refreshToken)
+    {
+        List<String> keys = jdbcTemplate.queryForList("SELECT token_id FROM oauth_access_token WHERE refresh_token = ?",
+            String.class,
+            extractTokenKey(refreshToken));
+        super.removeAccessTokenUsingRefreshToken(refreshToken);
+        keys.forEach(this::evict);
+    }
+
+    @Override
+    public int removeExpiredTokens(int batchSize)
+    {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return removeExpired("oauth_access_token",
+            now,
+            batchSize) + removeExpired("oauth_refresh_token",
+            now,
+            batchSize);
+    }
+
+    @Override
+    public long size()
+    {
+        Long size = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM oauth_access_token",
+            Long.class);
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * Deletes the expired rows of one token table, one batch at a time
+     *
+     * @param table     the token table (String)
+     * @param now       the current time
+     * @param batchSize the most rows (int) deleted by a single statement
+     * @return the number of rows deleted
+     */
+    private int removeExpired(
+        String table,
+        Timestamp now,
+        int batchSize)
+    {
+        int removed = 0;
+        List<String> keys;
+        do
+        {
+            keys = jdbcTemplate.queryForList("SELECT token_id FROM " + table + " WHERE expiration < ? FETCH FIRST " + batchSize + " ROWS ONLY",
+                String.class,
+                now);
+            if (!keys.isEmpty())
+            {
+                String inList = String.join(",",
+                    Collections.nCopies(keys.size(),
+                        "?"));
+                removed += jdbcTemplate.update("DELETE FROM " + table + " WHERE token_id IN (" + inList + ")",
+                    keys.toArray());
+                if (table.equals("oauth_access_token"))
+                {
+                    keys.forEach(this::evict);
+                }
+            }
+        } while (keys.size() == batchSize);
+        return removed;
+    }
+
+    /**
+     * Removes an access token and its authentication from the cache
+     *
+     * @param key the token key (String)
+     */
+    private void evict(String key)
+    {
+        accessTokens.evict(key);
+        authentications.evict(key);
+    }
+
+    /**
+     * Converts the expiration of a token to a timestamp
+     *
+     * @param expiration when the token expires, null if it never does
+     * @return the timestamp or null if the token never expires
+     */
+    private static Timestamp toTimestamp(Date expiration)
+    {
+        return expiration == null ? null : new Timestamp(expiration.getTime());
+    }
+}
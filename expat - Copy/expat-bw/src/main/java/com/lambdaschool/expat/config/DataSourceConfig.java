@@ -2,11 +2,16 @@ package com.lambdaschool.expat.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javax.sql.DataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 @Configuration
 public class DataSourceConfig {
@@ -16,26 +21,106 @@ public class DataSourceConfig {
     @Value("${spring.datasource.url}")
     private String dbURL;
 
+    /**
+     * The JDBC urls of the read replicas, separated by commas. None when empty.
+     */
+    @Value("${datasource.replica.urls:}")
+    private String replicaURLs;
+
+    @Value("${datasource.replica.health.interval.ms:5000}")
+    private long replicaHealthIntervalMillis;
+
+    @Value("${datasource.replica.max.lag.ms:10000}")
+    private long replicaMaxLagMillis;
+
+    @Value("${datasource.replica.sticky.ms:10000}")
+    private long replicaStickyMillis;
+
+    /**
+     * The connection pool of the database. Its size, the connections in use and waiting, and the time taken to get
+     * a connection are published as the hikaricp metrics. The tracker is set before the pool starts, which
+     * is the only time it can be.
+     * <p>
+     * With read replicas listed in datasource.replica.urls, each one gets a pool of its own, and read only
+     * transactions are sent to them (see ReplicaRoutingDataSource).
+     * <p>
+     * The statements run on its connections are counted for the request running them (see StatementLog).
+     *
+     * @param meterRegistry where the pool metrics are kept
+     * @return the connection pool, counting statements
+     */
     @Bean
-    public DataSource dataSource() {
-        if (dbValue.equalsIgnoreCase("POSTGRESQL")) {
-            HikariConfig config = new HikariConfig();
-            config.setDriverClassName("org.postgresql.Driver");
-            config.setJdbcUrl(dbURL);
-            return new HikariDataSource(config);
-        } else {
-            String URLString = "jdbc:h2:mem:test_db";
-            String driverClass = "org.h2.Driver";
-            String dbUser = "sa";
-            String dbPassword = "";
-
-            return DataSourceBuilder
-                    .create()
-                    .username(dbUser)
-                    .password(dbPassword)
-                    .url(URLString)
-                    .driverClassName(driverClass)
-                    .build();
+    public DataSource dataSource(MeterRegistry meterRegistry) {
+        boolean postgresql = dbValue.equalsIgnoreCase("POSTGRESQL");
+        DataSource primary = postgresql
+                ? postgresql("primary", dbURL, false, meterRegistry)
+                : h2("primary", "jdbc:h2:mem:test_db", false, meterRegistry);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaURLs.split(",")) {
+            if (!url.trim().isEmpty()) {
+                String name = "replica-" + (replicas.size() + 1);
+                replicas.put(name, postgresql
+                        ? postgresql(name, url.trim(), true, meterRegistry)
+                        : h2(name, url.trim(), true, meterRegistry));
+            }
+        }
+
+        if (replicas.isEmpty()) {
+            return new StatementCountingDataSource(primary);
+        }
+        return new StatementCountingDataSource(new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary,
+                        replicas,
+                        replicaHealthIntervalMillis,
+                        replicaMaxLagMillis,
+                        replicaStickyMillis,
+                        meterRegistry)));
+    }
+
+    /**
+     * A pool of connections to a PostgreSQL database, whose url carries the username and password
+     */
+    private static HikariDataSource postgresql(String name, String url, boolean replica, MeterRegistry meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setDriverClassName("org.postgresql.Driver");
+        config.setJdbcUrl(url);
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        replica(config, replica);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * A pool of connections to an H2 database
+     */
+    private static HikariDataSource h2(String name, String url, boolean replica, MeterRegistry meterRegistry) {
+        String driverClass = "org.h2.Driver";
+        String dbUser = "sa";
+        String dbPassword = "";
+
+        HikariDataSource dataSource = DataSourceBuilder
+                .create()
+                .type(HikariDataSource.class)
+                .username(dbUser)
+                .password(dbPassword)
+                .url(url)
+                .driverClassName(driverClass)
+                .build();
+        dataSource.setPoolName(name);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        replica(dataSource, replica);
+        return dataSource;
+    }
+
+    /**
+     * Makes the connections of a replica read only. A replica that cannot be reached does not stop the application
+     * from starting, its pool keeps trying and its health check leaves it out meanwhile.
+     */
+    private static void replica(HikariConfig config, boolean replica) {
+        if (replica) {
+            config.setReadOnly(true);
+            config.setInitializationFailTimeout(-1);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.lambdaschool.expat.config;
+
+/**
+ * A token store that keeps rows for tokens after they expire and needs them deleted from time to time.
+ * See TokenStoreConfig, which calls removeExpiredTokens on a schedule.
+ */
+public interface ExpiringTokenStore
+{
+    /**
+     * Deletes what the store keeps for tokens that have expired, at most batchSize rows per statement,
+     * so a large backlog never holds long locks on the token tables.
+     *
+     * @param batchSize the most rows (int) deleted by a single statement
+     * @return the number of rows deleted
+     */
+    int removeExpiredTokens(int batchSize);
+
+    /**
+     * The number of tokens the store keeps, published as the metric token.store.size
+     *
+     * @return the number (long) of access tokens kept, or of denied tokens for signed tokens, which are not kept
+     */
+    long size();
+}
@@ -0,0 +1,61 @@
+package com.lambdaschool.expat.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.boot.actuate.metrics.web.servlet.DefaultWebMvcTagsProvider;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * Adds to the metrics Spring Boot publishes on its own. They are read at /actuator/metrics, and by Prometheus
+ * at /actuator/prometheus, both for admins only.
+ * <p>
+ * Which metrics get histograms and percentiles is set in application.properties. The connection pool metrics
+ * are set up in DataSourceConfig, the token store size in TokenStoreConfig and the password hashing timers
+ * in PasswordHashingServiceImpl.
+ */
+@Configuration
+public class MetricsConfig {
+    /**
+     * Tags the timings of requests (http.server.requests) with the controller method that handled them, such as
+     * UserController.getUserById, next to the tags Spring Boot gives them, so each one gets its own latency
+     * histogram. The handler tag is made once per method, not once per request.
+     *
+     * @return the provider of the request tags
+     */
+    @Bean
+    public WebMvcTagsProvider handlerTagsProvider() {
+        return new DefaultWebMvcTagsProvider() {
+            private final Tags none = Tags.of("handler", "none");
+
+            private final Map<Method, Tags> tags = new ConcurrentHashMap<>();
+
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Throwable exception) {
+                return tags(handler).and(super.getTags(request, response, handler, exception));
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return tags(handler).and(super.getLongRequestTags(request, handler));
+            }
+
+            private Tags tags(Object handler) {
+                if (!(handler instanceof HandlerMethod)) {
+                    return none;
+                }
+                HandlerMethod handlerMethod = (HandlerMethod) handler;
+                return tags.computeIfAbsent(handlerMethod.getMethod(), method -> Tags.of("handler",
+                        handlerMethod.getBeanType().getSimpleName() + "." + method.getName()));
+            }
+        };
+    }
+}
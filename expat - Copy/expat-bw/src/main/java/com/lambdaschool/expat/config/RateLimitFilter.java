@@ -0,0 +1,237 @@
+package com.lambdaschool.expat.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Turns away clients sending more requests than we allow, before any work is done for them. Signing up (/createnewuser)
+ * and signing on (/login) hash passwords, which takes far more of the server than anything else a client can ask for
+ * without an account, so they get the tightest limits.
+ * <p>
+ * The limits are rules read from rate.limit.rules in application.properties. Each one gives the requests matching a
+ * method and path a token bucket per client address, OAuth client id, or username and address. A request takes a
+ * token from the bucket of every rule it matches, and when one of them is empty the tokens it took from the others
+ * are given back and it gets a 429 Too Many Requests, with Retry-After telling the client how many seconds to wait. The buckets are kept in a table of fixed size (see TokenBuckets).
+ * <p>
+ * This runs right after the CORS filter, so turned away requests still carry the CORS headers the browser needs
+ * to read them.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RateLimitFilter implements Filter {
+    private static final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final boolean enabled;
+
+    private final List<Rule> rules;
+
+    private final TokenBuckets buckets;
+
+    public RateLimitFilter(
+            @Value("${rate.limit.enabled:true}") boolean enabled,
+            @Value("${rate.limit.rules:}") String rules,
+            @Value("${rate.limit.max.buckets:65536}") int maxBuckets,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.rules = parse(rules, meterRegistry);
+        this.buckets = new TokenBuckets(maxBuckets);
+    }
+
+    @Override
+    public void doFilter(
+            ServletRequest servletRequest,
+            ServletResponse servletResponse,
+            FilterChain filterChain
+    )
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        if (enabled) {
+            String path = request.getServletPath();
+            long now = System.nanoTime();
+            List<Rule> taken = new ArrayList<>();
+            List<String> takenKeys = new ArrayList<>();
+            for (Rule rule : rules) {
+                if (!rule.matches(request.getMethod(), path)) {
+                    continue;
+                }
+                String key = rule.key.of(request);
+                if (key == null) {
+                    continue;
+                }
+                long wait = buckets.take(rule.limit, key, now);
+                if (wait > 0) {
+                    // a request turned away by one rule does not use up the others
+                    for (int i = 0; i < taken.size(); i++) {
+                        buckets.giveBack(taken.get(i).limit, takenKeys.get(i), now);
+                    }
+                    rule.rejected.increment();
+                    long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+                    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+                    // goes through the error page, so the body has the same format as every other error
+                    response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(),
+                            "Too many requests. Please try again in " + seconds + " seconds.");
+                    return;
+                }
+                taken.add(rule);
+                takenKeys.add(key);
+            }
+        }
+        filterChain.doFilter(servletRequest, servletResponse);
+    }
+
+    /**
+     * Reads the rules, separated by commas, each one METHOD PATH KEY CAPACITY SECONDS
+     *
+     * @param rules         the rules (String), as written in application.properties
+     * @param meterRegistry where the count of requests each rule turns away is kept, as rate.limit.rejected
+     * @return the rules, in the order written
+     */
+    private static List<Rule> parse(String rules, MeterRegistry meterRegistry) {
+        List<Rule> parsed = new ArrayList<>();
+        for (String rule : rules.split(",")) {
+            if (rule.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = rule.trim().split("\\s+");
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("Rate limit rule " + rule.trim()
+                        + " is not METHOD PATH KEY CAPACITY SECONDS");
+            }
+            long capacity = Long.parseLong(parts[3]);
+            long seconds = Long.parseLong(parts[4]);
+            if (capacity < 1 || seconds < 1) {
+                throw new IllegalArgumentException("Rate limit rule " + rule.trim()
+                        + " needs a capacity and seconds of at least 1");
+            }
+            Key key = Key.valueOf(parts[2].toUpperCase());
+            parsed.add(new Rule(parts[0].toUpperCase(),
+                    parts[1],
+                    key,
+                    new TokenBuckets.Limit(capacity, seconds),
+                    meterRegistry.counter("rate.limit.rejected",
+                            "method", parts[0].toUpperCase(),
+                            "path", parts[1],
+                            "key", key.name().toLowerCase())));
+        }
+        return parsed;
+    }
+
+    /**
+     * What the requests of a rule are counted by
+     */
+    private enum Key {
+        /**
+         * The address of the client. Behind a proxy this is the address in X-Forwarded-For, which Spring Boot reads
+         * on Heroku, and elsewhere once server.forward-headers-strategy is native.
+         */
+        IP {
+            @Override
+            String of(HttpServletRequest request) {
+                return request.getRemoteAddr();
+            }
+        },
+
+        /**
+         * The OAuth client id of a request authenticating its client, such as /login
+         */
+        CLIENT {
+            @Override
+            String of(HttpServletRequest request) {
+                String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+                if (authorization == null || !authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+                    return request.getParameter("client_id");
+                }
+                try {
+                    String credentials = new String(Base64.getDecoder()
+                            .decode(authorization.substring(6).trim()), StandardCharsets.UTF_8);
+                    int colon = credentials.indexOf(':');
+                    return colon < 0 ? credentials : credentials.substring(0, colon);
+                } catch (IllegalArgumentException e) {
+                    // not base 64, Spring Security turns it away without any hashing
+                    return null;
+                }
+            }
+        },
+
+        /**
+         * The username parameter of /login, lower case as usernames are stored, together with the address of the
+         * client. Keyed by the username alone, anyone could lock a user out by guessing at their password.
+         */
+        USERNAME_IP {
+            @Override
+            String of(HttpServletRequest request) {
+                String username = request.getParameter("username");
+                return username == null || username.isEmpty() ? null
+                        : username.toLowerCase() + " " + request.getRemoteAddr();
+            }
+        };
+
+        /**
+         * The key of a request
+         *
+         * @param request the request
+         * @return the key (String), null when the request does not have one and the rule does not apply to it
+         */
+        abstract String of(HttpServletRequest request);
+    }
+
+    /**
+     * A limit on the requests matching a method and path, per key
+     */
+    private static final class Rule {
+        /**
+         * The HTTP method (String), * for any
+         */
+        private final String method;
+
+        /**
+         * The ant style pattern (String) of the path, such as /users/**
+         */
+        private final String path;
+
+        private final Key key;
+
+        private final TokenBuckets.Limit limit;
+
+        /**
+         * The requests turned away by the rule
+         */
+        private final Counter rejected;
+
+        private Rule(String method, String path, Key key, TokenBuckets.Limit limit, Counter rejected) {
+            this.method = method;
+            this.path = path;
+            this.key = key;
+            this.limit = limit;
+            this.rejected = rejected;
+        }
+
+        private boolean matches(String method, String path) {
+            return ("*".equals(this.method) || this.method.equalsIgnoreCase(method))
+                    && pathMatcher.match(this.path, path);
+        }
+    }
+}
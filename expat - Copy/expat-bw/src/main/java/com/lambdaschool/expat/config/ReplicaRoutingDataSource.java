@@ -0,0 +1,303 @@
+package com.lambdaschool.expat.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the work of read only transactions (@Transactional(readOnly = true)) to the read replicas of the database,
+ * taking turns between them, and everything else to the primary. The replicas are copies of the primary kept
+ * up to date by the database's own replication, the application never writes to them.
+ * <p>
+ * Every replica is checked every datasource.replica.health.interval.ms. One that cannot be reached, or on
+ * PostgreSQL is more than datasource.replica.max.lag.ms behind the primary, is left out until it passes again.
+ * With no replica passing, reads go to the primary.
+ * <p>
+ * A user whose read write transaction committed has their reads sent to the primary for the next
+ * datasource.replica.sticky.ms, so they see their own changes however far behind the replicas are. Anonymous
+ * requests are not tracked. A read only transaction that cannot be a moment behind, such as looking up a user
+ * signing in right after signing up, is sent to the primary with readFromPrimary.
+ * <p>
+ * The connection has to be chosen once the transaction has started, so this is used behind a
+ * LazyConnectionDataSourceProxy (see DataSourceConfig), which gets the connection when the first statement runs.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY = "primary";
+
+    /**
+     * Key of the marker bound to a read only transaction that has to read from the primary
+     */
+    private static final Object PRIMARY_HINT = new Object();
+
+    /**
+     * How far behind the primary a PostgreSQL replica is, in milliseconds. 0 on a database that is not a replica.
+     */
+    private static final String POSTGRESQL_LAG = "SELECT CASE WHEN pg_is_in_recovery() "
+            + "THEN COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) ELSE 0 END";
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    /**
+     * Taking turns between the replicas
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * The time (Long, System.nanoTime) until which each user (String, the username) reads from the primary
+     */
+    private final ConcurrentMap<String, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    private final long stickyNanos;
+
+    private final long maxLagMillis;
+
+    private final ScheduledExecutorService healthChecks;
+
+    /**
+     * Given the params, create a routing data source and start checking the replicas
+     *
+     * @param primary              the data source of the primary
+     * @param replicas             the data sources of the replicas, by name (String), such as replica-1
+     * @param healthIntervalMillis the time (long) between health checks of the replicas, in milliseconds
+     * @param maxLagMillis         how far (long) behind the primary a PostgreSQL replica can be, in milliseconds,
+     *                             0 for no limit
+     * @param stickyMillis         how long (long) after a write a user reads from the primary, in milliseconds
+     * @param meterRegistry        where the health of each replica is published, as datasource.replica.healthy
+     */
+    public ReplicaRoutingDataSource(
+            DataSource primary,
+            Map<String, DataSource> replicas,
+            long healthIntervalMillis,
+            long maxLagMillis,
+            long stickyMillis,
+            MeterRegistry meterRegistry
+    ) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>();
+        this.stickyNanos = TimeUnit.MILLISECONDS.toNanos(stickyMillis);
+        this.maxLagMillis = maxLagMillis;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            targets.put(name, dataSource);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("1 while the replica is used for reads, 0 while it is left out")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        // a replica that cannot be reached can hold up its check until the connection times out, so each replica
+        // is checked on a thread of its own. Until its first check passes, reads go elsewhere.
+        this.healthChecks = Executors.newScheduledThreadPool(this.replicas.size() + 1, runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Replica replica : this.replicas) {
+            this.healthChecks.scheduleWithFixedDelay(() -> checkHealth(replica),
+                    0,
+                    healthIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        this.healthChecks.scheduleWithFixedDelay(this::forgetStickyUsers,
+                healthIntervalMillis,
+                healthIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            stickAfterCommit();
+            return PRIMARY;
+        }
+        if (TransactionSynchronizationManager.hasResource(PRIMARY_HINT)) {
+            return PRIMARY;
+        }
+
+        String user = user();
+        if (user != null) {
+            Long until = stickyUntil.get(user);
+            if (until != null && until - System.nanoTime() > 0) {
+                return PRIMARY;
+            }
+        }
+
+        int count = replicas.size();
+        int start = next.getAndIncrement();
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, count));
+            if (replica.healthy) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * Sends the current read only transaction to the primary. Has to be called before its first statement runs,
+     * which is when the connection is chosen. Outside a transaction everything goes to the primary already.
+     */
+    public static void readFromPrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(PRIMARY_HINT)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(PRIMARY_HINT, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PRIMARY_HINT);
+            }
+        });
+    }
+
+    /**
+     * Sends the reads of the current user to the primary for a while once the current transaction commits
+     */
+    private void stickAfterCommit() {
+        if (stickyNanos <= 0
+                || !TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String user = user();
+        if (user != null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stickyUntil.put(user, System.nanoTime() + stickyNanos);
+                }
+            });
+        }
+    }
+
+    /**
+     * The username of the signed on user of this thread
+     *
+     * @return the username (String), null when no one is signed on
+     */
+    private static String user() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * Checks a replica, and starts or stops sending it reads when the outcome changes
+     */
+    private void checkHealth(Replica replica) {
+        boolean healthy = isHealthy(replica);
+        if (healthy != replica.healthy || !replica.checked) {
+            if (healthy) {
+                logger.info("Replica {} passed its health check, reads are sent to it", replica.name);
+            } else {
+                logger.warn("Replica {} failed its health check, reads are sent elsewhere", replica.name);
+            }
+            replica.healthy = healthy;
+            replica.checked = true;
+        }
+    }
+
+    /**
+     * Forgets the users that read from the primary no longer
+     */
+    private void forgetStickyUsers() {
+        long now = System.nanoTime();
+        stickyUntil.values().removeIf(until -> until - now <= 0);
+    }
+
+    private boolean isHealthy(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (!connection.isValid(2)) {
+                return false;
+            }
+            if (maxLagMillis <= 0 || !connection.getMetaData().getURL().startsWith("jdbc:postgresql:")) {
+                return true;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(POSTGRESQL_LAG)) {
+                double lag = resultSet.next() ? resultSet.getDouble(1) : 0;
+                if (lag > maxLagMillis) {
+                    logger.debug("Replica {} is {} ms behind the primary", replica.name, (long) lag);
+                    return false;
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            logger.debug("Replica {} cannot be reached", replica.name, e);
+            return false;
+        }
+    }
+
+    /**
+     * Stops the health checks and closes the connection pools of the primary and the replicas
+     */
+    @Override
+    public void close() throws Exception {
+        healthChecks.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) replica.dataSource).close();
+            }
+        }
+        if (primary instanceof AutoCloseable) {
+            ((AutoCloseable) primary).close();
+        }
+    }
+
+    /**
+     * A replica and whether it passed its last health check
+     */
+    private static final class Replica {
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private volatile boolean healthy;
+
+        /**
+         * Whether the replica was checked yet. Only read and written by its health check.
+         */
+        private boolean checked;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
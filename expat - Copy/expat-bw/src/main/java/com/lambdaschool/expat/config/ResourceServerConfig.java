@@ -3,6 +3,7 @@ package com.lambdaschool.expat.config;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
@@ -17,9 +18,14 @@ import org.springframework.security.oauth2.provider.error.OAuth2AccessDeniedHand
 public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
     private static final String RESOURCE_ID = "resource_id";
 
+    /**
+     * Every request is authenticated by its bearer token alone, never by an http session
+     *
+     * @param resources the resource server configuration maintained by Spring
+     */
     @Override
     public void configure(ResourceServerSecurityConfigurer resources) {
-        resources.resourceId(RESOURCE_ID).stateless(false);
+        resources.resourceId(RESOURCE_ID).stateless(true);
     }
 
     /**
@@ -48,6 +54,8 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
                         "/v2/api-docs",
                         "/webjars/**",
                         "/posts",
+                        "/posts/search",
+                        "/photo/*/content",
                         "/createnewuser"
                 )
                 .permitAll()
@@ -61,14 +69,16 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
                         "/users/**",
                         "/user_emails/**",
                         "/post/**",
+                        "/posts/batch",
                         "/story",
+                        "/story/typeahead/**",
                         "/photo",
                         "/user/posts",
                         "/oauth/revoke-token",
                         "/logout"
                 )
                 .authenticated()
-                .antMatchers("/roles/**")
+                .antMatchers("/roles/**", "/actuator/**")
                 .hasAnyRole("ADMIN")
                 .and()
                 .exceptionHandling()
@@ -93,5 +103,8 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
 
         // This application implements its own logout procedure so disable the one built into Spring Security
         http.logout().disable();
+
+        // tokens are sent with every request, so never create or read an http session
+        http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
     }
 }
\ No newline at end of file
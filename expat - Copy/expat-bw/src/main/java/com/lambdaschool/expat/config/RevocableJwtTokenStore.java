@@ -0,0 +1,254 @@
+package com.lambdaschool.expat.config;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A token store for signed tokens (JWT). A token carries the user and authorities and is checked against
+ * the signing key, so authenticating a request does not read any storage.
+ * <p>
+ * Signed tokens cannot be taken back, so logging out adds the id (jti) of the access token to a deny list.
+ * Refresh tokens issued with a denied access token are refused too. The deny list is held in memory, where every
+ * request checks it, and written to the table oauth_token_deny_list, which every instance reads back on a schedule
+ * (see TokenStoreConfig). An entry is kept until every token it can refuse has expired.
+ */
+public class RevocableJwtTokenStore
+    extends JwtTokenStore
+    implements ExpiringTokenStore
+{
+    /**
+     * Creates the deny list table if it is not there yet. Works on both H2 and PostgreSQL.
+     */
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS oauth_token_deny_list (token_id VARCHAR(256) PRIMARY KEY, expiration TIMESTAMP NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_oauth_token_deny_list_expiration ON oauth_token_deny_list (expiration)"
+    };
+
+    /**
+     * The claim of a refresh token holding the id of the access token it was issued with
+     */
+    private static final String ACCESS_TOKEN_ID = "ati";
+
+    /**
+     * Signs the tokens, and reads the claims of the refresh tokens sent back
+     */
+    private final Converter converter;
+
+    /**
+     * Reads and writes the deny list table
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * How long, in milliseconds, a denied token id is kept. The lifetime of a refresh token.
+     */
+    private final long denyMillis;
+
+    /**
+     * Denied token ids and when (epoch milliseconds) they can be forgotten
+     */
+    private final Map<String, Long> denied = new ConcurrentHashMap<>();
+
+    /**
+     * Given the params, create a new token store and the deny list table if needed
+     *
+     * @param converter                   signs and verifies the tokens
+     * @param dataSource                  the database the deny list is kept in
+     * @param refreshTokenValiditySeconds the lifetime (int) of a refresh token in seconds
+     */
+    public RevocableJwtTokenStore(
+        Converter converter,
+        DataSource dataSource,
+        int refreshTokenValiditySeconds)
+    {
+        super(converter);
+        this.converter = converter;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.denyMillis = refreshTokenValiditySeconds * 1000L;
+
+        for (String statement : SCHEMA)
+        {
+            jdbcTemplate.execute(statement);
+        }
+        refreshDenyList();
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue)
+    {
+        OAuth2AccessToken token = super.readAccessToken(tokenValue);
+        if (token != null && isDenied(token.getAdditionalInformation()
+            .get(AccessTokenConverter.JTI)))
+        {
+            return null;
+        }
+        return token;
+    }
+
+    @Override
+    public OAuth2RefreshToken readRefreshToken(String tokenValue)
+    {
+        OAuth2RefreshToken token = super.readRefreshToken(tokenValue);
+        if (token != null)
+        {
+            Map<String, Object> claims = converter.claims(tokenValue);
+            if (isDenied(claims.get(AccessTokenConverter.JTI)) || isDenied(claims.get(ACCESS_TOKEN_ID)))
+            {
+                return null;
+            }
+        }
+        return token;
+    }
+
+    @Override
+    public void removeAccessToken(OAuth2AccessToken token)
+    {
+        Object tokenId = token.getAdditionalInformation()
+            .get(AccessTokenConverter.JTI);
+        if (tokenId != null)
+        {
+            deny(tokenId.toString());
+        }
+    }
+
+    @Override
+    public void removeRefreshToken(OAuth2RefreshToken token)
+    {
+        Object tokenId = converter.claims(token.getValue())
+            .get(AccessTokenConverter.JTI);
+        if (tokenId != null)
+        {
+            deny(tokenId.toString());
+        }
+    }
+
+    /**
+     * Reads the deny list table into memory, so token ids denied by other instances are refused here too
+     */
+    public void refreshDenyList()
+    {
+        long now = System.currentTimeMillis();
+        jdbcTemplate.query("SELECT token_id, expiration FROM oauth_token_deny_list WHERE expiration > ?",
+            rs ->
+            {
+                denied.put(rs.getString(1),
+                    rs.getTimestamp(2)
+                        .getTime());
+            },
+            new Timestamp(now));
+        denied.values()
+            .removeIf(expiration -> expiration <= now);
+    }
+
+    @Override
+    public int removeExpiredTokens(int batchSize)
+    {
+        long now = System.currentTimeMillis();
+        denied.values()
+            .removeIf(expiration -> expiration <= now);
+
+        int removed = 0;
+        int deleted;
+        do
+        {
+            deleted = jdbcTemplate.update("DELETE FROM oauth_token_deny_list WHERE token_id IN " +
+                    "(SELECT token_id FROM oauth_token_deny_list WHERE expiration <= ? FETCH FIRST " + batchSize + " ROWS ONLY)",
+                new Timestamp(now));
+            removed += deleted;
+        } while (deleted == batchSize);
+        return removed;
+    }
+
+    @Override
+    public long size()
+    {
+        return denied.size();
+    }
+
+    /**
+     * Adds a token id to the deny list, here and in the database. Revoking the same token twice at once, on this
+     * instance or another, is fine: whichever insert comes second finds the row there and updates it instead.
+     * Runs outside of any transaction, so a failed insert does not spoil one.
+     *
+     * @param tokenId the id (String) of the token to refuse
+     */
+    private void deny(String tokenId)
+    {
+        long expiration = System.currentTimeMillis() + denyMillis;
+        denied.put(tokenId,
+            expiration);
+        if (updateExpiration(tokenId,
+            expiration) == 0)
+        {
+            try
+            {
+                jdbcTemplate.update("INSERT INTO oauth_token_deny_list (token_id, expiration) VALUES (?, ?)",
+                    tokenId,
+                    new Timestamp(expiration));
+            } catch (DuplicateKeyException e)
+            {
+                updateExpiration(tokenId,
+                    expiration);
+            }
+        }
+    }
+
+    /**
+     * Moves the expiration of a denied token id in the database
+     *
+     * @param tokenId    the id (String) of the denied token
+     * @param expiration when (long, epoch milliseconds) the id can be forgotten
+     * @return the number (int) of rows updated, 0 if the id is not in the table yet
+     */
+    private int updateExpiration(
+        String tokenId,
+        long expiration)
+    {
+        return jdbcTemplate.update("UPDATE oauth_token_deny_list SET expiration = ? WHERE token_id = ?",
+            new Timestamp(expiration),
+            tokenId);
+    }
+
+    /**
+     * Tells whether a token id is on the deny list
+     *
+     * @param tokenId the id of the token, may be null
+     * @return true if the token must be refused
+     */
+    private boolean isDenied(Object tokenId)
+    {
+        return tokenId != null && denied.containsKey(tokenId.toString());
+    }
+
+    /**
+     * Signs and verifies the tokens, like the JwtAccessTokenConverter it extends, and also hands out the verified
+     * claims of a token. Refresh tokens carry no additional information once read, so the ids they hold are read
+     * from their claims.
+     */
+    public static class Converter
+        extends JwtAccessTokenConverter
+    {
+        /**
+         * The claims of a token, once its signature is checked
+         *
+         * @param tokenValue the signed token (String)
+         * @return the claims of the token, by name
+         * @throws org.springframework.security.oauth2.common.exceptions.InvalidTokenException if the token cannot
+         *                                                                                       be read or verified
+         */
+        Map<String, Object> claims(String tokenValue)
+        {
+            return decode(tokenValue);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.lambdaschool.expat.config;
 
+import com.lambdaschool.expat.services.PasswordHashingService;
 import javax.annotation.Resource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -10,14 +11,10 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.provider.token.TokenStore;
-import org.springframework.security.oauth2.provider.token.store.InMemoryTokenStore;
 
 /**
  * This class allows us to set standard security protocols to be used throughout the application,
- * such as password encoding, location of token store, our implementation of users, among others
+ * such as password encoding, our implementation of users, among others
  */
 @Configuration
 @EnableWebSecurity
@@ -44,7 +41,15 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     private UserDetailsService userDetailsService;
 
     /**
-     * Ties our implementation of user details and password encoding to the Authentication Manager
+     * Hashes and verifies passwords on its own bounded pool of threads
+     */
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    /**
+     * Ties our implementation of user details and password encoding to the Authentication Manager.
+     * As our user details service can also update passwords, hashes made with a lower cost than the one configured
+     * are replaced when their user logs in.
      *
      * @param auth the connection to our authentication manager
      * @throws Exception in case our custom configuration does not work
@@ -52,26 +57,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     public void globalUserDetails(AuthenticationManagerBuilder auth)
             throws Exception {
-        auth.userDetailsService(userDetailsService).passwordEncoder(encoder());
+        auth.userDetailsService(userDetailsService).passwordEncoder(passwordHashingService);
     }
 
-    /**
-     * We will store our token in memory. This way when the application exists all access tokens are invalidated.
-     *
-     * @return A token store configured to be used in memory
-     */
-    @Bean
-    public TokenStore tokenStore() {
-        return new InMemoryTokenStore();
-    }
-
-    /**
-     * Set our preferred encoder for our password
-     *
-     * @return A password will be encoded using the standard BCrypt method
-     */
-    @Bean
-    public PasswordEncoder encoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
\ No newline at end of file
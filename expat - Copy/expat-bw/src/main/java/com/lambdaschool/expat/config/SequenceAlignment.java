@@ -0,0 +1,77 @@
+package com.lambdaschool.expat.config;
+
+import com.lambdaschool.expat.models.PooledSequenceGenerator;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings the per table key sequences (see PooledSequenceGenerator) of a PostgreSQL database in line with the
+ * application, before it takes any request.
+ * <p>
+ * This is the migration from the single hibernate_sequence: on a database that already has rows, the new sequences
+ * are created starting at 1, so each one is moved past the largest key in its table. It also makes each sequence
+ * step by the configured allocation size, which has to match the size of the blocks the application reserves.
+ * Both are checked on every start and do nothing once the sequences are in line. Change the allocation size with
+ * every instance of the application stopped. hibernate_sequence is no longer used and can be dropped afterwards.
+ * <p>
+ * The in memory H2 database starts empty every time and needs none of this.
+ */
+@Component
+@ConditionalOnExpression("'${local.run.db:h2}'.equalsIgnoreCase('POSTGRESQL')")
+public class SequenceAlignment {
+    /**
+     * Tells which entities use which sequence. Depending on it also means the schema is up to date, sequences
+     * included, before the sequences are aligned.
+     */
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceAlignment(EntityManagerFactory entityManagerFactory, DataSource dataSource) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Aligns the sequence of every entity whose keys come from PooledSequenceGenerator
+     */
+    @PostConstruct
+    public void alignSequences() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            if (persister instanceof AbstractEntityPersister
+                    && persister.getIdentifierGenerator() instanceof PooledSequenceGenerator) {
+                AbstractEntityPersister entity = (AbstractEntityPersister) persister;
+                DatabaseStructure sequence = ((PooledSequenceGenerator) persister.getIdentifierGenerator())
+                        .getDatabaseStructure();
+                align(sequence.getName(), sequence.getIncrementSize(), entity.getTableName(),
+                        entity.getIdentifierColumnNames()[0]);
+            }
+        }
+    }
+
+    /**
+     * Makes a sequence step by the allocation size, and moves it past the largest key in its table when the next
+     * block it would hand out could hold keys already used
+     *
+     * @param sequence the name (String) of the sequence
+     * @param increment the allocation size (int)
+     * @param table the name (String) of the table
+     * @param column the name (String) of the primary key column
+     */
+    private void align(String sequence, int increment, String table, String column) {
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + increment);
+        // with pooled-lo the next block starts at the next value of the sequence
+        jdbcTemplate.queryForList("SELECT setval('" + sequence + "', m.max_id + 1, false) " +
+                        "FROM (SELECT MAX(" + column + ") AS max_id FROM " + table + ") m, " + sequence + " s " +
+                        "WHERE m.max_id >= CASE WHEN s.is_called THEN s.last_value + " + increment + " ELSE s.last_value END");
+    }
+}
@@ -0,0 +1,56 @@
+package com.lambdaschool.expat.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+import org.springframework.security.oauth2.provider.error.DefaultWebResponseExceptionTranslator;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Writes the errors of the token endpoint (/login). Work turned away by a full pool of threads, such as the password
+ * hashing verifying a password, is answered with 503 Service Unavailable as everywhere else in the application
+ * (see RestExceptionHandler), instead of the 500 the token endpoint gives any exception it does not know.
+ */
+public class ServerBusyExceptionTranslator
+    extends DefaultWebResponseExceptionTranslator
+{
+    @Override
+    public ResponseEntity<OAuth2Exception> translate(Exception e) throws
+                                                                Exception
+    {
+        for (Throwable cause = e; cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof RejectedExecutionException)
+            {
+                return new ResponseEntity<>(new ServerBusyException(),
+                    HttpStatus.SERVICE_UNAVAILABLE);
+            }
+        }
+        return super.translate(e);
+    }
+
+    /**
+     * The OAuth2 error (temporarily_unavailable) sent when the server is too busy to handle the request
+     */
+    private static final class ServerBusyException
+        extends OAuth2Exception
+    {
+        private ServerBusyException()
+        {
+            super("The server is too busy to handle this request right now. Please try again.");
+        }
+
+        @Override
+        public String getOAuth2ErrorCode()
+        {
+            return "temporarily_unavailable";
+        }
+
+        @Override
+        public int getHttpErrorCode()
+        {
+            return HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+    }
+}
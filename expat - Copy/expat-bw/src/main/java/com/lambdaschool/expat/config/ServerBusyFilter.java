@@ -0,0 +1,61 @@
+package com.lambdaschool.expat.config;
+
+import org.springframework.security.oauth2.provider.error.DefaultOAuth2ExceptionRenderer;
+import org.springframework.security.oauth2.provider.error.OAuth2ExceptionRenderer;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Sits in front of the client authentication of the token endpoint (/login). The client secret is verified by the
+ * password hashing threads as well, before the token endpoint is reached, so work they turn away is answered here
+ * with the same 503 Service Unavailable the token endpoint gives (see ServerBusyExceptionTranslator).
+ */
+public class ServerBusyFilter
+    extends OncePerRequestFilter
+{
+    private final ServerBusyExceptionTranslator translator;
+
+    private final OAuth2ExceptionRenderer renderer = new DefaultOAuth2ExceptionRenderer();
+
+    public ServerBusyFilter(ServerBusyExceptionTranslator translator)
+    {
+        this.translator = translator;
+    }
+
+    @Override
+    protected void doFilterInternal(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        FilterChain chain) throws
+                           ServletException,
+                           IOException
+    {
+        try
+        {
+            chain.doFilter(request,
+                response);
+        } catch (RejectedExecutionException e)
+        {
+            if (response.isCommitted())
+            {
+                throw e;
+            }
+            try
+            {
+                renderer.handleHttpEntityResponse(translator.translate(e),
+                    new ServletWebRequest(request,
+                        response));
+            } catch (Exception renderFailed)
+            {
+                throw new ServletException(renderFailed);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.lambdaschool.expat.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTags;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements each request runs and the time the database takes to run them (see StatementLog).
+ * <p>
+ * Every request adds to the metrics http.server.requests.sql.statements and http.server.requests.sql.time, tagged
+ * with its method and uri like http.server.requests. A request running the same statement shape
+ * sql.repeated.threshold times or more, most likely loading an association one row at a time, is logged as a warning
+ * with its statements and counted in http.server.requests.sql.repeated.
+ * <p>
+ * Unless sql.accounting.headers is false, as it is in the production profile, the response also carries
+ * X-SQL-Statements, X-SQL-Time-Ms and X-SQL-Repeated, the number of times the most repeated shape ran. They
+ * count the statements run before the response started to be written.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class StatementAccountingFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(StatementAccountingFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean headers;
+
+    private final int repeatedThreshold;
+
+    public StatementAccountingFilter(
+            MeterRegistry meterRegistry,
+            @Value("${sql.accounting.headers:true}") boolean headers,
+            @Value("${sql.repeated.threshold:10}") int repeatedThreshold
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.headers = headers;
+        this.repeatedThreshold = Math.max(2, repeatedThreshold);
+    }
+
+    @Override
+    public void doFilter(
+            ServletRequest servletRequest,
+            ServletResponse servletResponse,
+            FilterChain filterChain
+    )
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        StatementLog log = StatementLog.start();
+        HeaderWriter headerWriter = headers ? new HeaderWriter(response, log) : null;
+        try {
+            filterChain.doFilter(servletRequest, headerWriter != null ? headerWriter : servletResponse);
+        } finally {
+            log.stop();
+            if (headerWriter != null) {
+                headerWriter.writeHeaders();
+            }
+            record(request, response, log);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, StatementLog log) {
+        Tags tags = Tags.of(WebMvcTags.method(request), WebMvcTags.uri(request, response));
+        meterRegistry.summary("http.server.requests.sql.statements", tags).record(log.getStatements());
+        meterRegistry.timer("http.server.requests.sql.time", tags).record(log.getNanos(), TimeUnit.NANOSECONDS);
+
+        if (log.getMostRepeated() >= repeatedThreshold) {
+            meterRegistry.counter("http.server.requests.sql.repeated", tags).increment();
+            logger.warn("{} {} ran {}, repeating statements {}",
+                    request.getMethod(),
+                    request.getRequestURI(),
+                    log,
+                    log.getRepeated(repeatedThreshold));
+        }
+    }
+
+    /**
+     * Writes the statement headers as the response starts to be written, the last moment they can be
+     */
+    private static final class HeaderWriter extends OnCommittedResponseWrapper {
+        private final StatementLog log;
+
+        private boolean written;
+
+        private HeaderWriter(HttpServletResponse response, StatementLog log) {
+            super(response);
+            this.log = log;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeaders();
+        }
+
+        /**
+         * Writes the headers, unless they were written or the response was already sent without them
+         */
+        private void writeHeaders() {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (written || response.isCommitted()) {
+                return;
+            }
+            written = true;
+            response.setHeader("X-SQL-Statements", Integer.toString(log.getStatements()));
+            response.setHeader("X-SQL-Time-Ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(log.getNanos())));
+            response.setHeader("X-SQL-Repeated", Integer.toString(log.getMostRepeated()));
+        }
+    }
+}
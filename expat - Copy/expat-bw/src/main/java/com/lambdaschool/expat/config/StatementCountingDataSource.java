@@ -0,0 +1,120 @@
+package com.lambdaschool.expat.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Hands out the connections of the connection pool, counting in the StatementLog of the thread every statement
+ * they run and the time the database takes to run it. Everything else is passed to the pool as is.
+ * <p>
+ * Connections and statements are wrapped in proxies, which add a reflective call to each of their methods. A thread
+ * without a log pays one thread local read per statement run on top of that, nothing is timed or kept for it.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+    private static final Class<?>[] CONNECTION = {Connection.class};
+
+    private static final Class<?>[] STATEMENT = {Statement.class};
+
+    private static final Class<?>[] PREPARED_STATEMENT = {PreparedStatement.class};
+
+    private static final Class<?>[] CALLABLE_STATEMENT = {CallableStatement.class};
+
+    /**
+     * Given the params, create a data source counting the statements of another
+     *
+     * @param dataSource the data source, such as the connection pool, that runs the statements
+     */
+    public StatementCountingDataSource(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    /**
+     * Closes the data source counted, or the first one it wraps that can be closed, so the pools are shut down
+     * with the application
+     */
+    @Override
+    public void close() throws Exception {
+        DataSource dataSource = getTargetDataSource();
+        while (!(dataSource instanceof AutoCloseable) && dataSource instanceof DelegatingDataSource) {
+            dataSource = ((DelegatingDataSource) dataSource).getTargetDataSource();
+        }
+        if (dataSource instanceof AutoCloseable) {
+            ((AutoCloseable) dataSource).close();
+        }
+    }
+
+    private static Connection connection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                CONNECTION,
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    switch (method.getName()) {
+                        case "createStatement":
+                            return statement(result, STATEMENT, null);
+                        case "prepareStatement":
+                            return statement(result, PREPARED_STATEMENT, (String) args[0]);
+                        case "prepareCall":
+                            return statement(result, CALLABLE_STATEMENT, (String) args[0]);
+                        default:
+                            return result;
+                    }
+                });
+    }
+
+    /**
+     * Counts the statements a JDBC statement runs
+     *
+     * @param statement  the JDBC statement
+     * @param interfaces the JDBC interface of the statement
+     * @param sql        the text (String) the statement was prepared with, null for a plain statement, which is
+     *                   given its text each time it runs
+     * @return the statement, counting
+     */
+    private static Object statement(Object statement, Class<?>[] interfaces, String sql) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute") || !StatementLog.active()) {
+                return invoke(statement, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                if (sql != null) {
+                    StatementLog.record(sql, System.nanoTime() - start, true);
+                } else {
+                    // a batch of plain statements has no text of its own
+                    StatementLog.record(args != null && args.length > 0 ? String.valueOf(args[0]) : "batch",
+                            System.nanoTime() - start, false);
+                }
+            }
+        };
+        return Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), interfaces, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
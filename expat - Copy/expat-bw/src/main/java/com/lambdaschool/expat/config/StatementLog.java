@@ -0,0 +1,189 @@
+package com.lambdaschool.expat.config;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The SQL statements run by one thread between start and stop, as counted by the StatementCountingDataSource:
+ * how many, how long the database took to run them, and how often each statement shape came back. A shape is the
+ * text of a statement with its values left out, so loading the same association for twenty rows one row at a time
+ * (the N+1 problem) shows up as one shape run twenty times.
+ * <p>
+ * The StatementAccountingFilter keeps a log for every request. Tests can keep their own around the requests they make,
+ * and check the endpoint stays within a statement budget:
+ * <pre>
+ * StatementLog log = StatementLog.start();
+ * mockMvc.perform(get("/users/users"));
+ * log.stop()
+ *     .assertAtMost(5)
+ *     .assertNoneRepeated(3);
+ * </pre>
+ * Logs nest, a statement counts in every log started on the thread and not yet stopped. Statements run on other
+ * threads, such as the password hashing or scheduled ones, are not counted.
+ */
+public final class StatementLog {
+    private static final ThreadLocal<StatementLog> current = new ThreadLocal<>();
+
+    /**
+     * The quoted strings and numbers of a statement written without parameters
+     */
+    private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+    /**
+     * The log started before this one on the same thread, or null
+     */
+    private final StatementLog parent;
+
+    private int statements;
+
+    private long nanos;
+
+    /**
+     * How many times (int[1]) each statement shape (String) ran
+     */
+    private final Map<String, int[]> shapes = new HashMap<>();
+
+    private StatementLog(StatementLog parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Starts counting the statements this thread runs
+     *
+     * @return the log the statements are counted in until it is stopped
+     */
+    public static StatementLog start() {
+        StatementLog log = new StatementLog(current.get());
+        current.set(log);
+        return log;
+    }
+
+    /**
+     * Stops counting statements in this log, and in the logs started after it on the thread and not yet stopped
+     *
+     * @return this log
+     */
+    public StatementLog stop() {
+        if (parent == null) {
+            current.remove();
+        } else {
+            current.set(parent);
+        }
+        return this;
+    }
+
+    /**
+     * Whether any log is counting the statements of this thread. When none is, statements are not timed at all.
+     *
+     * @return true when a log was started on this thread and not yet stopped
+     */
+    static boolean active() {
+        return current.get() != null;
+    }
+
+    /**
+     * Counts a statement in every log of this thread
+     *
+     * @param sql   the text (String) of the statement, with or without parameters
+     * @param nanos the time (long) the database took to run it, in nanoseconds
+     * @param bound whether the values of the statement are parameters, so the text is already its shape
+     */
+    static void record(String sql, long nanos, boolean bound) {
+        StatementLog log = current.get();
+        if (log == null) {
+            return;
+        }
+        String shape = bound ? sql : LITERALS.matcher(sql).replaceAll("?");
+        for (; log != null; log = log.parent) {
+            log.statements++;
+            log.nanos += nanos;
+            log.shapes.computeIfAbsent(shape, s -> new int[1])[0]++;
+        }
+    }
+
+    /**
+     * Getter for statements
+     *
+     * @return the number (int) of statements run, a batch counting as one
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * Getter for nanos
+     *
+     * @return the time (long) the database took to run the statements, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * The statement shapes run at least a number of times, the sign of a collection or association being loaded
+     * one row at a time
+     *
+     * @param times the number (int) of times a shape has to run to be listed
+     * @return the shapes run that many times or more, each with the number of times it ran, most first
+     */
+    public Map<String, Integer> getRepeated(int times) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        shapes.entrySet()
+                .stream()
+                .filter(shape -> shape.getValue()[0] >= times)
+                .sorted((a, b) -> b.getValue()[0] - a.getValue()[0])
+                .forEach(shape -> repeated.put(shape.getKey(), shape.getValue()[0]));
+        return repeated;
+    }
+
+    /**
+     * The number of times the most repeated statement shape ran
+     *
+     * @return the number (int) of times, 0 when no statement ran
+     */
+    public int getMostRepeated() {
+        int most = 0;
+        for (int[] times : shapes.values()) {
+            most = Math.max(most, times[0]);
+        }
+        return most;
+    }
+
+    /**
+     * Checks no more than a number of statements ran
+     *
+     * @param budget the most statements (int) allowed
+     * @return this log
+     * @throws AssertionError listing the statements run, if there were more
+     */
+    public StatementLog assertAtMost(int budget) {
+        if (statements > budget) {
+            throw new AssertionError(statements + " statements ran, more than the " + budget + " allowed: "
+                    + getRepeated(1));
+        }
+        return this;
+    }
+
+    /**
+     * Checks no statement shape ran a number of times or more
+     *
+     * @param times the number (int) of times a shape may not run
+     * @return this log
+     * @throws AssertionError listing the repeated shapes, if there were any
+     */
+    public StatementLog assertNoneRepeated(int times) {
+        Map<String, Integer> repeated = getRepeated(times);
+        if (!repeated.isEmpty()) {
+            throw new AssertionError("Statements ran " + times + " times or more: " + repeated);
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements in " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms";
+    }
+}
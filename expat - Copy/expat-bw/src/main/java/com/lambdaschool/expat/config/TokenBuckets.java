@@ -0,0 +1,175 @@
+package com.lambdaschool.expat.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed size table of token buckets, one per rule and key, used by the Rate Limit Filter. Nothing is locked and
+ * nothing grows: however many keys are seen, the table never holds more than the buckets it was created with.
+ * <p>
+ * The table is split into stripes of a few buckets each, and a key can only live in the stripe its hash picks.
+ * A new key takes the place of a bucket that has refilled completely, since a full bucket is the same as no bucket.
+ * When every bucket of the stripe is still in use, the one closest to full is given up instead, so key churn
+ * wears down the limits of others as little as possible.
+ * <p>
+ * Each bucket is a single number, the time the bucket will be full again (the generic cell rate algorithm). Taking
+ * a token moves that time forward by the time one token takes to come back, and is allowed while the time is no
+ * more than the capacity's worth of tokens ahead of now.
+ */
+class TokenBuckets {
+    /**
+     * The buckets in a stripe
+     */
+    private static final int STRIPE_SIZE = 4;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    /**
+     * The number of stripes less one, a power of two less one
+     */
+    private final int stripeMask;
+
+    /**
+     * Given the params, create a table of empty buckets
+     *
+     * @param maxBuckets the most buckets (int) kept at once, rounded up to a power of two
+     */
+    TokenBuckets(int maxBuckets) {
+        int wanted = Math.max(1, (maxBuckets + STRIPE_SIZE - 1) / STRIPE_SIZE);
+        int stripes = wanted == 1 ? 1 : Integer.highestOneBit(wanted - 1) << 1;
+        this.buckets = new AtomicReferenceArray<>(stripes * STRIPE_SIZE);
+        this.stripeMask = stripes - 1;
+    }
+
+    /**
+     * Takes a token from the bucket of a key
+     *
+     * @param limit the limit (Limit) the bucket is for
+     * @param key   the key (String) the bucket is for, such as an address or a username
+     * @param now   the time (long) in nanoseconds, from System.nanoTime
+     * @return 0 when a token was taken, otherwise the nanoseconds (long) until one can be
+     */
+    long take(Limit limit, String key, long now) {
+        AtomicLong full = bucket(limit, key, now).full;
+        while (true) {
+            long current = full.get();
+            long next = Math.max(current, now) + limit.interval;
+            long wait = next - limit.burst - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (full.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken from the bucket of a key, when the request it was taken for is turned away by
+     * another limit. A bucket given up meanwhile is full already and stays full.
+     *
+     * @param limit the limit (Limit) the bucket is for
+     * @param key   the key (String) the bucket is for
+     * @param now   the time (long) in nanoseconds, from System.nanoTime
+     */
+    void giveBack(Limit limit, String key, long now) {
+        AtomicLong full = bucket(limit, key, now).full;
+        while (true) {
+            long current = full.get();
+            if (current - now <= 0 || full.compareAndSet(current, current - limit.interval)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the bucket of a key in its stripe, or puts a new, full one there
+     */
+    private Bucket bucket(Limit limit, String key, long now) {
+        int start = (spread(31 * limit.hashCode() + key.hashCode()) & stripeMask) * STRIPE_SIZE;
+        while (true) {
+            int empty = -1;
+            int oldest = -1;
+            long oldestFull = 0;
+            for (int i = start; i < start + STRIPE_SIZE; i++) {
+                Bucket bucket = buckets.get(i);
+                if (bucket == null) {
+                    empty = empty < 0 ? i : empty;
+                } else if (bucket.limit == limit && bucket.key.equals(key)) {
+                    return bucket;
+                } else {
+                    long full = bucket.full.get();
+                    if (oldest < 0 || full - oldestFull < 0) {
+                        oldest = i;
+                        oldestFull = full;
+                    }
+                }
+            }
+
+            // another thread may put the same key in a bucket of the stripe at the same time. It then has two
+            // buckets until one of them is given up, which only ever lets a few more requests through.
+            int victim = empty >= 0 ? empty : oldest;
+            Bucket current = buckets.get(victim);
+            Bucket bucket = new Bucket(limit, key, now);
+            if ((current == null || (empty < 0 && current.full.get() == oldestFull))
+                    && buckets.compareAndSet(victim, current, bucket)) {
+                return bucket;
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of a hash, so keys that differ in their high bits land in different stripes
+     */
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        return hash ^ hash >>> 13;
+    }
+
+    /**
+     * How many tokens a bucket holds and how fast they come back
+     */
+    static final class Limit {
+        /**
+         * The nanoseconds (long) one token takes to come back
+         */
+        private final long interval;
+
+        /**
+         * How far (long, nanoseconds) the bucket's full time can be ahead of now, the time the capacity takes to come back
+         */
+        private final long burst;
+
+        /**
+         * Given the params, create a limit
+         *
+         * @param capacity the tokens (long) a full bucket holds, the requests allowed at once
+         * @param seconds  the seconds (long) an empty bucket takes to fill up again
+         */
+        Limit(long capacity, long seconds) {
+            this.interval = Math.max(1, seconds * 1_000_000_000L / capacity);
+            this.burst = interval * capacity;
+        }
+    }
+
+    /**
+     * The bucket of a key
+     */
+    private static final class Bucket {
+        private final Limit limit;
+
+        private final String key;
+
+        /**
+         * The time (long, System.nanoTime) at which the bucket is full again. Full whenever it is in the past.
+         */
+        private final AtomicLong full;
+
+        private Bucket(Limit limit, String key, long now) {
+            this.limit = limit;
+            this.key = key;
+            this.full = new AtomicLong(now);
+        }
+    }
+}
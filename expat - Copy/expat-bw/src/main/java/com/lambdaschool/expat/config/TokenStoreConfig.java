@@ -0,0 +1,205 @@
+package com.lambdaschool.expat.config;
+
+import com.lambdaschool.expat.services.UserPrincipalService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.security.oauth2.provider.token.store.InMemoryTokenStore;
+import org.springframework.util.StringUtils;
+
+/**
+ * Chooses where access and refresh tokens are kept, using the property token.store.
+ * <p>
+ * jdbc (the default) keeps the tokens in the database behind an in memory cache (see CachingJdbcTokenStore),
+ * so tokens survive restarts and can be shared by several instances. Expired tokens are deleted
+ * in batches every token.sweep.interval.ms milliseconds.
+ * <p>
+ * memory keeps the tokens in memory. When the application exits all access tokens are invalidated.
+ * <p>
+ * jwt issues signed tokens carrying the user's id, name and authorities (see RevocableJwtTokenStore).
+ * Requests are authenticated by checking the signature with token.jwt.signing.key, without reading any storage.
+ * Every instance must be given the same key.
+ */
+@Configuration
+@EnableScheduling
+public class TokenStoreConfig
+{
+    /**
+     * The most expired tokens deleted by a single statement of the sweep
+     */
+    @Value("${token.sweep.batch.size:500}")
+    private int sweepBatchSize;
+
+    /**
+     * The token store, if it keeps rows for expired tokens
+     */
+    private final ObjectProvider<ExpiringTokenStore> expiringTokenStore;
+
+    /**
+     * The signed token store, if that is the one in use
+     */
+    private final ObjectProvider<RevocableJwtTokenStore> jwtTokenStore;
+
+    public TokenStoreConfig(
+        ObjectProvider<ExpiringTokenStore> expiringTokenStore,
+        ObjectProvider<RevocableJwtTokenStore> jwtTokenStore)
+    {
+        this.expiringTokenStore = expiringTokenStore;
+        this.jwtTokenStore = jwtTokenStore;
+    }
+
+    /**
+     * Keeps the tokens in the database, reading them through the access token and authentication caches
+     *
+     * @param dataSource   the database of the application
+     * @param cacheManager the cache manager holding the token caches
+     * @return A token store kept in the database
+     */
+    @Bean
+    @ConditionalOnProperty(name = "token.store",
+        havingValue = "jdbc",
+        matchIfMissing = true)
+    public CachingJdbcTokenStore tokenStore(
+        DataSource dataSource,
+        CacheManager cacheManager)
+    {
+        return new CachingJdbcTokenStore(dataSource,
+            cacheManager.getCache(CacheConfig.ACCESS_TOKENS),
+            cacheManager.getCache(CacheConfig.TOKEN_AUTHENTICATIONS));
+    }
+
+    /**
+     * We will store our token in memory. This way when the application exists all access tokens are invalidated.
+     *
+     * @return A token store configured to be used in memory
+     */
+    @Bean
+    @ConditionalOnProperty(name = "token.store",
+        havingValue = "memory")
+    public TokenStore inMemoryTokenStore()
+    {
+        return new InMemoryTokenStore();
+    }
+
+    /**
+     * Signs the tokens and checks the signature of the tokens sent back. The key is read once, here.
+     *
+     * @param signingKey           the key (String) tokens are signed with, property token.jwt.signing.key
+     * @param userPrincipalService finds the id of the user when a token is issued
+     * @return the converter between signed tokens and authentications
+     */
+    @Bean
+    @ConditionalOnProperty(name = "token.store",
+        havingValue = "jwt")
+    public RevocableJwtTokenStore.Converter jwtAccessTokenConverter(
+        @Value("${token.jwt.signing.key:}") String signingKey,
+        UserPrincipalService userPrincipalService)
+    {
+        if (!StringUtils.hasText(signingKey))
+        {
+            throw new IllegalStateException("token.jwt.signing.key must be set when token.store is jwt");
+        }
+
+        DefaultAccessTokenConverter accessTokenConverter = new DefaultAccessTokenConverter();
+        accessTokenConverter.setUserTokenConverter(new UserPrincipalTokenConverter(userPrincipalService));
+
+        RevocableJwtTokenStore.Converter converter = new RevocableJwtTokenStore.Converter();
+        converter.setSigningKey(signingKey);
+        converter.setAccessTokenConverter(accessTokenConverter);
+        return converter;
+    }
+
+    /**
+     * Issues signed tokens and keeps a deny list of the ones taken back by logging out
+     *
+     * @param converter                   signs and verifies the tokens
+     * @param dataSource                  the database the deny list is kept in
+     * @param refreshTokenValiditySeconds how long a denied token id must be kept
+     * @return A token store for signed tokens
+     */
+    @Bean
+    @ConditionalOnProperty(name = "token.store",
+        havingValue = "jwt")
+    public RevocableJwtTokenStore jwtTokenStore(
+        RevocableJwtTokenStore.Converter converter,
+        DataSource dataSource,
+        @Value("${token.refresh.validity.seconds:2592000}") int refreshTokenValiditySeconds)
+    {
+        return new RevocableJwtTokenStore(converter,
+            dataSource,
+            refreshTokenValiditySeconds);
+    }
+
+    /**
+     * Publishes the number of tokens kept as token.store.size, tagged with the kind of store. Read when the metrics
+     * are, so a database store counts its rows once per scrape.
+     * <p>
+     * The token store is looked up when the gauge is first read. The database token stores need the data source,
+     * whose connection pool needs the meter registry this binder is applied to, so asking for the store here
+     * would go round in a circle.
+     *
+     * @param tokenStore the token store in use
+     * @param store      the kind (String) of token store, property token.store
+     * @return the binder registering the gauge
+     */
+    @Bean
+    public MeterBinder tokenStoreMetrics(
+        ObjectProvider<TokenStore> tokenStore,
+        @Value("${token.store:jdbc}") String store)
+    {
+        return registry -> Gauge.builder("token.store.size",
+            tokenStore,
+            provider -> size(provider.getObject()))
+            .description("Tokens kept by the token store, denied tokens for signed tokens")
+            .tag("store",
+                store)
+            .strongReference(true)
+            .register(registry);
+    }
+
+    /**
+     * The number of tokens a token store keeps
+     */
+    private static double size(TokenStore tokenStore)
+    {
+        if (tokenStore instanceof ExpiringTokenStore)
+        {
+            return ((ExpiringTokenStore) tokenStore).size();
+        }
+        if (tokenStore instanceof InMemoryTokenStore)
+        {
+            return ((InMemoryTokenStore) tokenStore).getAccessTokenCount();
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Deletes the expired tokens from the database. The in memory token store removes its own.
+     */
+    @Scheduled(initialDelayString = "${token.sweep.interval.ms:600000}",
+        fixedDelayString = "${token.sweep.interval.ms:600000}")
+    public void removeExpiredTokens()
+    {
+        expiringTokenStore.ifAvailable(store -> store.removeExpiredTokens(sweepBatchSize));
+    }
+
+    /**
+     * Reads the tokens denied by other instances into the deny list of this one
+     */
+    @Scheduled(initialDelayString = "${token.denylist.refresh.ms:30000}",
+        fixedDelayString = "${token.denylist.refresh.ms:30000}")
+    public void refreshDenyList()
+    {
+        jwtTokenStore.ifAvailable(RevocableJwtTokenStore::refreshDenyList);
+    }
+}
@@ -0,0 +1,95 @@
+package com.lambdaschool.expat.config;
+
+import com.lambdaschool.expat.models.UserPrincipal;
+import com.lambdaschool.expat.services.UserPrincipalService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.provider.token.DefaultUserAuthenticationConverter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the user's id next to the username and authorities in a signed token, and reads them back as a
+ * UserPrincipal. A request carrying a signed token is then authenticated, and knows who the current user is,
+ * without reading the user from the cache or the database.
+ */
+public class UserPrincipalTokenConverter
+    extends DefaultUserAuthenticationConverter
+{
+    /**
+     * The name of the claim holding the user's id
+     */
+    static final String USER_ID = "user_id";
+
+    /**
+     * Finds the id of the user when a token is issued
+     */
+    private final UserPrincipalService userPrincipalService;
+
+    public UserPrincipalTokenConverter(UserPrincipalService userPrincipalService)
+    {
+        this.userPrincipalService = userPrincipalService;
+    }
+
+    @Override
+    public Map<String, ?> convertUserAuthentication(Authentication authentication)
+    {
+        Map<String, Object> claims = new LinkedHashMap<>(super.convertUserAuthentication(authentication));
+        claims.put(USER_ID,
+            userPrincipalService.findByAuthentication(authentication)
+                .getUserid());
+        return claims;
+    }
+
+    @Override
+    public Authentication extractAuthentication(Map<String, ?> map)
+    {
+        if (!map.containsKey(USERNAME) || !map.containsKey(USER_ID))
+        {
+            return super.extractAuthentication(map);
+        }
+
+        Collection<? extends GrantedAuthority> authorities = readAuthorities(map);
+        List<String> authorityNames = new ArrayList<>();
+        for (GrantedAuthority authority : authorities)
+        {
+            authorityNames.add(authority.getAuthority());
+        }
+
+        UserPrincipal principal = new UserPrincipal(((Number) map.get(USER_ID)).longValue(),
+            (String) map.get(USERNAME),
+            authorityNames);
+        return new UsernamePasswordAuthenticationToken(principal,
+            "N/A",
+            authorities);
+    }
+
+    /**
+     * Reads the authorities claim, either a list or a comma separated string
+     *
+     * @param map the claims of the token
+     * @return the authorities of the user
+     */
+    private Collection<? extends GrantedAuthority> readAuthorities(Map<String, ?> map)
+    {
+        Object authorities = map.get(AUTHORITIES);
+        if (authorities instanceof String)
+        {
+            return AuthorityUtils.commaSeparatedStringToAuthorityList((String) authorities);
+        }
+        if (authorities instanceof Collection)
+        {
+            return AuthorityUtils.commaSeparatedStringToAuthorityList(String.join(",",
+                ((Collection<?>) authorities).stream()
+                    .map(String::valueOf)
+                    .toArray(String[]::new)));
+        }
+        return AuthorityUtils.NO_AUTHORITIES;
+    }
+}
@@ -43,7 +43,15 @@ public class LogoutController
                 .trim();
             // and remove it!
             OAuth2AccessToken accessToken = tokenStore.readAccessToken(tokenValue);
-            tokenStore.removeAccessToken(accessToken);
+            if (accessToken != null)
+            {
+                tokenStore.removeAccessToken(accessToken);
+                // and the refresh token, so it cannot be used to get a new access token
+                if (accessToken.getRefreshToken() != null)
+                {
+                    tokenStore.removeRefreshToken(accessToken.getRefreshToken());
+                }
+            }
         }
 
         return new ResponseEntity<>(HttpStatus.OK);
@@ -2,20 +2,18 @@ package com.lambdaschool.expat.controllers;
 
 import com.lambdaschool.expat.models.User;
 import com.lambdaschool.expat.models.UserMinimum;
+import com.lambdaschool.expat.models.UserPrincipal;
 import com.lambdaschool.expat.models.UserRoles;
 import com.lambdaschool.expat.services.RoleService;
+import com.lambdaschool.expat.services.TokenService;
 import com.lambdaschool.expat.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import springfox.documentation.annotations.ApiIgnore;
 
@@ -23,9 +21,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -47,6 +43,12 @@ public class OpenController
     @Autowired
     private RoleService roleService;
 
+    /**
+     * A method in this controller signs the new user on so needs access to the Token Service to issue their token.
+     */
+    @Autowired
+    private TokenService tokenService;
+
     /**
      * This endpoint always anyone to create an account with the default role of USER. That role is hardcoded in this method.
      *
@@ -90,36 +92,8 @@ public class OpenController
         responseHeaders.setLocation(newUserURI);
 
         // return the access token
-        // To get the access token, surf to the endpoint /login (which is always on the server where this is running)
-        // just as if a client had done this.
-        RestTemplate restTemplate = new RestTemplate();
-        String requestURI = "http://localhost" + ":" + httpServletRequest.getLocalPort() + "/login";
-
-        List<MediaType> acceptableMediaTypes = new ArrayList<>();
-        acceptableMediaTypes.add(MediaType.APPLICATION_JSON);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        headers.setAccept(acceptableMediaTypes);
-        headers.setBasicAuth(System.getenv("OAUTHCLIENTID"),
-            System.getenv("OAUTHCLIENTSECRET"));
-
-        MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
-        map.add("grant_type",
-            "password");
-        map.add("scope",
-            "read write trust");
-        map.add("username",
-            newminuser.getUsername());
-        map.add("password",
-            newminuser.getPassword());
-
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(map,
-            headers);
-
-        String theToken = restTemplate.postForObject(requestURI,
-            request,
-            String.class);
+        // The token is issued right here, the same way the endpoint /login would issue it, without signing on again.
+        OAuth2AccessToken theToken = tokenService.issueToken(new UserPrincipal(newuser));
 
         return new ResponseEntity<>(theToken,
             responseHeaders,
@@ -1,24 +1,296 @@
 package com.lambdaschool.expat.controllers;
 
+import com.lambdaschool.expat.exceptions.ResourceFoundException;
+import com.lambdaschool.expat.exceptions.ResourceNotFoundException;
 import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.PhotoSize;
+import com.lambdaschool.expat.models.ResourceVersion;
 import com.lambdaschool.expat.services.PhotoService;
+import com.lambdaschool.expat.services.PhotoStorageService;
+import com.lambdaschool.expat.services.ResourceVersionService;
+import com.lambdaschool.expat.views.PhotoContent;
+import com.lambdaschool.expat.views.PhotoView;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 public class PhotoController {
+    /**
+     * Uploaded content never changes for a photo id, so clients and caches can keep it for a year
+     */
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    /**
+     * The original served in place of a size that is still being made is only kept for a minute
+     */
+    private static final String CACHE_CONTROL_PENDING = "public, max-age=60";
+
+    /**
+     * Request attributes asking Tomcat to send a file itself, with FileChannel.transferTo straight to the socket
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final PhotoService photoService;
 
-    public PhotoController(PhotoService photoService) {
+    private final PhotoStorageService photoStorageService;
+
+    private final ResourceVersionService resourceVersionService;
+
+    public PhotoController(PhotoService photoService, PhotoStorageService photoStorageService,
+            ResourceVersionService resourceVersionService) {
         this.photoService = photoService;
+        this.photoStorageService = photoStorageService;
+        this.resourceVersionService = resourceVersionService;
     }
 
+    /**
+     * Returns every photo. Answers 304 Not Modified, without going to the database, when no photo changed since
+     * the ETag or Last-Modified sent back.
+     *
+     * @param request the request, checked for If-None-Match and If-Modified-Since
+     * @return a JSON list of the photos, in id order
+     */
     @GetMapping(value = "/photo", produces = { "application/json" })
-    public ResponseEntity<?> listAllPhoto() {
-        List<Photo> photoList = photoService.findAllPhotos();
+    public ResponseEntity<?> listAllPhoto(ServletWebRequest request) {
+        ResourceVersion version = resourceVersionService.find(Photo.class);
+        if (resourceVersionService.checkNotModified(request, "photos", version, CacheControl.noCache())) {
+            return null;
+        }
+        List<PhotoView> photoList = photoService.findAllPhotoViews();
         return new ResponseEntity<>(photoList, HttpStatus.OK);
     }
+
+    /**
+     * Uploads a photo sent as the part "file" of a multipart form. Tomcat writes the part to disk as it arrives
+     * (spring.servlet.multipart.file-size-threshold=0), it is never held in memory.
+     *
+     * @param file the uploaded file
+     * @param name the name of the photo, the name of the uploaded file when not given
+     * @return a location header with the URI of the content of the new photo and a status of CREATED
+     * @throws IOException if the upload cannot be read or stored
+     */
+    @PostMapping(value = "/photo", consumes = { "multipart/form-data" })
+    public ResponseEntity<?> uploadPhoto(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String name) throws IOException {
+        Photo photo = photoService.save(
+                name != null ? name : file.getOriginalFilename(),
+                file.getContentType(),
+                file.getInputStream());
+        return created(photo);
+    }
+
+    /**
+     * Uploads a photo sent as the body of the request, with its media type as the Content-Type.
+     * The body is streamed to the photo store as it arrives.
+     *
+     * @param request the request, holding the photo
+     * @param name    the name of the photo
+     * @return a location header with the URI of the content of the new photo and a status of CREATED
+     * @throws IOException if the upload cannot be read or stored
+     */
+    @PostMapping(value = "/photo", consumes = { "image/*" })
+    public ResponseEntity<?> uploadPhotoBody(
+            HttpServletRequest request,
+            @RequestParam(required = false) String name) throws IOException {
+        Photo photo = photoService.save(name, request.getContentType(), request.getInputStream());
+        return created(photo);
+    }
+
+    /**
+     * Sends the uploaded content of a photo, or one of its resized copies. A single byte range
+     * (Range: bytes=first-last) can be asked for. The ETag is the SHA-256 hash of the content.
+     * <br>Example: <a href="http://localhost:2019/photo/1/content?size=thumb">http://localhost:2019/photo/1/content?size=thumb</a>
+     *
+     * @param photoId  the primary key of the photo
+     * @param size     thumb, feed or full for a resized copy, the original when left off.
+     *                 The original is sent until the copy is made.
+     * @param request  the request, holding the Range, If-Range and If-None-Match headers
+     * @param response the response the content is written to
+     * @throws IOException if the content cannot be read or sent
+     */
+    @GetMapping(value = "/photo/{photoId}/content")
+    public void getPhotoContent(
+            @PathVariable long photoId,
+            @RequestParam(required = false) String size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        PhotoContent content;
+        if (size == null) {
+            content = photoService.findPhotoContent(photoId);
+        } else {
+            PhotoSize photoSize = PhotoSize.fromName(size);
+            if (photoSize == null) {
+                throw new ResourceFoundException("Photo size must be thumb, feed or full, not " + size);
+            }
+            content = photoService.findPhotoContent(photoId, photoSize);
+        }
+        Path file = photoStorageService.locate(content.getContentHash());
+        if (!Files.isRegularFile(file)) {
+            throw new ResourceNotFoundException("Content of photo ID " + photoId + " not found!");
+        }
+        long length = Files.size(file);
+
+        String etag = "\"" + content.getContentHash() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        boolean pending = size != null && Boolean.TRUE.equals(content.getVariantsPending());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, pending ? CACHE_CONTROL_PENDING : CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(content.getContentType());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bytes = parseRange(range, length);
+            if (bytes == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            if (bytes.length == 2) {
+                start = bytes[0];
+                end = bytes[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        // Without sendfile the bytes are a plain buffered copy through the heap into the servlet output stream,
+        // only the sendfile path above avoids copying them in user space
+        if (count == length) {
+            Files.copy(file, response.getOutputStream());
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            StreamUtils.copyRange(in, response.getOutputStream(), start, end);
+        }
+    }
+
+    /**
+     * Builds the CREATED response for an upload
+     *
+     * @param photo the new photo
+     * @return a location header with the URI of the content of the new photo and a status of CREATED
+     */
+    private ResponseEntity<?> created(Photo photo) {
+        HttpHeaders responseHeaders = new HttpHeaders();
+        URI contentURI = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .replaceQuery(null)
+                .path("/{photoId}/content")
+                .buildAndExpand(photo.getPhotoId())
+                .toUri();
+        responseHeaders.setLocation(contentURI);
+        return new ResponseEntity<>(null, responseHeaders, HttpStatus.CREATED);
+    }
+
+    /**
+     * Tells whether an If-None-Match header holds the given ETag
+     *
+     * @param ifNoneMatch the header, may be null
+     * @param etag        the ETag of the content
+     * @return true if the client already has the content
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads a Range header. Only single byte ranges are served, other ranges get the whole content.
+     *
+     * @param range  the Range header
+     * @param length the length of the content
+     * @return the first and last byte asked for, an empty array to send the whole content,
+     * or null if the range is outside of the content
+     */
+    private static long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // the last n bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(length - suffix, 0);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start < 0 || start >= length || end < start) {
+                return null;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
 }
@@ -1,23 +1,55 @@
 package com.lambdaschool.expat.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lambdaschool.expat.models.FeedSnapshotPage;
+import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.PhotoVariant;
 import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.models.PostBatchResult;
+import com.lambdaschool.expat.models.PostFeedPage;
+import com.lambdaschool.expat.models.PostSearchPage;
+import com.lambdaschool.expat.models.ResourceVersion;
+import com.lambdaschool.expat.models.Story;
 import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.models.UserPrincipal;
+import com.lambdaschool.expat.services.FeedSnapshotService;
 import com.lambdaschool.expat.services.HelperFunctions;
+import com.lambdaschool.expat.services.PostSearchService;
 import com.lambdaschool.expat.services.PostService;
-import com.lambdaschool.expat.services.UserService;
+import com.lambdaschool.expat.services.ResourceVersionService;
+import com.lambdaschool.expat.services.UserPrincipalService;
+import com.lambdaschool.expat.views.PostFeedItem;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.net.URI;
 import java.util.List;
 
 @RestController
 public class PostController {
+    /**
+     * Cache-Control of the feed, which has to be checked with the server before being reused
+     */
+    private static final String FEED_CACHE_CONTROL = CacheControl.noCache().getHeaderValue();
+
+    /**
+     * The entities a single post is shown with. Changes to the post itself are seen through its last modified date.
+     */
+    private static final Class<?>[] POST_ENTITIES = { User.class, Photo.class, PhotoVariant.class, Story.class };
+
     /**
      * Using the Item Service to process item data
      * Used in place of @Autowired
@@ -25,10 +57,28 @@ public class PostController {
     private final PostService postService;
 
     /**
-     * Using the UserService to get user data
+     * Using the Post Search Service to search the names and descriptions of posts
+     * Used in place of @Autowired
+     */
+    private final PostSearchService postSearchService;
+
+    /**
+     * Using the Feed Snapshot service to write the first feed pages from memory
+     * Used in place of @Autowired
+     */
+    private final FeedSnapshotService feedSnapshotService;
+
+    /**
+     * Using the principal cache to find the current user without going to the database
      * Used in place of @Autowired
      */
-    private final UserService userService;
+    private final UserPrincipalService userPrincipalService;
+
+    /**
+     * Using the Resource Version service to answer 304 Not Modified when nothing a response reads has changed
+     * Used in place of @Autowired
+     */
+    private final ResourceVersionService resourceVersionService;
 
     /**
      * Connects this service to the HelpFunctions service
@@ -36,25 +86,126 @@ public class PostController {
      */
     private final HelperFunctions helperFunctions;
 
+    /**
+     * Serializes one feed entry at a time straight to the response for the feed.
+     * Built once from the application's ObjectMapper so the feed uses the same JSON settings as every other endpoint.
+     */
+    private final ObjectWriter postWriter;
+
     public PostController(
             PostService postService,
-            UserService userService,
-            HelperFunctions helperFunctions
+            PostSearchService postSearchService,
+            FeedSnapshotService feedSnapshotService,
+            UserPrincipalService userPrincipalService,
+            ResourceVersionService resourceVersionService,
+            HelperFunctions helperFunctions,
+            ObjectMapper objectMapper
     ) {
         this.postService = postService;
-        this.userService = userService;
+        this.postSearchService = postSearchService;
+        this.feedSnapshotService = feedSnapshotService;
+        this.userPrincipalService = userPrincipalService;
+        this.resourceVersionService = resourceVersionService;
         this.helperFunctions = helperFunctions;
+        this.postWriter = objectMapper
+                .writerFor(PostFeedItem.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     /**
-     * Returns a list of all items
-     * <br>Example: http://localhost:2019/users
-     * @return JSON list of all items with a status of OK
+     * Returns one page of the post feed, newest first, along with the cursor of the next page.
+     * The first pages are written from the feed snapshot, gzipped when the client accepts it. Other pages are read
+     * from the database and written to the response one at a time instead of building the whole JSON document first.
+     * Answers 304 Not Modified, without going to the database, when no post, or user, photo or story shown with
+     * them, changed since the ETag or Last-Modified sent back.
+     * <br>Example: http://localhost:2019/posts?size=20
+     * <br>Next page: http://localhost:2019/posts?size=20&amp;cursor=MTYwMzQ5NzYwMDAwMDo0Mg
+     * @param cursor the next cursor from the previous page. Leave off for the first page.
+     * @param size the number of posts wanted. Leave off for the configured default.
+     * @param request the request, checked for If-None-Match and If-Modified-Since
+     * @param response the response the JSON is written to
+     * @throws IOException if the response cannot be written
      */
     @GetMapping(value = "/posts", produces = { "application/json" })
-    public ResponseEntity<?> findAllPosts() {
-        List<Post> postList = postService.findAllPosts();
-        return new ResponseEntity<>(postList, HttpStatus.OK);
+    public void findAllPosts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "0") int size,
+            ServletWebRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        // the same URL may be answered gzipped from the snapshot
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        FeedSnapshotPage snapshot = feedSnapshotService.find(cursor, size);
+        if (snapshot != null) {
+            writeSnapshot(snapshot, request, response);
+            return;
+        }
+
+        // the ETag covers every page, the URL tells the pages apart
+        ResourceVersion version = resourceVersionService.find(FeedSnapshotService.FEED_ENTITIES);
+        if (resourceVersionService.checkNotModified(request, "posts", version, CacheControl.noCache())) {
+            return;
+        }
+
+        PostFeedPage page = postService.findFeedPage(cursor, size);
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = postWriter.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("posts");
+            for (PostFeedItem post : page.getPosts()) {
+                postWriter.writeValue(generator, post);
+            }
+            generator.writeEndArray();
+            generator.writeStringField("next", page.getNext());
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes a feed page from the snapshot as is, with the ETag and Last-Modified of the feed when it was taken.
+     * @param snapshot the page to write
+     * @param request the request, checked for If-None-Match, If-Modified-Since and Accept-Encoding
+     * @param response the response the page is written to
+     * @throws IOException if the response cannot be written
+     */
+    private void writeSnapshot(FeedSnapshotPage snapshot, ServletWebRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, FEED_CACHE_CONTROL);
+        if (request.checkNotModified(snapshot.getEtag(), snapshot.getLastModified())) {
+            return;
+        }
+
+        byte[] body = snapshot.getJson();
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (snapshot.getGzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = snapshot.getGzip();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Returns one page of the posts whose name or description contain the given words, best match first.
+     * Words in the name count more than words in the description.
+     * <br>Example: http://localhost:2019/posts/search?q=lisbon%20tram&amp;page=0&amp;size=20
+     * @param q the words to search for
+     * @param page the number of the page wanted, starting at 0
+     * @param size the number of posts wanted. Leave off for the configured default.
+     * @return JSON object with the posts on the page and the number of posts that matched
+     */
+    @GetMapping(value = "/posts/search", produces = { "application/json" })
+    public ResponseEntity<?> searchPosts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "0") int size
+    ) {
+        PostSearchPage results = postSearchService.search(q, page, size);
+        return new ResponseEntity<>(results, HttpStatus.OK);
     }
 
     /**
@@ -65,20 +216,28 @@ public class PostController {
      */
     @GetMapping(value = "/user/posts", produces = { "application/json" })
     public ResponseEntity<?> findByUserId(Authentication authentication) {
-        User currentUser = userService.findByName(authentication.getName());
-        List<Post> postList = postService.findByUserId(currentUser.getUserid());
+        long currentUserId = userPrincipalService.findByAuthentication(authentication).getUserid();
+        List<PostFeedItem> postList = postService.findPostViewsByUserId(currentUserId);
         return new ResponseEntity<>(postList, HttpStatus.OK);
     }
 
     /**
      * Return a specific item based on a given itemId
+     * Answers 304 Not Modified when the ETag or Last-Modified sent back is still current. That only reads when
+     * the post was last modified, not the post itself.
      * <br>Example: http://localhost:2019/item/20
      * @param postId The itemId of the item you seek
+     * @param request the request, checked for If-None-Match and If-Modified-Since
      * @return The specific item object you seek
      */
     @GetMapping(value = "/post/{postId}", produces = { "application/json" })
-    public ResponseEntity<?> getItemById(@PathVariable long postId) {
-        Post post = postService.findPostById(postId);
+    public ResponseEntity<?> getItemById(@PathVariable long postId, ServletWebRequest request) {
+        ResourceVersion version = resourceVersionService.find(POST_ENTITIES)
+                .with(postId, postService.findPostLastModified(postId));
+        if (resourceVersionService.checkNotModified(request, "post", version, CacheControl.noCache())) {
+            return null;
+        }
+        PostFeedItem post = postService.findPostViewById(postId);
         return new ResponseEntity<>(post, HttpStatus.OK);
     }
 
@@ -93,8 +252,7 @@ public class PostController {
     public ResponseEntity<?> addNewPost(@Valid @RequestBody Post newPost, Authentication authentication) {
         // always post as current user
     //    newPost.setUser(helperFunctions.getCurrentUser());
-        User currentUser = userService.findByName(authentication.getName());
-        newPost.setUser(currentUser);
+        newPost.setUser(currentUser(authentication));
         newPost = postService.save(newPost);
 
         HttpHeaders responseHeaders = new HttpHeaders();
@@ -108,6 +266,21 @@ public class PostController {
         return new ResponseEntity<>(null, responseHeaders, HttpStatus.CREATED);
     }
 
+    /**
+     * Given a list of post objects, creates them all at once for the current user, in one transaction.
+     * Each post needs a name and the ids of an existing photo and story, posts without them are rejected
+     * and the others are still created.
+     * <br>Example: http://localhost:2019/posts/batch
+     * @param newPosts the posts to create, at most post.batch.max.size of them
+     * @param authentication the authentication info for the current auth token
+     * @return JSON object with what happened to each post, in the order sent, and a status of OK
+     */
+    @PostMapping(value = "/posts/batch", consumes = { "application/json" }, produces = { "application/json" })
+    public ResponseEntity<?> addNewPosts(@RequestBody List<Post> newPosts, Authentication authentication) {
+        PostBatchResult result = postService.saveAll(newPosts, currentUser(authentication));
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     /**
      * Updates the item record associated with the itemId in the request URI.
      * Only the fields in the incoming JSON object are affected.
@@ -121,8 +294,7 @@ public class PostController {
             @RequestBody Post updatePost,
             @PathVariable long postId, Authentication authentication
     ) {
-        User currUser = userService.findByName(authentication.getName());
-        updatePost.setUser(currUser);
+        updatePost.setUser(currentUser(authentication));
         postService.update(updatePost, postId);
         return new ResponseEntity<>(HttpStatus.OK);
     }
@@ -138,4 +310,18 @@ public class PostController {
         postService.deletePostById(postId);
         return new ResponseEntity<>(HttpStatus.OK);
     }
+
+    /**
+     * A reference to the currently authenticated user built from the principal cache.
+     * Only the userid and username are set, which is all a post needs to point at its user.
+     * @param authentication the authentication info for the current auth token
+     * @return a user holding the current user's userid and username
+     */
+    private User currentUser(Authentication authentication) {
+        UserPrincipal principal = userPrincipalService.findByAuthentication(authentication);
+        User user = new User();
+        user.setUserid(principal.getUserid());
+        user.setUsername(principal.getUsername());
+        return user;
+    }
 }
\ No newline at end of file
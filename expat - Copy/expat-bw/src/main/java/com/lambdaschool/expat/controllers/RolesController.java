@@ -2,6 +2,7 @@ package com.lambdaschool.expat.controllers;
 
 import com.lambdaschool.expat.models.Role;
 import com.lambdaschool.expat.services.RoleService;
+import com.lambdaschool.expat.views.RoleView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -35,14 +36,14 @@ public class RolesController
      * List of all roles
      * <br>Example: <a href="http://localhost:2019/roles/roles">http://localhost:2019/roles/roles</a>
      *
-     * @return JSON List of all the roles and their associated users
-     * @see RoleService#findAll() RoleService.findAll()
+     * @return JSON List of all the roles
+     * @see RoleService#findAllViews() RoleService.findAllViews()
      */
     @GetMapping(value = "/roles",
         produces = "application/json")
     public ResponseEntity<?> listRoles()
     {
-        List<Role> allRoles = roleService.findAll();
+        List<RoleView> allRoles = roleService.findAllViews();
         return new ResponseEntity<>(allRoles,
             HttpStatus.OK);
     }
@@ -53,7 +54,7 @@ public class RolesController
      *
      * @param roleId The primary key (long) of the role you seek
      * @return JSON object of the role you seek
-     * @see RoleService#findRoleById(long) RoleService.findRoleById(long)
+     * @see RoleService#findRoleViewById(long) RoleService.findRoleViewById(long)
      */
     @GetMapping(value = "/role/{roleId}",
         produces = "application/json")
@@ -61,7 +62,7 @@ public class RolesController
         @PathVariable
             Long roleId)
     {
-        Role r = roleService.findRoleById(roleId);
+        RoleView r = roleService.findRoleViewById(roleId);
         return new ResponseEntity<>(r,
             HttpStatus.OK);
     }
@@ -72,7 +73,7 @@ public class RolesController
      *
      * @param roleName The name of the role you seek
      * @return JSON object of the role you seek
-     * @see RoleService#findByName(String) RoleService.findByName(String)
+     * @see RoleService#findRoleViewByName(String) RoleService.findRoleViewByName(String)
      */
     @GetMapping(value = "/role/name/{roleName}",
         produces = "application/json")
@@ -80,7 +81,7 @@ public class RolesController
         @PathVariable
             String roleName)
     {
-        Role r = roleService.findByName(roleName);
+        RoleView r = roleService.findRoleViewByName(roleName);
         return new ResponseEntity<>(r,
             HttpStatus.OK);
     }
@@ -1,25 +1,65 @@
 package com.lambdaschool.expat.controllers;
 
+import com.lambdaschool.expat.models.ResourceVersion;
+import com.lambdaschool.expat.models.Story;
+import com.lambdaschool.expat.services.ResourceVersionService;
 import com.lambdaschool.expat.services.StoryService;
+import com.lambdaschool.expat.services.TypeaheadService;
 import com.lambdaschool.expat.views.StoryCategoryList;
+import com.lambdaschool.expat.views.TypeaheadMatch;
 import java.util.List;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @RestController
 public class StoryController {
     private final StoryService storyService;
 
-    public StoryController(StoryService storyService) {
+    private final TypeaheadService typeaheadService;
+
+    private final ResourceVersionService resourceVersionService;
+
+    public StoryController(StoryService storyService, TypeaheadService typeaheadService,
+            ResourceVersionService resourceVersionService) {
         this.storyService = storyService;
+        this.typeaheadService = typeaheadService;
+        this.resourceVersionService = resourceVersionService;
     }
-/**
+
+    /**
+     * Returns the id and name of every story. Answers 304 Not Modified, without going to the database, when no story
+     * changed since the ETag or Last-Modified sent back.
+     *
+     * @param request the request, checked for If-None-Match and If-Modified-Since
+     * @return a JSON list of the stories, in name order
+     */
     @GetMapping(value = "/story", produces = { "application/json" })
-    public ResponseEntity<?> getStoryCategoryList() {
+    public ResponseEntity<?> getStoryCategoryList(ServletWebRequest request) {
+        ResourceVersion version = resourceVersionService.find(Story.class);
+        if (resourceVersionService.checkNotModified(request, "stories", version, CacheControl.noCache())) {
+            return null;
+        }
         List<StoryCategoryList> returnList = storyService.getStoryCategoryList();
         return new ResponseEntity<>(returnList, HttpStatus.OK);
     }
-    **/
+
+    /**
+     * Returns the stories whose name starts with the given letters, ignoring case, for suggesting story names
+     * while they are typed
+     *
+     * @param prefix the first letters of the story name
+     * @param limit  the most stories wanted, 10 when not given. Capped by the property typeahead.max.results.
+     * @return a JSON list of the ids and names of the matching stories, in name order
+     */
+    @GetMapping(value = "/story/typeahead/{prefix}", produces = { "application/json" })
+    public ResponseEntity<?> getStoryTypeahead(@PathVariable String prefix, @RequestParam(defaultValue = "0") int limit) {
+        List<TypeaheadMatch> returnList = typeaheadService.findStories(prefix, limit);
+        return new ResponseEntity<>(returnList, HttpStatus.OK);
+    }
 }
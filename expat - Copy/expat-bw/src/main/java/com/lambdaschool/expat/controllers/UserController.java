@@ -1,15 +1,27 @@
 package com.lambdaschool.expat.controllers;
 
+import com.lambdaschool.expat.models.ResourceVersion;
+import com.lambdaschool.expat.models.Role;
 import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.models.UserRoles;
+import com.lambdaschool.expat.models.Useremail;
+import com.lambdaschool.expat.services.ResourceVersionService;
+import com.lambdaschool.expat.services.TypeaheadService;
+import com.lambdaschool.expat.services.UserPrincipalService;
 import com.lambdaschool.expat.services.UserService;
+import com.lambdaschool.expat.views.TypeaheadMatch;
+import com.lambdaschool.expat.views.UserDetail;
+import com.lambdaschool.expat.views.UserSummary;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
@@ -30,19 +42,37 @@ public class UserController
     @Autowired
     private UserService userService;
 
+    /**
+     * Using the Typeahead service to suggest usernames
+     */
+    @Autowired
+    private TypeaheadService typeaheadService;
+
+    /**
+     * Using the principal cache to find the current user's id without going to the database
+     */
+    @Autowired
+    private UserPrincipalService userPrincipalService;
+
+    /**
+     * Using the Resource Version service to answer 304 Not Modified when the current user has not changed
+     */
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
     /**
      * Returns a list of all users
      * <br>Example: <a href="http://localhost:2019/users/users">http://localhost:2019/users/users</a>
      *
      * @return JSON list of all users with a status of OK
-     * @see UserService#findAll() UserService.findAll()
+     * @see UserService#findAllSummaries() UserService.findAllSummaries()
      */
     @PreAuthorize("hasAnyRole('ADMIN')")
     @GetMapping(value = "/users",
         produces = "application/json")
     public ResponseEntity<?> listAllUsers()
     {
-        List<User> myUsers = userService.findAll();
+        List<UserSummary> myUsers = userService.findAllSummaries();
         return new ResponseEntity<>(myUsers,
             HttpStatus.OK);
     }
@@ -53,7 +83,7 @@ public class UserController
      *
      * @param userId The primary key of the user you seek
      * @return JSON object of the user you seek
-     * @see UserService#findUserById(long) UserService.findUserById(long)
+     * @see UserService#findUserDetailById(long) UserService.findUserDetailById(long)
      */
     @PreAuthorize("hasAnyRole('ADMIN')")
     @GetMapping(value = "/user/{userId}",
@@ -62,7 +92,7 @@ public class UserController
         @PathVariable
             Long userId)
     {
-        User u = userService.findUserById(userId);
+        UserDetail u = userService.findUserDetailById(userId);
         return new ResponseEntity<>(u,
             HttpStatus.OK);
     }
@@ -73,7 +103,7 @@ public class UserController
      *
      * @param userName the name of user (String) you seek
      * @return JSON object of the user you seek
-     * @see UserService#findByName(String) UserService.findByName(String)
+     * @see UserService#findUserDetailByName(String) UserService.findUserDetailByName(String)
      */
     @PreAuthorize("hasAnyRole('ADMIN')")
     @GetMapping(value = "/user/name/{userName}",
@@ -82,7 +112,7 @@ public class UserController
         @PathVariable
             String userName)
     {
-        User u = userService.findByName(userName);
+        UserDetail u = userService.findUserDetailByName(userName);
         return new ResponseEntity<>(u,
             HttpStatus.OK);
     }
@@ -93,7 +123,7 @@ public class UserController
      *
      * @param userName Substring of the username for which you seek
      * @return A JSON list of users you seek
-     * @see UserService#findByNameContaining(String) UserService.findByNameContaining(String)
+     * @see UserService#findSummariesByNameContaining(String) UserService.findSummariesByNameContaining(String)
      */
     @PreAuthorize("hasAnyRole('ADMIN')")
     @GetMapping(value = "/user/name/like/{userName}",
@@ -102,7 +132,31 @@ public class UserController
         @PathVariable
             String userName)
     {
-        List<User> u = userService.findByNameContaining(userName);
+        List<UserSummary> u = userService.findSummariesByNameContaining(userName);
+        return new ResponseEntity<>(u,
+            HttpStatus.OK);
+    }
+
+    /**
+     * Returns the users whose username starts with the given letters, for suggesting usernames while they are typed
+     * <br>Example: <a href="http://localhost:2019/users/user/name/typeahead/da?limit=5">http://localhost:2019/users/user/name/typeahead/da?limit=5</a>
+     *
+     * @param prefix The first letters of the username, any case
+     * @param limit  The most users wanted, 10 when not given. Capped by the property typeahead.max.results.
+     * @return A JSON list of the ids and usernames of the matching users, in username order
+     * @see TypeaheadService#findUsernames(String, int) TypeaheadService.findUsernames(String, int)
+     */
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    @GetMapping(value = "/user/name/typeahead/{prefix}",
+        produces = "application/json")
+    public ResponseEntity<?> getUserTypeahead(
+        @PathVariable
+            String prefix,
+        @RequestParam(defaultValue = "0")
+            int limit)
+    {
+        List<TypeaheadMatch> u = typeaheadService.findUsernames(prefix,
+            limit);
         return new ResponseEntity<>(u,
             HttpStatus.OK);
     }
@@ -215,15 +269,35 @@ public class UserController
      * Returns the User record for the currently authenticated user based off of the supplied access token
      * <br>Example: <a href="http://localhost:2019/users/getuserinfo">http://localhost:2019/users/getuserinfo</a>
      *
+     * Answers 304 Not Modified, without going to the database, when the ETag or Last-Modified sent back is still current.
+     *
      * @param authentication The authenticated user object provided by Spring Security
-     * @return JSON of the current user. Status of OK
-     * @see UserService#findByName(String) UserService.findByName(authenticated user)
+     * @param request        the request, checked for If-None-Match and If-Modified-Since
+     * @return JSON of the current user. Status of OK, or Not Modified with no body
+     * @see UserService#findUserDetailByName(String) UserService.findUserDetailByName(authenticated user)
      */
     @GetMapping(value = "/getuserinfo",
         produces = {"application/json"})
-    public ResponseEntity<?> getCurrentUserInfo(Authentication authentication)
+    public ResponseEntity<?> getCurrentUserInfo(
+        Authentication authentication,
+        ServletWebRequest request)
     {
-        User u = userService.findByName(authentication.getName());
+        long userid = userPrincipalService.findByAuthentication(authentication)
+            .getUserid();
+        ResourceVersion version = resourceVersionService.find(User.class,
+            Useremail.class,
+            UserRoles.class,
+            Role.class);
+        if (resourceVersionService.checkNotModified(request,
+            "user-" + userid,
+            version,
+            CacheControl.noCache()
+                .cachePrivate()))
+        {
+            return null;
+        }
+
+        UserDetail u = userService.findUserDetailByName(authentication.getName());
         return new ResponseEntity<>(u,
             HttpStatus.OK);
     }
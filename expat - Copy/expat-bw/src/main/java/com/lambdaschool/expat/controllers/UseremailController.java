@@ -2,6 +2,7 @@ package com.lambdaschool.expat.controllers;
 
 import com.lambdaschool.expat.models.Useremail;
 import com.lambdaschool.expat.services.UseremailService;
+import com.lambdaschool.expat.views.UseremailView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -38,7 +39,7 @@ public class UseremailController
         produces = "application/json")
     public ResponseEntity<?> listAllUseremails()
     {
-        List<Useremail> allUserEmails = useremailService.findAll();
+        List<UseremailView> allUserEmails = useremailService.findAllViews();
         return new ResponseEntity<>(allUserEmails,
             HttpStatus.OK);
     }
@@ -57,7 +58,7 @@ public class UseremailController
         @PathVariable
             Long useremailId)
     {
-        Useremail ue = useremailService.findUseremailById(useremailId);
+        UseremailView ue = useremailService.findUseremailViewById(useremailId);
         return new ResponseEntity<>(ue,
             HttpStatus.OK);
     }
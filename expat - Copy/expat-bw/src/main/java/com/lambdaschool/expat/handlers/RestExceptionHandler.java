@@ -26,12 +26,14 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.support.MissingServletRequestPartException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import java.util.Arrays;
 import java.util.Date;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This is the driving class when an exception occurs. All exceptions are handled here.
@@ -81,6 +83,52 @@ public class RestExceptionHandler
             HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Our handling of work turned away because a bounded pool of threads, such as the one hashing passwords, is full.
+     *
+     * @param ree All the information about the exception that is thrown.
+     * @return The error details for displaying to the client plus the status Service Unavailable.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<?> handleRejectedExecutionException(RejectedExecutionException ree)
+    {
+        ErrorDetail errorDetail = new ErrorDetail();
+        errorDetail.setTimestamp(new Date());
+        errorDetail.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        errorDetail.setTitle("Server Busy");
+        errorDetail.setDetail("The server is too busy to handle this request right now. Please try again.");
+        errorDetail.setDeveloperMessage(ree.getClass()
+            .getName());
+        errorDetail.setErrors(helperFunctions.getConstraintViolation(ree));
+
+        return new ResponseEntity<>(errorDetail,
+            null,
+            HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Our handling of uploads larger than the application accepts.
+     *
+     * @param muse All the information about the exception that is thrown.
+     * @return The error details for displaying to the client plus the status Payload Too Large.
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<?> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException muse)
+    {
+        ErrorDetail errorDetail = new ErrorDetail();
+        errorDetail.setTimestamp(new Date());
+        errorDetail.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        errorDetail.setTitle("Upload Too Large");
+        errorDetail.setDetail(muse.getMessage());
+        errorDetail.setDeveloperMessage(muse.getClass()
+            .getName());
+        errorDetail.setErrors(helperFunctions.getConstraintViolation(muse));
+
+        return new ResponseEntity<>(errorDetail,
+            null,
+            HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     /**
      * Our custom handling of ResourceFoundExceptions. This gets thrown manually by our application.
      *
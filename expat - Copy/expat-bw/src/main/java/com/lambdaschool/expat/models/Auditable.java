@@ -1,5 +1,6 @@
 package com.lambdaschool.expat.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
@@ -23,9 +24,10 @@ import static javax.persistence.TemporalType.TIMESTAMP;
  * Thus this annotiation is "listening" for when an entity is accessed and then performs its argument.
  * AuditingEntityListener.class - The class that captures the data for and updates the annotations used in auditing -
  * CreatedBy, CreatedDate, ModifiedBy, ModifiedDate
+ * ResourceVersionListener.class - Moves the version of the entity class on whenever a row is saved or deleted, see ResourceVersionService
  */
 @MappedSuperclass
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, ResourceVersionListener.class})
 abstract class Auditable
 {
     /**
@@ -57,4 +59,27 @@ abstract class Auditable
     @LastModifiedDate
     @Temporal(TIMESTAMP)
     protected Date lastModifiedDate;
-}
\ No newline at end of file
+
+    /**
+     * Getter for the date and time this row was created. Used internally, for example to build feed cursors.
+     * Not part of the JSON output.
+     *
+     * @return the date and time (Date) this row was created
+     */
+    @JsonIgnore
+    public Date getCreatedDate()
+    {
+        return createdDate;
+    }
+
+    /**
+     * Getter for the date and time this row was last modified. Used internally. Not part of the JSON output.
+     *
+     * @return the date and time (Date) this row was last modified
+     */
+    @JsonIgnore
+    public Date getLastModifiedDate()
+    {
+        return lastModifiedDate;
+    }
+}
@@ -0,0 +1,97 @@
+package com.lambdaschool.expat.models;
+
+import com.lambdaschool.expat.exceptions.ResourceFoundException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * A position in the post feed. The feed is ordered newest first by created date and then by post id,
+ * so the created date and post id of the last post on a page is enough to find where the next page starts.
+ * <p>
+ * The cursor is handed to clients as an opaque, url safe string.
+ */
+public class FeedCursor
+{
+    /**
+     * The created date of the last post on the previous page
+     */
+    private final Date createdDate;
+
+    /**
+     * The post id of the last post on the previous page. Breaks ties between posts created at the same time.
+     */
+    private final long postId;
+
+    /**
+     * Given the params, create a new feed cursor
+     *
+     * @param createdDate the created date (Date) of the last post seen
+     * @param postId      the post id (long) of the last post seen
+     */
+    public FeedCursor(
+        Date createdDate,
+        long postId)
+    {
+        this.createdDate = createdDate;
+        this.postId = postId;
+    }
+
+    /**
+     * Getter for the created date
+     *
+     * @return the created date (Date) of the last post seen
+     */
+    public Date getCreatedDate()
+    {
+        return createdDate;
+    }
+
+    /**
+     * Getter for the post id
+     *
+     * @return the post id (long) of the last post seen
+     */
+    public long getPostId()
+    {
+        return postId;
+    }
+
+    /**
+     * Turns this cursor into the opaque string sent to clients
+     *
+     * @return the url safe string (String) form of this cursor
+     */
+    public String encode()
+    {
+        String raw = createdDate.getTime() + ":" + postId;
+        return Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a cursor previously produced by encode()
+     *
+     * @param cursor the opaque string (String) sent by the client
+     * @return the feed cursor the string represents
+     * @throws ResourceFoundException if the string is not a valid cursor, answered as a bad request
+     */
+    public static FeedCursor decode(String cursor)
+    {
+        try
+        {
+            String raw = new String(Base64.getUrlDecoder()
+                .decode(cursor),
+                StandardCharsets.UTF_8);
+            int split = raw.indexOf(':');
+            return new FeedCursor(new Date(Long.parseLong(raw.substring(0,
+                split))),
+                Long.parseLong(raw.substring(split + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e)
+        {
+            throw new ResourceFoundException("Feed cursor " + cursor + " is not valid!");
+        }
+    }
+}
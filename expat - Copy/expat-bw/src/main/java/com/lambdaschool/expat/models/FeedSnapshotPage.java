@@ -0,0 +1,78 @@
+package com.lambdaschool.expat.models;
+
+/**
+ * One page of the post feed already turned into JSON, ready to be written to any number of responses as is.
+ * See FeedSnapshotService. This is not a table in the database.
+ */
+public class FeedSnapshotPage
+{
+    /**
+     * The page as UTF-8 JSON
+     */
+    private final byte[] json;
+
+    /**
+     * The same JSON gzipped. Null when gzipping is turned off.
+     */
+    private final byte[] gzip;
+
+    /**
+     * The ETag (quoted String) of the feed when this page was made
+     */
+    private final String etag;
+
+    /**
+     * When the feed last changed before this page was made, in epoch milliseconds
+     */
+    private final long lastModified;
+
+    /**
+     * Given the params, create a new snapshot page
+     *
+     * @param json         the page (byte[]) as UTF-8 JSON
+     * @param gzip         the same JSON (byte[]) gzipped or null
+     * @param etag         the ETag (String, quotes included) of the feed when the page was made
+     * @param lastModified when (long, epoch milliseconds) the feed last changed before the page was made
+     */
+    public FeedSnapshotPage(
+        byte[] json,
+        byte[] gzip,
+        String etag,
+        long lastModified)
+    {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * The JSON itself, not a copy. Must not be changed.
+     *
+     * @return the page (byte[]) as UTF-8 JSON
+     */
+    public byte[] getJson()
+    {
+        return json;
+    }
+
+    /**
+     * The gzipped JSON itself, not a copy. Must not be changed.
+     *
+     * @return the gzipped JSON (byte[]) or null when gzipping is turned off
+     */
+    public byte[] getGzip()
+    {
+        return gzip;
+    }
+
+    public String getEtag()
+    {
+        return etag;
+    }
+
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+}
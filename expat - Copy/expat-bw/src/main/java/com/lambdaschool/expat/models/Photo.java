@@ -1,22 +1,34 @@
 package com.lambdaschool.expat.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import javax.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 /**
  * The entity allowing interaction with the markets table
  */
 @Entity
 @Table(name = "photos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @JsonIgnoreProperties(value = "posts")
 public class Photo extends Auditable {
     /**
      * The primary key (long) of the markets table.
      */
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "photos_seq")
+    @GenericGenerator(name = "photos_seq", strategy = "com.lambdaschool.expat.models.PooledSequenceGenerator",
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "photos_seq"))
     private long photoId;
 
     /**
@@ -25,6 +37,39 @@ public class Photo extends Auditable {
     @Column(nullable = false)
     private String name;
 
+    /**
+     * The SHA-256 hash of the uploaded content, which is where the photo store keeps it.
+     * Null for photos that are only a link.
+     */
+    @Column(length = 64)
+    private String contentHash;
+
+    /**
+     * The media type of the uploaded content, such as image/jpeg. Null for photos that are only a link.
+     */
+    private String contentType;
+
+    /**
+     * The length in bytes of the uploaded content. Null for photos that are only a link.
+     */
+    private Long contentLength;
+
+    /**
+     * True while the resized copies of the uploaded content are still to be made. See PhotoVariantServiceImpl.
+     */
+    private Boolean variantsPending;
+
+    /**
+     * The resized copies of the uploaded content
+     */
+    @OneToMany(
+            mappedBy = "photo",
+            cascade = CascadeType.ALL,
+            orphanRemoval = true
+    )
+    @JsonIgnore
+    private List<PhotoVariant> variants = new ArrayList<>();
+
     @OneToMany(
             mappedBy = "photo",
             cascade = CascadeType.ALL,
@@ -91,4 +136,44 @@ public class Photo extends Auditable {
     public void setName(String name) {
         this.name = name;
     }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(Long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public Boolean getVariantsPending() {
+        return variantsPending;
+    }
+
+    public void setVariantsPending(Boolean variantsPending) {
+        this.variantsPending = variantsPending;
+    }
+
+    public List<PhotoVariant> getVariants() {
+        return variants;
+    }
+
+    public void setVariants(List<PhotoVariant> variants) {
+        this.variants = variants;
+    }
 }
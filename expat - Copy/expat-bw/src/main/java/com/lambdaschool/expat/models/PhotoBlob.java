@@ -0,0 +1,36 @@
+package com.lambdaschool.expat.models;
+
+/**
+ * The content of an uploaded photo as kept by the photo store: its SHA-256 hash, which is also its address,
+ * and its length. This is not a table in the database.
+ */
+public class PhotoBlob {
+    /**
+     * The SHA-256 hash (String) of the content, 64 lowercase hex digits
+     */
+    private final String hash;
+
+    /**
+     * The length (long) of the content in bytes
+     */
+    private final long length;
+
+    /**
+     * Given the params, create a new blob
+     *
+     * @param hash   the SHA-256 hash (String) of the content, in lowercase hex
+     * @param length the length (long) of the content in bytes
+     */
+    public PhotoBlob(String hash, long length) {
+        this.hash = hash;
+        this.length = length;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public long getLength() {
+        return length;
+    }
+}
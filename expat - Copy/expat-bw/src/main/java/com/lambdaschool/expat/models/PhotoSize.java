@@ -0,0 +1,61 @@
+package com.lambdaschool.expat.models;
+
+import java.util.Locale;
+
+/**
+ * The sizes uploaded photos are resized to, each bounding the longest side of the image.
+ * Images smaller than a size are not enlarged, the original is used for that size.
+ */
+public enum PhotoSize {
+    /**
+     * Small previews, such as lists of photos
+     */
+    THUMB(160),
+
+    /**
+     * Photos shown in the post feed
+     */
+    FEED(640),
+
+    /**
+     * Photos viewed on their own
+     */
+    FULL(1600);
+
+    /**
+     * The longest side (int), in pixels, of an image of this size
+     */
+    private final int maxDimension;
+
+    PhotoSize(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * The name of this size as clients write it, in lowercase
+     *
+     * @return the name (String) of this size
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Finds a size from the name clients use
+     *
+     * @param name the name (String) of the size, any case
+     * @return the size, or null if there is no such size
+     */
+    public static PhotoSize fromName(String name) {
+        for (PhotoSize size : values()) {
+            if (size.name().equalsIgnoreCase(name)) {
+                return size;
+            }
+        }
+        return null;
+    }
+}
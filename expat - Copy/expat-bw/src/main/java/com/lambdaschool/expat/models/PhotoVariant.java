@@ -0,0 +1,156 @@
+package com.lambdaschool.expat.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import javax.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+/**
+ * The entity allowing interaction with the photo_variants table: one resized copy of an uploaded photo.
+ * The content is kept in the photo store like the original, under its own SHA-256 hash.
+ */
+@Entity
+@EntityListeners(ResourceVersionListener.class)
+@Table(name = "photo_variants",
+    uniqueConstraints = @UniqueConstraint(columnNames = { "photo_id", "variant_size" }))
+public class PhotoVariant {
+    /**
+     * The primary key (long) of the photo_variants table
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "photo_variants_seq")
+    @GenericGenerator(name = "photo_variants_seq", strategy = "com.lambdaschool.expat.models.PooledSequenceGenerator",
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "photo_variants_seq"))
+    private long variantId;
+
+    /**
+     * The photo this is a copy of
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "photo_id", nullable = false)
+    @JsonIgnore
+    private Photo photo;
+
+    /**
+     * Which of the sizes this copy is
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "variant_size", nullable = false, length = 16)
+    private PhotoSize size;
+
+    /**
+     * The SHA-256 hash of the content. The same as the photo's when the original is used for this size.
+     */
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+
+    /**
+     * The media type of the content
+     */
+    @Column(nullable = false)
+    private String contentType;
+
+    /**
+     * The length of the content in bytes
+     */
+    private long contentLength;
+
+    /**
+     * The width of the image in pixels
+     */
+    private int width;
+
+    /**
+     * The height of the image in pixels
+     */
+    private int height;
+
+    /**
+     * Default constructor used primarily by the JPA.
+     */
+    public PhotoVariant() {}
+
+    /**
+     * Given the params, create a new variant. The photo is set when it is added to a photo.
+     *
+     * @param size          which of the sizes (PhotoSize) this is
+     * @param contentHash   the SHA-256 hash (String) of the content
+     * @param contentType   the media type (String) of the content
+     * @param contentLength the length (long) of the content in bytes
+     * @param width         the width (int) of the image in pixels
+     * @param height        the height (int) of the image in pixels
+     */
+    public PhotoVariant(PhotoSize size, String contentHash, String contentType, long contentLength, int width, int height) {
+        this.size = size;
+        this.contentHash = contentHash;
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.width = width;
+        this.height = height;
+    }
+
+    public long getVariantId() {
+        return variantId;
+    }
+
+    public void setVariantId(long variantId) {
+        this.variantId = variantId;
+    }
+
+    public Photo getPhoto() {
+        return photo;
+    }
+
+    public void setPhoto(Photo photo) {
+        this.photo = photo;
+    }
+
+    public PhotoSize getSize() {
+        return size;
+    }
+
+    public void setSize(PhotoSize size) {
+        this.size = size;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+}
@@ -0,0 +1,54 @@
+package com.lambdaschool.expat.models;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Primary key generator giving each table its own sequence, named by the sequence_name parameter, instead of
+ * the single hibernate_sequence shared by every table.
+ * <p>
+ * Keys are handed out in blocks: one call to the sequence reserves expat.id.allocation_size keys (50 when not set,
+ * see application.properties) that are then given to new rows without going back to the database. With the pooled-lo
+ * optimizer the value read from the sequence is the first key of the block, so rows inserted by anything else that
+ * calls nextval directly never clash with a block. The sequence is created to step by the allocation size, and
+ * SequenceAlignment keeps existing PostgreSQL sequences in line with it.
+ */
+public class PooledSequenceGenerator
+    extends SequenceStyleGenerator
+{
+    /**
+     * The Hibernate setting holding the number of keys reserved per call to a sequence
+     */
+    public static final String ALLOCATION_SIZE = "expat.id.allocation_size";
+
+    /**
+     * The number of keys reserved per call when the setting is not given
+     */
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(
+        Type type,
+        Properties params,
+        ServiceRegistry serviceRegistry) throws MappingException
+    {
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE,
+            serviceRegistry.getService(ConfigurationService.class)
+                .getSettings(),
+            DEFAULT_ALLOCATION_SIZE);
+        params.putIfAbsent(INCREMENT_PARAM,
+            String.valueOf(allocationSize));
+        params.putIfAbsent(OPT_PARAM,
+            StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type,
+            params,
+            serviceRegistry);
+    }
+}
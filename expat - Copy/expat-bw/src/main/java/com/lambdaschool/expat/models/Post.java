@@ -3,18 +3,27 @@ package com.lambdaschool.expat.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import javax.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 /**
  * The entity allowing interaction with the items table
+ * <p>
+ * The index on created date and post id backs the keyset paginated post feed.
  */
 @Entity
-@Table(name = "posts")
+@Table(name = "posts",
+    indexes = @Index(name = "idx_posts_feed",
+        columnList = "createdDate, postId"))
 public class Post extends Auditable {
     /**
      * The primary key (long) of the items table.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+    @GenericGenerator(name = "posts_seq", strategy = "com.lambdaschool.expat.models.PooledSequenceGenerator",
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "posts_seq"))
     private long postId;
 
     /**
@@ -37,7 +46,7 @@ public class Post extends Auditable {
      * Forms a Many to One relationship between items and users.
      * A user can have many items.
      */
-    @OneToOne
+    @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnoreProperties(value = "posts", allowSetters = true)
     private User user;
@@ -0,0 +1,132 @@
+package com.lambdaschool.expat.models;
+
+/**
+ * What happened to one post of a batch sent to POST /posts/batch.
+ * This is not a table in the database.
+ */
+public class PostBatchItem
+{
+    /**
+     * The post was saved
+     */
+    public static final String CREATED = "created";
+
+    /**
+     * The post was not saved, see the message
+     */
+    public static final String REJECTED = "rejected";
+
+    /**
+     * The position of the post in the batch, starting at 0
+     */
+    private final int index;
+
+    /**
+     * CREATED or REJECTED
+     */
+    private final String status;
+
+    /**
+     * The primary key of the saved post. Null if the post was rejected.
+     */
+    private final Long postId;
+
+    /**
+     * Why the post was rejected. Null if the post was saved.
+     */
+    private final String message;
+
+    /**
+     * Given the params, create a new batch item
+     *
+     * @param index   the position (int) of the post in the batch
+     * @param status  CREATED or REJECTED
+     * @param postId  the primary key (Long) of the saved post or null
+     * @param message why (String) the post was rejected or null
+     */
+    private PostBatchItem(
+        int index,
+        String status,
+        Long postId,
+        String message)
+    {
+        this.index = index;
+        this.status = status;
+        this.postId = postId;
+        this.message = message;
+    }
+
+    /**
+     * A post that was saved
+     *
+     * @param index  the position (int) of the post in the batch
+     * @param postId the primary key (long) of the saved post
+     * @return the batch item
+     */
+    public static PostBatchItem created(
+        int index,
+        long postId)
+    {
+        return new PostBatchItem(index,
+            CREATED,
+            postId,
+            null);
+    }
+
+    /**
+     * A post that was not saved
+     *
+     * @param index   the position (int) of the post in the batch
+     * @param message why (String) the post was rejected
+     * @return the batch item
+     */
+    public static PostBatchItem rejected(
+        int index,
+        String message)
+    {
+        return new PostBatchItem(index,
+            REJECTED,
+            null,
+            message);
+    }
+
+    /**
+     * Getter for index
+     *
+     * @return the position (int) of the post in the batch, starting at 0
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Getter for status
+     *
+     * @return CREATED or REJECTED
+     */
+    public String getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * Getter for postId
+     *
+     * @return the primary key (Long) of the saved post, null if it was rejected
+     */
+    public Long getPostId()
+    {
+        return postId;
+    }
+
+    /**
+     * Getter for message
+     *
+     * @return why (String) the post was rejected, null if it was saved
+     */
+    public String getMessage()
+    {
+        return message;
+    }
+}
@@ -0,0 +1,91 @@
+package com.lambdaschool.expat.models;
+
+import java.util.List;
+
+/**
+ * What happened to a batch of posts sent to POST /posts/batch: one item per post, in the order they were sent,
+ * and how long saving them took.
+ * This is not a table in the database.
+ */
+public class PostBatchResult
+{
+    /**
+     * What happened to each post, in the order they were sent
+     */
+    private final List<PostBatchItem> items;
+
+    /**
+     * The number of posts saved
+     */
+    private final int created;
+
+    /**
+     * The number of posts rejected
+     */
+    private final int rejected;
+
+    /**
+     * How long saving the batch took, in milliseconds
+     */
+    private final long elapsedMillis;
+
+    /**
+     * Given the params, create a new batch result
+     *
+     * @param items         what happened (List(PostBatchItem)) to each post, in the order they were sent
+     * @param created       the number (int) of posts saved
+     * @param rejected      the number (int) of posts rejected
+     * @param elapsedMillis how long (long) saving the batch took, in milliseconds
+     */
+    public PostBatchResult(
+        List<PostBatchItem> items,
+        int created,
+        int rejected,
+        long elapsedMillis)
+    {
+        this.items = items;
+        this.created = created;
+        this.rejected = rejected;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Getter for items
+     *
+     * @return what happened (List(PostBatchItem)) to each post, in the order they were sent
+     */
+    public List<PostBatchItem> getItems()
+    {
+        return items;
+    }
+
+    /**
+     * Getter for created
+     *
+     * @return the number (int) of posts saved
+     */
+    public int getCreated()
+    {
+        return created;
+    }
+
+    /**
+     * Getter for rejected
+     *
+     * @return the number (int) of posts rejected
+     */
+    public int getRejected()
+    {
+        return rejected;
+    }
+
+    /**
+     * Getter for elapsedMillis
+     *
+     * @return how long (long) saving the batch took, in milliseconds
+     */
+    public long getElapsedMillis()
+    {
+        return elapsedMillis;
+    }
+}
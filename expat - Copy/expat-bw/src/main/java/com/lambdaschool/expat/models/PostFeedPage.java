@@ -0,0 +1,56 @@
+package com.lambdaschool.expat.models;
+
+import com.lambdaschool.expat.views.PostFeedItem;
+
+import java.util.List;
+
+/**
+ * One page of the post feed along with the cursor for the page that follows it.
+ * This is not a table in the database.
+ */
+public class PostFeedPage
+{
+    /**
+     * The posts on this page, newest first
+     */
+    private final List<PostFeedItem> posts;
+
+    /**
+     * The cursor pointing at the page after this one. Null if this is the last page.
+     */
+    private final String next;
+
+    /**
+     * Given the params, create a new feed page
+     *
+     * @param posts the posts (List(PostFeedItem)) on this page
+     * @param next  the cursor (String) of the next page or null if there is none
+     */
+    public PostFeedPage(
+        List<PostFeedItem> posts,
+        String next)
+    {
+        this.posts = posts;
+        this.next = next;
+    }
+
+    /**
+     * Getter for posts
+     *
+     * @return the posts (List(PostFeedItem)) on this page
+     */
+    public List<PostFeedItem> getPosts()
+    {
+        return posts;
+    }
+
+    /**
+     * Getter for the next cursor
+     *
+     * @return the cursor (String) of the next page or null if this is the last page
+     */
+    public String getNext()
+    {
+        return next;
+    }
+}
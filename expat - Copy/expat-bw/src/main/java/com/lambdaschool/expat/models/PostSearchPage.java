@@ -0,0 +1,92 @@
+package com.lambdaschool.expat.models;
+
+import com.lambdaschool.expat.views.PostFeedItem;
+
+import java.util.List;
+
+/**
+ * One page of post search results, best match first, along with the number of posts that matched.
+ * This is not a table in the database.
+ */
+public class PostSearchPage
+{
+    /**
+     * The posts on this page, best match first
+     */
+    private final List<PostFeedItem> posts;
+
+    /**
+     * The number of posts that matched the search
+     */
+    private final int total;
+
+    /**
+     * The number of this page, starting at 0
+     */
+    private final int page;
+
+    /**
+     * The most posts on a page
+     */
+    private final int size;
+
+    /**
+     * Given the params, create a new search page
+     *
+     * @param posts the posts (List(PostFeedItem)) on this page
+     * @param total the number (int) of posts that matched
+     * @param page  the number (int) of this page, starting at 0
+     * @param size  the most posts (int) on a page
+     */
+    public PostSearchPage(
+        List<PostFeedItem> posts,
+        int total,
+        int page,
+        int size)
+    {
+        this.posts = posts;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+    }
+
+    /**
+     * Getter for posts
+     *
+     * @return the posts (List(PostFeedItem)) on this page, best match first
+     */
+    public List<PostFeedItem> getPosts()
+    {
+        return posts;
+    }
+
+    /**
+     * Getter for total
+     *
+     * @return the number (int) of posts that matched
+     */
+    public int getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Getter for page
+     *
+     * @return the number (int) of this page, starting at 0
+     */
+    public int getPage()
+    {
+        return page;
+    }
+
+    /**
+     * Getter for size
+     *
+     * @return the most posts (int) on a page
+     */
+    public int getSize()
+    {
+        return size;
+    }
+}
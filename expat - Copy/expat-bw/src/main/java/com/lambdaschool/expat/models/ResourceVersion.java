@@ -0,0 +1,62 @@
+package com.lambdaschool.expat.models;
+
+import java.util.Date;
+
+/**
+ * Identifies the state of what a read endpoint returns, so a client that already has it can be answered with
+ * 304 Not Modified. The tag changes whenever any row the endpoint reads changes, the last modified time is when
+ * that last happened. This is not a table in the database.
+ */
+public class ResourceVersion
+{
+    /**
+     * Changes whenever the data changes
+     */
+    private final String tag;
+
+    /**
+     * When the data last changed, in epoch milliseconds
+     */
+    private final long lastModified;
+
+    /**
+     * Given the params, create a new version
+     *
+     * @param tag          the tag (String) identifying the state of the data
+     * @param lastModified when (long, epoch milliseconds) the data last changed
+     */
+    public ResourceVersion(
+        String tag,
+        long lastModified)
+    {
+        this.tag = tag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Adds a single row to the version, for endpoints returning one row and what it refers to
+     *
+     * @param id               the primary key (long) of the row
+     * @param lastModifiedDate when the row was last changed
+     * @return the version of the row and everything else this version covers
+     */
+    public ResourceVersion with(
+        long id,
+        Date lastModifiedDate)
+    {
+        long modified = lastModifiedDate == null ? 0 : lastModifiedDate.getTime();
+        return new ResourceVersion(id + "-" + modified + "-" + tag,
+            Math.max(lastModified,
+                modified));
+    }
+
+    public String getTag()
+    {
+        return tag;
+    }
+
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+}
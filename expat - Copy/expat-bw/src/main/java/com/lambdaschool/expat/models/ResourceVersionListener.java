@@ -0,0 +1,41 @@
+package com.lambdaschool.expat.models;
+
+import com.lambdaschool.expat.services.ResourceVersionService;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener that tells the ResourceVersionService whenever a row is saved or deleted, so read endpoints
+ * stop answering 304 Not Modified for data that changed. Created by Spring, which is what lets it be given the service.
+ * <p>
+ * Statements that bypass the entities, such as UPDATE queries, are not seen here and have to call
+ * ResourceVersionService.changed themselves.
+ */
+public class ResourceVersionListener
+{
+    /**
+     * The service keeping the versions. Missing in tests that only start the JPA layer.
+     */
+    private final ObjectProvider<ResourceVersionService> resourceVersionService;
+
+    public ResourceVersionListener(ObjectProvider<ResourceVersionService> resourceVersionService)
+    {
+        this.resourceVersionService = resourceVersionService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity)
+    {
+        ResourceVersionService service = resourceVersionService.getIfAvailable();
+        if (service != null)
+        {
+            service.changed(Hibernate.getClass(entity));
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.lambdaschool.expat.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -9,9 +14,12 @@ import java.util.Set;
 
 /**
  * The entity allowing interaction with the roles table.
+ * Roles almost never change so they are kept in the second level cache.
  */
 @Entity
 @Table(name = "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Role
     extends Auditable
 {
@@ -19,7 +27,9 @@ public class Role
      * The primary key (long) of the roles table.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "roles_seq")
+    @GenericGenerator(name = "roles_seq", strategy = "com.lambdaschool.expat.models.PooledSequenceGenerator",
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "roles_seq"))
     private long roleid;
 
     /**
@@ -0,0 +1,107 @@
+package com.lambdaschool.expat.models;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Numbers the roles, by authority (ROLE_NAME), in the order they are first seen. The roles of a user then fit in the
+ * bits of a long (see UserPrincipal), and checking for a role is a single AND, with no string compared and no object
+ * created. Also keeps one GrantedAuthority per role, shared by every user holding it.
+ * <p>
+ * The numbers are only good for the running application, so they are never stored or sent anywhere. Only the first
+ * 64 roles get a bit. Later ones get 0, and checks for them have to go by the authority names.
+ * This is not a table in the database.
+ */
+public final class RoleIndex
+{
+    /**
+     * The number of roles that get a bit
+     */
+    public static final int MAX_ROLES = Long.SIZE;
+
+    /**
+     * The roles seen so far, by authority
+     */
+    private static final ConcurrentMap<String, Entry> roles = new ConcurrentHashMap<>();
+
+    /**
+     * The number of the next role seen
+     */
+    private static final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * The bit of the admin role. Numbered first so it always has one.
+     */
+    public static final long ADMIN = bit("ROLE_ADMIN");
+
+    private RoleIndex()
+    {
+    }
+
+    /**
+     * The bit of a role
+     *
+     * @param authority the authority (String) of the role, in the form ROLE_NAME
+     * @return the bit (long) of the role, or 0 when 64 other roles took all the bits
+     */
+    public static long bit(String authority)
+    {
+        return entry(authority).bit;
+    }
+
+    /**
+     * The bits of a set of roles
+     *
+     * @param authorities the authorities of the roles, in the form ROLE_NAME
+     * @return the bits (long) of the roles that have one, or-ed together
+     */
+    public static long bits(Collection<String> authorities)
+    {
+        long bits = 0;
+        for (String authority : authorities)
+        {
+            bits |= bit(authority);
+        }
+        return bits;
+    }
+
+    /**
+     * The shared granted authority of a role
+     *
+     * @param authority the authority (String) of the role, in the form ROLE_NAME
+     * @return the granted authority of the role
+     */
+    public static GrantedAuthority authority(String authority)
+    {
+        return entry(authority).authority;
+    }
+
+    private static Entry entry(String authority)
+    {
+        Entry entry = roles.get(authority);
+        return entry != null ? entry : roles.computeIfAbsent(authority,
+            Entry::new);
+    }
+
+    /**
+     * A role's number, as a bit, and granted authority
+     */
+    private static final class Entry
+    {
+        private final long bit;
+
+        private final GrantedAuthority authority;
+
+        private Entry(String authority)
+        {
+            int number = next.getAndIncrement();
+            this.bit = number < MAX_ROLES ? 1L << number : 0;
+            this.authority = new SimpleGrantedAuthority(authority);
+        }
+    }
+}
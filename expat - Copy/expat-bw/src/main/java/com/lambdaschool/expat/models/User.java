@@ -3,8 +3,11 @@ package com.lambdaschool.expat.models;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import javax.persistence.*;
 import javax.validation.constraints.Email;
@@ -26,7 +29,9 @@ public class User
      * The primary key (long) of the users table.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @GenericGenerator(name = "users_seq", strategy = "com.lambdaschool.expat.models.PooledSequenceGenerator",
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "users_seq"))
     private long userid;
 
     /**
@@ -38,6 +43,8 @@ public class User
 
     /**
      * The password (String) for this user. Cannot be null. Never get displayed
+     * <p>
+     * Holds the plain text password given by the client until UserService saves the user, which stores its hash
      */
     @NotNull
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
@@ -53,10 +60,13 @@ public class User
 
     /**
      * A list of emails for this user
+     * <p>
+     * BatchSize - when a list of users is read, the emails of up to 100 of them are loaded with one statement
      */
     @OneToMany(mappedBy = "user",
         cascade = CascadeType.ALL,
         orphanRemoval = true)
+    @BatchSize(size = 100)
     @JsonIgnoreProperties(value = "user",
         allowSetters = true)
     private List<Useremail> useremails = new ArrayList<>();
@@ -64,10 +74,13 @@ public class User
     /**
      * Part of the join relationship between user and role
      * connects users to the user role combination
+     * <p>
+     * BatchSize - when a list of users is read, the roles of up to 100 of them are loaded with one statement
      */
     @OneToMany(mappedBy = "user",
         cascade = CascadeType.ALL,
         orphanRemoval = true)
+    @BatchSize(size = 100)
     @JsonIgnoreProperties(value = "user",
         allowSetters = true)
     private Set<UserRoles> roles = new HashSet<>();
@@ -169,22 +182,13 @@ public class User
     }
 
     /**
-     * Setter for password to be used internally, after the password has already been encrypted
+     * Setter for password. The password is stored as given, UserService hashes plain text passwords when it saves the user.
      *
-     * @param password the new password (String) for the user. Comes in encrypted and stays that way
-     */
-    public void setPasswordNoEncrypt(String password)
-    {
-        this.password = password;
-    }
-
-    /**
-     * @param password the new password (String) for this user. Comes in plain text and goes out encrypted
+     * @param password the new password (String) for this user, in plain text or already hashed
      */
     public void setPassword(String password)
     {
-        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-        this.password = passwordEncoder.encode(password);
+        this.password = password;
     }
 
     /**
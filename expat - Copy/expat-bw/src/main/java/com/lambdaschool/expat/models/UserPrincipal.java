@@ -0,0 +1,189 @@
+package com.lambdaschool.expat.models;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What the application needs to know about an authenticated user: the user's id, name, password hash and authorities.
+ * Kept in the principal cache so authenticating a user and finding the current user's id do not go to the database.
+ * In signed token (JWT) mode the principal is rebuilt from the claims of the token, without the password.
+ * <p>
+ * The roles are also kept as bits (see RoleIndex), so checking whether the user holds a role creates no objects.
+ * This is not a table in the database.
+ */
+public class UserPrincipal
+    implements Serializable,
+               Principal
+{
+    /**
+     * The primary key (long) of the user
+     */
+    private final long userid;
+
+    /**
+     * The username (String) of the user. Always lowercase.
+     */
+    private final String username;
+
+    /**
+     * The encrypted password (String) of the user
+     */
+    private final String password;
+
+    /**
+     * The authorities of the user, one per role, in the form ROLE_NAME
+     */
+    private final List<String> authorities;
+
+    /**
+     * The bits of the user's roles, see RoleIndex. Numbered again when the principal is read back from the cache or
+     * the token store, as the numbers are only good for the running application.
+     */
+    private transient long roleBits;
+
+    /**
+     * Given the user, create a new principal. Reads the user's roles so must be called inside a transaction.
+     *
+     * @param user the user (User) the principal represents
+     */
+    public UserPrincipal(User user)
+    {
+        this.userid = user.getUserid();
+        this.username = user.getUsername();
+        this.password = user.getPassword();
+
+        List<String> authorityList = new ArrayList<>();
+        for (UserRoles r : user.getRoles())
+        {
+            authorityList.add("ROLE_" + r.getRole()
+                .getName()
+                .toUpperCase());
+        }
+        this.authorities = Collections.unmodifiableList(authorityList);
+        this.roleBits = RoleIndex.bits(authorities);
+    }
+
+    /**
+     * Given the params, create a new principal without a password. Used when the principal is read from a signed token.
+     *
+     * @param userid      the primary key (long) of the user
+     * @param username    the username (String) of the user
+     * @param authorities the authorities of the user in the form ROLE_NAME
+     */
+    public UserPrincipal(
+        long userid,
+        String username,
+        List<String> authorities)
+    {
+        this.userid = userid;
+        this.username = username;
+        this.password = null;
+        this.authorities = Collections.unmodifiableList(new ArrayList<>(authorities));
+        this.roleBits = RoleIndex.bits(this.authorities);
+    }
+
+    /**
+     * Returns the principal carried by an authentication: read from a signed token, or created when the user
+     * signed on (see toUserDetails)
+     *
+     * @param authentication the authentication of the current request
+     * @return the principal (UserPrincipal), without the password, or null when the authentication carries none
+     */
+    public static UserPrincipal of(Authentication authentication)
+    {
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof UserPrincipal)
+        {
+            return (UserPrincipal) principal;
+        }
+        if (principal instanceof UserPrincipalDetails)
+        {
+            return ((UserPrincipalDetails) principal).getPrincipal();
+        }
+        return null;
+    }
+
+    /**
+     * Getter for userid
+     *
+     * @return the primary key (long) of the user
+     */
+    public long getUserid()
+    {
+        return userid;
+    }
+
+    /**
+     * Getter for username
+     *
+     * @return the username (String) of the user, lowercase
+     */
+    public String getUsername()
+    {
+        return username;
+    }
+
+    /**
+     * The name of the principal, so Spring Security reports the username as the name of the authentication
+     *
+     * @return the username (String) of the user, lowercase
+     */
+    @Override
+    public String getName()
+    {
+        return username;
+    }
+
+    /**
+     * Getter for authorities
+     *
+     * @return the authorities (List(String)) of the user in the form ROLE_NAME
+     */
+    public List<String> getAuthorities()
+    {
+        return authorities;
+    }
+
+    /**
+     * Checks whether the user holds a role. Creates no objects.
+     *
+     * @param roleBit the bit (long) of the role, see RoleIndex
+     * @return true if the user holds the role
+     */
+    public boolean hasRole(long roleBit)
+    {
+        return (roleBits & roleBit) != 0;
+    }
+
+    /**
+     * Creates a new Spring Security user from this principal. A new one is created every time as
+     * Spring Security erases the password of the user once authentication is done.
+     * The user carries this principal, without the password, into the authentication.
+     *
+     * @return a security user detail for this principal
+     */
+    public UserDetails toUserDetails()
+    {
+        return new UserPrincipalDetails(this,
+            password);
+    }
+
+    /**
+     * Numbers the roles again after the principal is deserialized
+     */
+    private void readObject(ObjectInputStream in) throws
+                                                  IOException,
+                                                  ClassNotFoundException
+    {
+        in.defaultReadObject();
+        roleBits = RoleIndex.bits(authorities);
+    }
+}
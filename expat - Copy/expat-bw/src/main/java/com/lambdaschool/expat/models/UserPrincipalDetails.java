@@ -0,0 +1,64 @@
+package com.lambdaschool.expat.models;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Spring Security user of a principal, the principal of the authentication once the user has signed on.
+ * It carries the principal, without the password, so a request authenticated with a token knows the id and
+ * roles of its user without going to the principal cache (see UserPrincipal.of).
+ * This is not a table in the database.
+ */
+public class UserPrincipalDetails
+    extends User
+{
+    /**
+     * The principal (UserPrincipal) of the user, without the password
+     */
+    private final UserPrincipal principal;
+
+    /**
+     * Given the principal, create a new Spring Security user. See UserPrincipal.toUserDetails.
+     *
+     * @param principal the principal (UserPrincipal) of the user
+     * @param password  the encrypted password (String) of the user
+     */
+    UserPrincipalDetails(
+        UserPrincipal principal,
+        String password)
+    {
+        super(principal.getUsername(),
+            password,
+            authorities(principal));
+        this.principal = new UserPrincipal(principal.getUserid(),
+            principal.getUsername(),
+            principal.getAuthorities());
+    }
+
+    /**
+     * Getter for principal
+     *
+     * @return the principal (UserPrincipal) of the user, without the password
+     */
+    public UserPrincipal getPrincipal()
+    {
+        return principal;
+    }
+
+    /**
+     * The shared granted authorities of the principal's roles
+     */
+    private static List<GrantedAuthority> authorities(UserPrincipal principal)
+    {
+        List<GrantedAuthority> authorities = new ArrayList<>(principal.getAuthorities()
+            .size());
+        for (String authority : principal.getAuthorities())
+        {
+            authorities.add(RoleIndex.authority(authority));
+        }
+        return authorities;
+    }
+}
@@ -120,14 +120,23 @@ public class UserRoles
             return false;
         }
         UserRoles that = (UserRoles) o;
-        return ((user == null) ? 0 : user.getUserid()) == ((that.user == null) ? 0 : that.user.getUserid()) &&
+        long userid = (user == null) ? 0 : user.getUserid();
+        // users not saved yet have no id, they are only the same user if they are the same object
+        return userid == ((that.user == null) ? 0 : that.user.getUserid()) &&
+            (userid != 0 || user == that.user) &&
             ((role == null) ? 0 : role.getRoleid()) == ((that.role == null) ? 0 : that.role.getRoleid());
     }
 
+    /**
+     * Hashes the role's id only. A role is always saved before users are given it, so its id never changes while the
+     * user role is in a set, where the user's id changes when a new user is saved. Within the roles of a user, the
+     * set held by the user, every role hashes differently.
+     *
+     * @return the hash code (int) of the role's id
+     */
     @Override
     public int hashCode()
     {
-        // return Objects.hash(user.getUserid(), role.getRoleid());
-        return 37;
+        return Long.hashCode((role == null) ? 0 : role.getRoleid());
     }
 }
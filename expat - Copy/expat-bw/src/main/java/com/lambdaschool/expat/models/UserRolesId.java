@@ -87,6 +87,6 @@ public class UserRolesId
     @Override
     public int hashCode()
     {
-        return 37;
+        return 31 * Long.hashCode(user) + Long.hashCode(role);
     }
 }
@@ -1,8 +1,48 @@
 package com.lambdaschool.expat.repository;
 
 import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.views.PhotoContent;
+import com.lambdaschool.expat.views.PhotoView;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PhotoRepository extends CrudRepository<Photo, Long> {}
\ No newline at end of file
+public interface PhotoRepository extends CrudRepository<Photo, Long> {
+    /**
+     * Lean views of all photos. Only the photo columns are selected.
+     *
+     * @return a list of photo views ordered by photoId
+     */
+    List<PhotoView> findAllByOrderByPhotoIdAsc();
+
+    /**
+     * Where the uploaded content of a photo is kept. Only the content columns are selected.
+     *
+     * @param photoId the primary key (long) of the photo
+     * @return the content columns of the photo, empty if there is no such photo
+     */
+    Optional<PhotoContent> findContentByPhotoId(long photoId);
+
+    /**
+     * The photos whose resized copies are still to be made, oldest first
+     *
+     * @param pageable only the page size is used. The page number should always be 0.
+     * @return the ids of the photos
+     */
+    @Query("SELECT p.photoId FROM Photo p WHERE p.variantsPending = true ORDER BY p.photoId")
+    List<Long> findPendingVariantPhotoIds(Pageable pageable);
+
+    /**
+     * Which of the given photo ids belong to a photo, checked with one query
+     *
+     * @param photoIds the ids to check
+     * @return the ids that belong to a photo
+     */
+    @Query("SELECT p.photoId FROM Photo p WHERE p.photoId IN :photoIds")
+    List<Long> findExistingPhotoIds(Collection<Long> photoIds);
+}
@@ -0,0 +1,36 @@
+package com.lambdaschool.expat.repository;
+
+import com.lambdaschool.expat.models.PhotoSize;
+import com.lambdaschool.expat.models.PhotoVariant;
+import com.lambdaschool.expat.views.PhotoContent;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PhotoVariantRepository extends CrudRepository<PhotoVariant, Long> {
+    /**
+     * Where one resized copy of a photo is kept. Only the content columns are selected.
+     *
+     * @param photoId the primary key (long) of the photo
+     * @param size    which of the sizes you seek
+     * @return the content columns of the copy, empty if it has not been made
+     */
+    @Query("SELECT ph.photoId AS photoId, v.contentHash AS contentHash, v.contentType AS contentType, " +
+        "v.contentLength AS contentLength, ph.variantsPending AS variantsPending " +
+        "FROM PhotoVariant v JOIN v.photo ph " +
+        "WHERE ph.photoId = :photoId AND v.size = :size")
+    Optional<PhotoContent> findVariantContent(long photoId, PhotoSize size);
+
+    /**
+     * The resized copies already made for other photos of the same uploaded content
+     *
+     * @param contentHash the SHA-256 hash (String) of the uploaded content
+     * @param photoId     the photo to leave out, the one the copies are wanted for
+     * @return the copies, which can be reused instead of resizing the content again
+     */
+    @Query("SELECT v FROM PhotoVariant v JOIN v.photo ph WHERE ph.contentHash = :contentHash AND ph.photoId <> :photoId")
+    List<PhotoVariant> findByContentHashOfOtherPhotos(String contentHash, long photoId);
+}
@@ -1,20 +1,132 @@
 package com.lambdaschool.expat.repository;
 
 import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.views.PostFeedItem;
+import com.lambdaschool.expat.views.PostText;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /**
  * The CRUD repository connecting Item to the rest of the application
+ * <p>
+ * The read methods that return lists of posts load the user, photo and story in the same statement
+ * through an entity graph. The user's roles and emails are batch loaded (see User), so reading a list of posts
+ * costs a fixed number of statements no matter how many posts or users are in the list.
  */
 @Repository
 public interface PostRepository extends CrudRepository<Post, Long> {
+    /**
+     * The select and joins of the lean post views (PostFeedItem): the post, its author and story, and the url and
+     * feed size of its photo. The queries returning them add their own WHERE and ORDER BY.
+     */
+    String POST_VIEW = "SELECT p.postId AS postId, p.name AS name, p.description AS description, p.createdDate AS createdDate, " +
+        "u.userid AS userId, u.username AS username, ph.photoId AS photoId, ph.name AS photoName, " +
+        "CASE WHEN ph.contentHash IS NULL THEN ph.name " +
+        "ELSE CONCAT('/photo/', str(ph.photoId), '/content?size=feed') END AS photoUrl, " +
+        "v.width AS photoWidth, v.height AS photoHeight, " +
+        "s.storyId AS storyId, s.name AS storyName " +
+        "FROM Post p JOIN p.user u JOIN p.photo ph JOIN p.story s " +
+        "LEFT JOIN ph.variants v ON v.size = com.lambdaschool.expat.models.PhotoSize.FEED ";
+
     /**
      * Find a list of items associated with a specific user
      *
      * @param userId the userId of the user assigned to each item
      * @return a list of items assigned to the user
      */
-    List<Post> findByUserUserId(long userId);
-}
\ No newline at end of file
+    @EntityGraph(attributePaths = {"user", "photo", "story"})
+    List<Post> findByUserUserid(long userId);
+
+    /**
+     * Find all posts with their user, photo and story in one statement
+     *
+     * @return a list of all posts
+     */
+    @EntityGraph(attributePaths = {"user", "photo", "story"})
+    @Query("SELECT p FROM Post p")
+    List<Post> findAllWithDetails();
+
+    /**
+     * Lean views of the posts of a specific user, newest first
+     *
+     * @param userId the userId of the user assigned to each post
+     * @return a list of post views assigned to the user
+     */
+    @Query(POST_VIEW + "WHERE u.userid = :userId " +
+        "ORDER BY p.createdDate DESC, p.postId DESC")
+    List<PostFeedItem> findPostViewsByUserid(long userId);
+
+    /**
+     * Lean view of a single post
+     *
+     * @param postId the primary key of the post you seek
+     * @return the post view if the post exists
+     */
+    @Query(POST_VIEW + "WHERE p.postId = :postId")
+    Optional<PostFeedItem> findPostViewById(long postId);
+
+    /**
+     * When a post was last modified, without reading the post itself
+     *
+     * @param postId the primary key of the post
+     * @return the date and time the post was last modified if the post exists
+     */
+    @Query("SELECT p.lastModifiedDate FROM Post p WHERE p.postId = :postId")
+    Optional<Date> findLastModifiedDateByPostId(long postId);
+
+    /**
+     * The first page of the post feed, newest first.
+     *
+     * @param pageable only the page size is used. The page number should always be 0.
+     * @return the newest posts
+     */
+    @Query(POST_VIEW + "ORDER BY p.createdDate DESC, p.postId DESC")
+    List<PostFeedItem> findFeedFirstPage(Pageable pageable);
+
+    /**
+     * The page of the post feed that follows the given position (keyset pagination).
+     * Only rows after the position are read so the cost does not grow with how deep the client has paged.
+     *
+     * @param createdDate the created date of the last post the client has seen
+     * @param postId      the post id of the last post the client has seen
+     * @param pageable    only the page size is used. The page number should always be 0.
+     * @return the posts that follow the given position
+     */
+    @Query(POST_VIEW + "WHERE p.createdDate < :createdDate " +
+        "OR (p.createdDate = :createdDate AND p.postId < :postId) " +
+        "ORDER BY p.createdDate DESC, p.postId DESC")
+    List<PostFeedItem> findFeedPageAfter(
+        Date createdDate,
+        long postId,
+        Pageable pageable);
+
+    /**
+     * Lean views of the posts with the given ids, in no particular order. Used to load a page of search results.
+     *
+     * @param postIds the primary keys of the posts you seek
+     * @return the views of the posts that exist
+     */
+    @Query(POST_VIEW + "WHERE p.postId IN :postIds")
+    List<PostFeedItem> findPostViewsByPostIdIn(Collection<Long> postIds);
+
+    /**
+     * The searchable text of the posts that follow the given post id, in post id order.
+     * Used to build the search index a batch at a time.
+     *
+     * @param postId   the post id of the last post already read, 0 for the first batch
+     * @param pageable only the page size is used. The page number should always be 0.
+     * @return the name and description of the next posts
+     */
+    @Query("SELECT p.postId AS postId, p.name AS name, p.description AS description " +
+        "FROM Post p WHERE p.postId > :postId ORDER BY p.postId")
+    List<PostText> findPostTextsAfter(
+        long postId,
+        Pageable pageable);
+}
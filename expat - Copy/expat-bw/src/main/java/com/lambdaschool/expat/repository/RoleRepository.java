@@ -1,11 +1,17 @@
 package com.lambdaschool.expat.repository;
 
 import com.lambdaschool.expat.models.Role;
+import com.lambdaschool.expat.views.RoleView;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * The CRUD Repository connecting Role to the rest of the application
  */
@@ -13,13 +19,39 @@ public interface RoleRepository
     extends CrudRepository<Role, Long>
 {
     /**
-     * JPA Query to find a role by name case insensitive search
+     * JPA Query to find a role by name case insensitive search.
+     * Runs on every new user sign up, so the result is kept in the query cache.
      *
      * @param name the name of the role which you seek
      * @return the first role matching the given name using a case insensitive search
      */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE,
+        value = "true"))
     Role findByNameIgnoreCase(String name);
 
+    /**
+     * Lean views of all roles. The users of each role are not loaded.
+     *
+     * @return list of role views ordered by roleid
+     */
+    List<RoleView> findAllByOrderByRoleidAsc();
+
+    /**
+     * Lean view of the role with the given primary key
+     *
+     * @param roleid the primary key (long) of the role you seek
+     * @return the role view if the role exists
+     */
+    Optional<RoleView> findViewByRoleid(long roleid);
+
+    /**
+     * Lean view of the role with the given name, case insensitive search
+     *
+     * @param name the name of the role which you seek
+     * @return the role view if the role exists
+     */
+    Optional<RoleView> findViewByNameIgnoreCase(String name);
+
     /**
      * Updates the name of the role based on the given role id.
      *
@@ -1,8 +1,58 @@
 package com.lambdaschool.expat.repository;
 
 import com.lambdaschool.expat.models.Story;
+import com.lambdaschool.expat.views.StoryCategoryList;
+import com.lambdaschool.expat.views.TypeaheadMatch;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface StoryRepository extends CrudRepository<Story, Long> {}
\ No newline at end of file
+public interface StoryRepository extends CrudRepository<Story, Long> {
+    /**
+     * The id and name of every story, ordered by name
+     *
+     * @return a list of story categories
+     */
+    @Query("SELECT s.storyId AS story_id, s.name AS story_name FROM Story s ORDER BY s.name")
+    List<StoryCategoryList> getStoryCategoryList();
+
+    /**
+     * The ids and names of the stories that follow the given story id, in story id order.
+     * Used to build the typeahead suggestions a batch at a time.
+     *
+     * @param storyId  the story id of the last story already read, 0 for the first batch
+     * @param pageable only the page size is used. The page number should always be 0.
+     * @return the ids and names of the next stories
+     */
+    @Query("SELECT new com.lambdaschool.expat.views.TypeaheadMatch(s.storyId, s.name) " +
+        "FROM Story s WHERE s.storyId > :storyId ORDER BY s.storyId")
+    List<TypeaheadMatch> findTypeaheadAfter(
+        long storyId,
+        Pageable pageable);
+
+    /**
+     * The ids and names of the stories whose name starts with the given prefix ignoring case, in name order
+     *
+     * @param prefix   the lowercase prefix (String), with \, % and _ escaped by \
+     * @param pageable only the page size is used. The page number should always be 0.
+     * @return the ids and names of the matching stories
+     */
+    @Query("SELECT new com.lambdaschool.expat.views.TypeaheadMatch(s.storyId, s.name) " +
+        "FROM Story s WHERE LOWER(s.name) LIKE CONCAT(:prefix, '%') ESCAPE '\\' ORDER BY LOWER(s.name), s.storyId")
+    List<TypeaheadMatch> findTypeaheadByNameStartingWith(
+        String prefix,
+        Pageable pageable);
+
+    /**
+     * Which of the given story ids belong to a story, checked with one query
+     *
+     * @param storyIds the ids to check
+     * @return the ids that belong to a story
+     */
+    @Query("SELECT s.storyId FROM Story s WHERE s.storyId IN :storyIds")
+    List<Long> findExistingStoryIds(Collection<Long> storyIds);
+}
@@ -1,7 +1,13 @@
 package com.lambdaschool.expat.repository;
 
 import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.views.TypeaheadMatch;
+import com.lambdaschool.expat.views.UserSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -26,4 +32,60 @@ public interface UserRepository
      * @return List of users whose name contain the given substring ignoring case
      */
     List<User> findByUsernameContainingIgnoreCase(String name);
+
+    /**
+     * Lean views of all users. Only the user columns are selected.
+     *
+     * @return List of user summaries ordered by userid
+     */
+    List<UserSummary> findAllByOrderByUseridAsc();
+
+    /**
+     * Lean views of all users whose name contains a given substring ignoring case
+     *
+     * @param name the substring of the names (String) you seek
+     * @return List of user summaries whose name contain the given substring ignoring case
+     */
+    List<UserSummary> findSummariesByUsernameContainingIgnoreCase(String name);
+
+    /**
+     * Replaces the password hash of the given user
+     *
+     * @param username The name (String) of the user whose password changes
+     * @param password The new password hash (String)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    void updatePassword(
+        String username,
+        String password);
+
+    /**
+     * The ids and usernames of the users that follow the given user id, in user id order.
+     * Used to build the typeahead suggestions a batch at a time.
+     *
+     * @param userid   the user id of the last user already read, 0 for the first batch
+     * @param pageable only the page size is used. The page number should always be 0.
+     * @return the ids and usernames of the next users
+     */
+    @Query("SELECT new com.lambdaschool.expat.views.TypeaheadMatch(u.userid, u.username) " +
+        "FROM User u WHERE u.userid > :userid ORDER BY u.userid")
+    List<TypeaheadMatch> findTypeaheadAfter(
+        long userid,
+        Pageable pageable);
+
+    /**
+     * The ids and usernames of the users whose username starts with the given prefix, in username order.
+     * Usernames are stored in lowercase.
+     *
+     * @param prefix   the lowercase prefix (String), with \, % and _ escaped by \
+     * @param pageable only the page size is used. The page number should always be 0.
+     * @return the ids and usernames of the matching users
+     */
+    @Query("SELECT new com.lambdaschool.expat.views.TypeaheadMatch(u.userid, u.username) " +
+        "FROM User u WHERE u.username LIKE CONCAT(:prefix, '%') ESCAPE '\\' ORDER BY u.username, u.userid")
+    List<TypeaheadMatch> findTypeaheadByUsernameStartingWith(
+        String prefix,
+        Pageable pageable);
 }
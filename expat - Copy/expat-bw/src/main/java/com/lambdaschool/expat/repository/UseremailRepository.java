@@ -1,12 +1,35 @@
 package com.lambdaschool.expat.repository;
 
 import com.lambdaschool.expat.models.Useremail;
+import com.lambdaschool.expat.views.UseremailView;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * The CRUD Repository connecting Useremail to the rest of the application
  */
 public interface UseremailRepository
     extends CrudRepository<Useremail, Long>
 {
+    /**
+     * Lean views of all user email combinations with the id and name of their user, in one statement
+     *
+     * @return list of user email views ordered by useremailid
+     */
+    @Query("SELECT ue.useremailid AS useremailid, ue.useremail AS useremail, u.userid AS userid, u.username AS username " +
+        "FROM Useremail ue JOIN ue.user u ORDER BY ue.useremailid")
+    List<UseremailView> findAllViews();
+
+    /**
+     * Lean view of the user email combination with the given primary key
+     *
+     * @param useremailid the primary key (long) of the user email combination you seek
+     * @return the user email view if it exists
+     */
+    @Query("SELECT ue.useremailid AS useremailid, ue.useremail AS useremail, u.userid AS userid, u.username AS username " +
+        "FROM Useremail ue JOIN ue.user u WHERE ue.useremailid = :useremailid")
+    Optional<UseremailView> findViewById(long useremailid);
 }
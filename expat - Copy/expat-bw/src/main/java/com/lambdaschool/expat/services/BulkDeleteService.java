@@ -0,0 +1,62 @@
+package com.lambdaschool.expat.services;
+
+/**
+ * The Service that removes rows in sets rather than one entity at a time.
+ * <p>
+ * Each method deletes the rows that depend on what is removed first (posts, photo variants, user emails, user roles),
+ * so no entity or collection is loaded to cascade the delete. Rows go in chunks of bulk.delete.chunk.size, each chunk
+ * in its own transaction, so no transaction grows with the size of the tables. A method stopped part way leaves
+ * whole chunks deleted and can be called again to finish.
+ */
+public interface BulkDeleteService {
+    /**
+     * Deletes every post
+     *
+     * @return the number of rows deleted
+     */
+    long deleteAllPosts();
+
+    /**
+     * Deletes a photo, its variants and the posts using it
+     *
+     * @param photoId the primary key (long) of the photo
+     * @return the number of rows deleted
+     */
+    long deletePhoto(long photoId);
+
+    /**
+     * Deletes every photo, with every photo variant and post
+     *
+     * @return the number of rows deleted
+     */
+    long deleteAllPhotos();
+
+    /**
+     * Deletes a story and the posts telling it
+     *
+     * @param storyId the primary key (long) of the story
+     * @return the number of rows deleted
+     */
+    long deleteStory(long storyId);
+
+    /**
+     * Deletes every story, with every post
+     *
+     * @return the number of rows deleted
+     */
+    long deleteAllStories();
+
+    /**
+     * Deletes every user, with their posts, emails and roles
+     *
+     * @return the number of rows deleted
+     */
+    long deleteAllUsers();
+
+    /**
+     * Deletes every role and the users' hold on them
+     *
+     * @return the number of rows deleted
+     */
+    long deleteAllRoles();
+}
@@ -0,0 +1,255 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.PhotoVariant;
+import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.models.Role;
+import com.lambdaschool.expat.models.Story;
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.models.UserRoles;
+import com.lambdaschool.expat.models.Useremail;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.function.LongConsumer;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implements the BulkDeleteService Interface
+ * <p>
+ * Every delete is a list of steps run in order, each removing the rows of one entity that match a condition. A step
+ * reads the keys of up to a chunk of matching rows and deletes the rows with those keys in one statement, in a new
+ * transaction, until no row matches. Within the chunk's transaction it also marks the entity as changed (see
+ * ResourceVersionService) and takes the deleted posts, users and stories out of the search and typeahead indexes.
+ * Progress is logged after every chunk and counted in the bulk.delete.rows meter, tagged by entity.
+ */
+@Service(value = "bulkDeleteService")
+public class BulkDeleteServiceImpl implements BulkDeleteService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkDeleteServiceImpl.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ResourceVersionService resourceVersionService;
+
+    private final PostSearchService postSearchService;
+
+    private final TypeaheadService typeaheadService;
+
+    private final FeedSnapshotService feedSnapshotService;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Runs every chunk in a transaction of its own, even when the caller has one
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The largest number of keys read and deleted per transaction
+     */
+    private final int chunkSize;
+
+    /**
+     * Deletes every post, or those of one photo or story
+     */
+    private final Step posts;
+
+    public BulkDeleteServiceImpl(
+            ResourceVersionService resourceVersionService,
+            PostSearchService postSearchService,
+            TypeaheadService typeaheadService,
+            FeedSnapshotService feedSnapshotService,
+            MeterRegistry meterRegistry,
+            PlatformTransactionManager transactionManager,
+            @Value("${bulk.delete.chunk.size:1000}") int chunkSize) {
+        this.resourceVersionService = resourceVersionService;
+        this.postSearchService = postSearchService;
+        this.typeaheadService = typeaheadService;
+        this.feedSnapshotService = feedSnapshotService;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = Math.max(1, chunkSize);
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.posts = new Step(Post.class, "postId", null, postSearchService::remove);
+    }
+
+    @Override
+    public long deleteAllPosts() {
+        return delete("all posts", null, posts);
+    }
+
+    @Override
+    public long deletePhoto(long photoId) {
+        return delete("photo " + photoId, photoId,
+                posts.where("e.photo.photoId = :id"),
+                new Step(PhotoVariant.class, "variantId", "e.photo.photoId = :id", null),
+                new Step(Photo.class, "photoId", "e.photoId = :id", null));
+    }
+
+    @Override
+    public long deleteAllPhotos() {
+        return delete("all photos", null,
+                posts,
+                new Step(PhotoVariant.class, "variantId", null, null),
+                new Step(Photo.class, "photoId", null, null));
+    }
+
+    @Override
+    public long deleteStory(long storyId) {
+        return delete("story " + storyId, storyId,
+                posts.where("e.story.storyId = :id"),
+                new Step(Story.class, "storyId", "e.storyId = :id", typeaheadService::removeStory));
+    }
+
+    @Override
+    public long deleteAllStories() {
+        return delete("all stories", null,
+                posts,
+                new Step(Story.class, "storyId", null, typeaheadService::removeStory));
+    }
+
+    @Override
+    public long deleteAllUsers() {
+        return delete("all users", null,
+                posts,
+                new Step(Useremail.class, "useremailid", null, null),
+                new Step(UserRoles.class, "user.userid", null, null),
+                new Step(User.class, "userid", null, typeaheadService::removeUser));
+    }
+
+    @Override
+    public long deleteAllRoles() {
+        return delete("all roles", null,
+                new Step(UserRoles.class, "role.roleid", null, null),
+                new Step(Role.class, "roleid", null, null));
+    }
+
+    /**
+     * Runs the steps of a delete in order
+     *
+     * @param name  what is deleted (String), for the log
+     * @param id    the value (Long) of the :id parameter of the steps' conditions, null when they have none
+     * @param steps the steps, each one deleting rows the ones after it depend on
+     * @return the number of rows deleted by all the steps
+     */
+    private long delete(String name, Long id, Step... steps) {
+        long deleted = 0;
+        boolean postsDeleted = false;
+        for (Step step : steps) {
+            long rows = run(name, id, step);
+            deleted += rows;
+            postsDeleted |= step.entity == Post.class && rows > 0;
+        }
+        if (postsDeleted) {
+            feedSnapshotService.refresh();
+        }
+        logger.info("Deleting {}: done, {} rows deleted", name, deleted);
+        return deleted;
+    }
+
+    /**
+     * Deletes the rows matching a step, a chunk per transaction
+     *
+     * @param name what is deleted (String), for the log
+     * @param id   the value (Long) of the :id parameter of the step's condition, null when it has none
+     * @param step the step
+     * @return the number of rows deleted
+     */
+    private long run(String name, Long id, Step step) {
+        String entity = step.entity.getSimpleName();
+        Long total = transactionTemplate.execute(status -> bind(entityManager.createQuery(
+                "SELECT COUNT(e) FROM " + entity + " e" + step.condition(), Long.class), id).getSingleResult());
+        if (total == null || total == 0) {
+            return 0;
+        }
+
+        long deleted = 0;
+        while (true) {
+            Integer rows = transactionTemplate.execute(status -> {
+                List<Long> keys = bind(entityManager.createQuery(
+                        "SELECT DISTINCT e." + step.key + " FROM " + entity + " e" + step.condition(), Long.class), id)
+                        .setMaxResults(chunkSize)
+                        .getResultList();
+                if (keys.isEmpty()) {
+                    return 0;
+                }
+                int count = entityManager.createQuery("DELETE FROM " + entity + " e WHERE e." + step.key + " IN :keys")
+                        .setParameter("keys", keys)
+                        .executeUpdate();
+                resourceVersionService.changed(step.entity);
+                if (step.removed != null) {
+                    keys.forEach(key -> step.removed.accept(key));
+                }
+                return count;
+            });
+            // nothing left, or the rows found went before they could be deleted
+            if (rows == null || rows == 0) {
+                break;
+            }
+            deleted += rows;
+            meterRegistry.counter("bulk.delete.rows", "entity", entity).increment(rows);
+            logger.info("Deleting {}: {} of {} {} rows deleted", name, deleted, Math.max(deleted, total), entity);
+        }
+        return deleted;
+    }
+
+    /**
+     * Sets the :id parameter of a query whose condition has one
+     *
+     * @param query the query
+     * @param id    the value (Long) of the parameter, null when the condition has none
+     * @return the query
+     */
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, Long id) {
+        return id == null ? query : query.setParameter("id", id);
+    }
+
+    /**
+     * The rows of one entity to delete: those matching a condition, deleted by key. The key does not have to be
+     * unique, every row with a key read is deleted, user roles are deleted by user or by role.
+     */
+    private static final class Step {
+        private final Class<?> entity;
+
+        /**
+         * The path (String) of the key from the entity, a long
+         */
+        private final String key;
+
+        /**
+         * The JPQL condition (String) on the entity, aliased e, null for every row
+         */
+        private final String where;
+
+        /**
+         * Told about each key deleted, inside the chunk's transaction, or null
+         */
+        private final LongConsumer removed;
+
+        private Step(Class<?> entity, String key, String where, LongConsumer removed) {
+            this.entity = entity;
+            this.key = key;
+            this.where = where;
+            this.removed = removed;
+        }
+
+        private Step where(String where) {
+            return new Step(entity, key, where, removed);
+        }
+
+        private String condition() {
+            return where == null ? "" : " WHERE " + where;
+        }
+    }
+}
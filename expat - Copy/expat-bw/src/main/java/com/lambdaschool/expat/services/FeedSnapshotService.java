@@ -0,0 +1,39 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.FeedSnapshotPage;
+import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.PhotoVariant;
+import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.models.Story;
+import com.lambdaschool.expat.models.User;
+
+/**
+ * The Service that keeps the first pages of the post feed (/posts) already turned into JSON, so the most read pages
+ * are written straight from memory instead of being queried and serialized for every request.
+ * <p>
+ * The snapshot is rebuilt in the background whenever the feed changes. Until the new one is ready the old one is
+ * still served, for at most feed.snapshot.max.stale.ms.
+ */
+public interface FeedSnapshotService {
+    /**
+     * The entities read by the feed. A change to any of them makes the feed, and its snapshot, out of date.
+     */
+    Class<?>[] FEED_ENTITIES = { Post.class, User.class, Photo.class, PhotoVariant.class, Story.class };
+
+    /**
+     * Returns a page of the feed from the snapshot. Only pages of the configured size (feed.page.size) reached by
+     * following the cursors from the first page are kept.
+     *
+     * @param cursor the cursor of the page, null for the first page
+     * @param size   the number of posts asked for, 0 for the configured size
+     * @return the page or null when it is not in the snapshot, or the snapshot is too far out of date, and has to be
+     * read from the database
+     */
+    FeedSnapshotPage find(String cursor, int size);
+
+    /**
+     * Asks for the snapshot to be rebuilt in the background. Inside a transaction, this happens once the transaction
+     * commits.
+     */
+    void refresh();
+}
@@ -0,0 +1,246 @@
+package com.lambdaschool.expat.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambdaschool.expat.models.FeedSnapshotPage;
+import com.lambdaschool.expat.models.PostFeedPage;
+import com.lambdaschool.expat.models.ResourceVersion;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Implements the FeedSnapshotService Interface
+ * <p>
+ * The snapshot holds feed.snapshot.pages pages and is replaced as a whole, readers use whichever snapshot was current
+ * when they looked. It is rebuilt on a single background thread: after a post is saved, updated or deleted, when
+ * a reader finds that the posts, users, photos or stories changed since it was built (see ResourceVersionService),
+ * and when a reader finds it older than feed.snapshot.max.age.ms. The versions are shared by every instance, so
+ * changes made by another instance are noticed once this one reads them back; the age bounds how long a change
+ * that was never recorded as a version can go unseen. However many changes arrive, at most one rebuild runs and one
+ * more waits.
+ * <p>
+ * Reading a page from an up to date snapshot creates no objects, the page is written straight to the response.
+ */
+@Service(value = "feedSnapshotService")
+public class FeedSnapshotServiceImpl implements FeedSnapshotService, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(FeedSnapshotServiceImpl.class);
+
+    /**
+     * Reads the feed pages. Looked up when first needed, PostServiceImpl depends on this service.
+     */
+    private final ObjectProvider<PostService> postService;
+
+    private final ResourceVersionService resourceVersionService;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The number of posts on a snapshot page, the feed's default page size
+     */
+    private final int pageSize;
+
+    /**
+     * The number of pages kept, from the first
+     */
+    private final int pageCount;
+
+    /**
+     * Whether a gzipped copy of each page is kept
+     */
+    private final boolean gzip;
+
+    /**
+     * How long an out of date snapshot is still served while the new one is built
+     */
+    private final long maxStaleMillis;
+
+    /**
+     * How old a snapshot can get before a reader has it rebuilt, whether or not the versions changed
+     */
+    private final long maxAgeMillis;
+
+    /**
+     * The single thread the snapshot is rebuilt on
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * True while a rebuild is waiting to start, so changes arriving together ask for one rebuild
+     */
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    /**
+     * The current snapshot, null until the first one is built
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * When the current snapshot was first found out of date, 0 while it is up to date
+     */
+    private volatile long staleSince;
+
+    public FeedSnapshotServiceImpl(
+            ObjectProvider<PostService> postService,
+            ResourceVersionService resourceVersionService,
+            ObjectMapper objectMapper,
+            @Value("${feed.page.size:20}") int pageSize,
+            @Value("${feed.snapshot.pages:5}") int pageCount,
+            @Value("${feed.snapshot.gzip:true}") boolean gzip,
+            @Value("${feed.snapshot.max.stale.ms:10000}") long maxStaleMillis,
+            @Value("${feed.snapshot.max.age.ms:60000}") long maxAgeMillis) {
+        this.postService = postService;
+        this.resourceVersionService = resourceVersionService;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+        this.pageCount = pageCount;
+        this.gzip = gzip;
+        this.maxStaleMillis = maxStaleMillis;
+        this.maxAgeMillis = maxAgeMillis;
+
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), r -> {
+            Thread t = new Thread(r, "feed-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public FeedSnapshotPage find(String cursor, int size) {
+        if (pageCount < 1 || (size != 0 && size != pageSize)) {
+            return null;
+        }
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuildLater();
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (current.changes != resourceVersionService.changes(FEED_ENTITIES) || now - current.builtAt > maxAgeMillis) {
+            if (staleSince == 0) {
+                staleSince = now;
+            }
+            rebuildLater();
+            if (now - staleSince > maxStaleMillis) {
+                return null;
+            }
+        }
+        return current.pages.get(cursor == null ? "" : cursor);
+    }
+
+    @Override
+    public void refresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuildLater();
+                }
+            });
+        } else {
+            rebuildLater();
+        }
+    }
+
+    /**
+     * Hands a rebuild to the background thread unless one is already waiting
+     */
+    private void rebuildLater() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::rebuild);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                rebuildQueued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Reads the first pages of the feed and replaces the snapshot with them. The version is read before the pages,
+     * so a change made while they are read makes the new snapshot out of date rather than being missed.
+     */
+    private void rebuild() {
+        rebuildQueued.set(false);
+        long builtAt = System.currentTimeMillis();
+        long changes = resourceVersionService.changes(FEED_ENTITIES);
+        ResourceVersion version = resourceVersionService.find(FEED_ENTITIES);
+        String etag = resourceVersionService.etag("posts", version);
+
+        Map<String, FeedSnapshotPage> pages = new HashMap<>();
+        try {
+            String cursor = null;
+            for (int i = 0; i < pageCount; i++) {
+                PostFeedPage page = postService.getObject().findFeedPage(cursor, pageSize);
+                byte[] json = objectMapper.writeValueAsBytes(page);
+                pages.put(cursor == null ? "" : cursor,
+                        new FeedSnapshotPage(json, gzip ? gzip(json) : null, etag, version.getLastModified()));
+                cursor = page.getNext();
+                if (cursor == null) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // the old snapshot stays, the next reader to find it out of date asks again
+            logger.warn("Could not rebuild the feed snapshot", e);
+            return;
+        }
+
+        snapshot = new Snapshot(changes, builtAt, Collections.unmodifiableMap(pages));
+        staleSince = 0;
+    }
+
+    /**
+     * Gzips some bytes
+     *
+     * @param bytes the bytes to gzip
+     * @return the gzipped bytes
+     * @throws IOException never, the bytes are written to memory
+     */
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * The pages of one snapshot, by the cursor that leads to them ("" for the first page), and the number of changes
+     * to the feed entities and the time (epoch milliseconds) when it was built
+     */
+    private static final class Snapshot {
+        private final long changes;
+
+        private final long builtAt;
+
+        private final Map<String, FeedSnapshotPage> pages;
+
+        private Snapshot(long changes, long builtAt, Map<String, FeedSnapshotPage> pages) {
+            this.changes = changes;
+            this.builtAt = builtAt;
+            this.pages = pages;
+        }
+    }
+}
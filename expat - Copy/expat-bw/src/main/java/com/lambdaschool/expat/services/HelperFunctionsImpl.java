@@ -1,10 +1,14 @@
 package com.lambdaschool.expat.services;
 
 import com.lambdaschool.expat.exceptions.ResourceNotFoundException;
+import com.lambdaschool.expat.models.RoleIndex;
+import com.lambdaschool.expat.models.UserPrincipal;
 import com.lambdaschool.expat.models.ValidationError;
 import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.FieldError;
@@ -17,6 +21,14 @@ import java.util.List;
 public class HelperFunctionsImpl
     implements HelperFunctions
 {
+    private static final Logger logger = LoggerFactory.getLogger(HelperFunctionsImpl.class);
+
+    /**
+     * Finds the principal of users who signed on before their authentication carried it
+     */
+    @Autowired
+    private UserPrincipalService userPrincipalService;
+
     public List<ValidationError> getConstraintViolation(Throwable cause)
     {
         // Find any data violations that might be associated with the error and report them
@@ -25,8 +37,8 @@ public class HelperFunctionsImpl
         // to see if we have any violation constraints.
         while ((cause != null) && !(cause instanceof ConstraintViolationException || cause instanceof MethodArgumentNotValidException))
         {
-            System.out.println(cause.getClass()
-                .toString());
+            logger.debug("Looking for constraint violations past {}",
+                cause.getClass());
             cause = cause.getCause();
         }
 
@@ -58,7 +70,7 @@ public class HelperFunctionsImpl
                     }
                 } else
                 {
-                    System.out.println("Error in producing constraint violations exceptions. " +
+                    logger.error("Error in producing constraint violations exceptions. " +
                         "If we see this in the console a major logic error has occurred in the " +
                         "helperfunction.getConstraintViolation method that we should investigate. " +
                         "Note the application will keep running as this only affects exception reporting!");
@@ -72,14 +84,13 @@ public class HelperFunctionsImpl
     public boolean isAuthorizedToMakeChange(String username)
     {
         // Check to see if the user whose information being requested is the current user
-        // Check to see if the requesting user is an admin
+        // Check to see if the requesting user is an admin, from the role bits of the principal
         // if either is true, return true
         // otherwise stop the process and throw an exception
+        // Neither check creates objects nor goes to the database
         Authentication authentication = SecurityContextHolder.getContext()
             .getAuthentication();
-        if (username.equalsIgnoreCase(authentication.getName()
-            .toLowerCase()) || authentication.getAuthorities()
-            .contains(new SimpleGrantedAuthority("ROLE_ADMIN")))
+        if (username.equalsIgnoreCase(authentication.getName()) || isAdmin(authentication))
         {
             // this user can make this change
             return true;
@@ -90,4 +101,20 @@ public class HelperFunctionsImpl
         }
     }
 
+    /**
+     * Checks whether the authenticated user holds the admin role
+     *
+     * @param authentication the authentication of the current request
+     * @return true if the user is an admin
+     */
+    private boolean isAdmin(Authentication authentication)
+    {
+        UserPrincipal principal = UserPrincipal.of(authentication);
+        if (principal == null)
+        {
+            principal = userPrincipalService.findByAuthentication(authentication);
+        }
+        return principal.hasRole(RoleIndex.ADMIN);
+    }
+
 }
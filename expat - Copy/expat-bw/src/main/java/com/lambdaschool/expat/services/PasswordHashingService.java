@@ -0,0 +1,23 @@
+package com.lambdaschool.expat.services;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The Service that hashes and verifies passwords. This is the password encoder used throughout the application.
+ * <p>
+ * Hashes are BCrypt hashes which record the cost they were made with, so hashes made with a lower cost than the
+ * one configured are upgraded when their user logs in.
+ */
+public interface PasswordHashingService
+    extends PasswordEncoder
+{
+    /**
+     * Hashes the password without making the caller wait for it
+     *
+     * @param rawPassword the plain text password (CharSequence) to hash
+     * @return the hash (String) once it is done
+     */
+    CompletableFuture<String> encodeAsync(CharSequence rawPassword);
+}
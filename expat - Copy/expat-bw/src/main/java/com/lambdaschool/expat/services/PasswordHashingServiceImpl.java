@@ -0,0 +1,147 @@
+package com.lambdaschool.expat.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implements the PasswordHashingService Interface
+ * <p>
+ * BCrypt is deliberately slow, so hashing and verifying run on a small, bounded pool of threads instead of on
+ * whichever request thread asked for them. However many signups or logins arrive at once, at most
+ * password.hash.threads cores are busy hashing. Requests beyond the pool and its queue are turned away rather than
+ * piling up. Every hash and verify is timed (password.hash and password.verify) so capacity can be sized from the metrics.
+ */
+@Service(value = "passwordHashingService")
+public class PasswordHashingServiceImpl
+    implements PasswordHashingService,
+               DisposableBean
+{
+    /**
+     * Does the actual hashing with the configured cost
+     */
+    private final BCryptPasswordEncoder bcrypt;
+
+    /**
+     * The bounded pool the hashing runs on
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Time spent hashing passwords
+     */
+    private final Timer hashTimer;
+
+    /**
+     * Time spent verifying passwords
+     */
+    private final Timer verifyTimer;
+
+    public PasswordHashingServiceImpl(
+        @Value("${password.bcrypt.cost:10}") int cost,
+        @Value("${password.hash.threads:0}") int threads,
+        @Value("${password.hash.queue.size:100}") int queueSize,
+        MeterRegistry meterRegistry)
+    {
+        this.bcrypt = new BCryptPasswordEncoder(cost);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime()
+            .availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize,
+            poolSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            r ->
+            {
+                Thread t = new Thread(r,
+                    "password-hash-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+        this.hashTimer = Timer.builder("password.hash")
+            .description("Time spent hashing passwords")
+            .tag("cost",
+                String.valueOf(cost))
+            .register(meterRegistry);
+        this.verifyTimer = Timer.builder("password.verify")
+            .description("Time spent verifying passwords")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword)
+    {
+        return CompletableFuture.supplyAsync(() -> hashTimer.record(() -> bcrypt.encode(rawPassword)),
+            executor);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword)
+    {
+        return await(encodeAsync(rawPassword));
+    }
+
+    @Override
+    public boolean matches(
+        CharSequence rawPassword,
+        String encodedPassword)
+    {
+        return await(CompletableFuture.supplyAsync(() -> verifyTimer.record(() -> bcrypt.matches(rawPassword,
+            encodedPassword)),
+            executor));
+    }
+
+    /**
+     * True when the hash was made with a lower cost than the one configured. Checked by Spring Security after
+     * each successful login, which then stores a new hash of the password the user just gave.
+     *
+     * @param encodedPassword the stored hash (String)
+     * @return true if the hash should be replaced
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword)
+    {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Waits for the pool to finish the work, unwrapping any exception it threw
+     *
+     * @param work the work handed to the pool
+     * @param <T>  the type of the result
+     * @return the result of the work
+     */
+    private <T> T await(CompletableFuture<T> work)
+    {
+        try
+        {
+            return work.join();
+        } catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        executor.shutdown();
+    }
+}
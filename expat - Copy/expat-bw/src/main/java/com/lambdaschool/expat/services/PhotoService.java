@@ -1,13 +1,51 @@
 package com.lambdaschool.expat.services;
 
 import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.PhotoSize;
+import com.lambdaschool.expat.views.PhotoContent;
+import com.lambdaschool.expat.views.PhotoView;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 public interface PhotoService {
     List<Photo> findAllPhotos();
 
+    List<PhotoView> findAllPhotoViews();
+
     Photo findByPhotoId(long photoId);
 
+    /**
+     * Stores uploaded content in the photo store and adds a photo for it
+     *
+     * @param name        the name (String) of the photo, usually the name of the uploaded file
+     * @param contentType the media type (String) of the content. Must be one of photo.upload.content.types.
+     * @param content     the content, read to the end as it is stored
+     * @return the new photo
+     * @throws IOException if the content cannot be read or stored
+     */
+    Photo save(String name, String contentType, InputStream content) throws IOException;
+
+    /**
+     * Finds where the uploaded content of a photo is kept
+     *
+     * @param photoId the primary key (long) of the photo
+     * @return the hash, media type and length of the content
+     * @throws com.lambdaschool.expat.exceptions.ResourceNotFoundException if there is no such photo or it has no uploaded content
+     */
+    PhotoContent findPhotoContent(long photoId);
+
+    /**
+     * Finds where one size of the uploaded content of a photo is kept. The original is returned while the sizes are
+     * still to be made, or when the content could not be resized.
+     *
+     * @param photoId the primary key (long) of the photo
+     * @param size    which of the sizes you seek
+     * @return the hash, media type and length of the content
+     * @throws com.lambdaschool.expat.exceptions.ResourceNotFoundException if there is no such photo or it has no uploaded content
+     */
+    PhotoContent findPhotoContent(long photoId, PhotoSize size);
+
     void delete(long photoId);
 
     void deleteAll();
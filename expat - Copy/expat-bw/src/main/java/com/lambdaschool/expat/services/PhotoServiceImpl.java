@@ -1,12 +1,29 @@
 package com.lambdaschool.expat.services;
 
+import com.lambdaschool.expat.config.CacheConfig;
+import com.lambdaschool.expat.exceptions.ResourceFoundException;
 import com.lambdaschool.expat.exceptions.ResourceNotFoundException;
 import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.PhotoBlob;
+import com.lambdaschool.expat.models.PhotoSize;
 import com.lambdaschool.expat.repository.PhotoRepository;
+import com.lambdaschool.expat.repository.PhotoVariantRepository;
+import com.lambdaschool.expat.views.PhotoContent;
+import com.lambdaschool.expat.views.PhotoView;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 @Transactional
 @Service(value = "marketService")
@@ -17,14 +34,58 @@ public class PhotoServiceImpl implements PhotoService {
      */
     private final PhotoRepository photoRepository;
 
-    public PhotoServiceImpl(PhotoRepository photoRepository) {
+    /**
+     * Connects this service to the photo_variants table
+     */
+    private final PhotoVariantRepository photoVariantRepository;
+
+    /**
+     * Keeps the content of uploaded photos
+     */
+    private final PhotoStorageService photoStorageService;
+
+    /**
+     * Makes the resized copies of uploaded photos
+     */
+    private final PhotoVariantService photoVariantService;
+
+    /**
+     * Deletes photos together with their variants and posts, in chunks
+     */
+    private final BulkDeleteService bulkDeleteService;
+
+    /**
+     * The media types photos can be uploaded as
+     */
+    private final Set<String> contentTypes;
+
+    /**
+     * The largest upload accepted, in bytes
+     */
+    private final long maxBytes;
+
+    public PhotoServiceImpl(
+            PhotoRepository photoRepository,
+            PhotoVariantRepository photoVariantRepository,
+            PhotoStorageService photoStorageService,
+            PhotoVariantService photoVariantService,
+            BulkDeleteService bulkDeleteService,
+            @Value("${photo.upload.content.types:image/jpeg,image/png,image/gif,image/webp}") Set<String> contentTypes,
+            @Value("${photo.upload.max.bytes:10485760}") long maxBytes) {
         this.photoRepository = photoRepository;
+        this.photoVariantRepository = photoVariantRepository;
+        this.photoStorageService = photoStorageService;
+        this.photoVariantService = photoVariantService;
+        this.bulkDeleteService = bulkDeleteService;
+        this.contentTypes = contentTypes;
+        this.maxBytes = maxBytes;
     }
 
     /**
      * Finds a list of all markets in the database
      * @return a list of all markets in the database
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Photo> findAllPhotos() {
         List<Photo> photoList = new ArrayList<>();
@@ -32,11 +93,24 @@ public class PhotoServiceImpl implements PhotoService {
         return photoList;
     }
 
+    /**
+     * Finds lean views of all photos. The posts of each photo are not loaded.
+     * The list is cached until a photo is saved, updated or removed, or the cache entry expires.
+     * @return a list of views of all photos in the database
+     */
+    @Cacheable(CacheConfig.PHOTOS)
+    @Transactional(readOnly = true)
+    @Override
+    public List<PhotoView> findAllPhotoViews() {
+        return photoRepository.findAllByOrderByPhotoIdAsc();
+    }
+
     /**
      * Finds the specified market based on the marketId provided
      * @param photoId the marketId associated with the object you seek
      * @return returns the market object associated with the provided marketId
      */
+    @Transactional(readOnly = true)
     @Override
     public Photo findByPhotoId(long photoId) {
         return photoRepository
@@ -47,24 +121,107 @@ public class PhotoServiceImpl implements PhotoService {
                 );
     }
 
+    /**
+     * Streams the content to the photo store, then adds the photo. No transaction is held while the content is read,
+     * which can take as long as the client takes to send it. The resized copies are made in the background.
+     * @param name the name (String) of the photo, usually the name of the uploaded file
+     * @param contentType the media type (String) of the content
+     * @param content the content of the photo
+     * @return the new photo
+     * @throws IOException if the content cannot be read or stored
+     */
+    @CacheEvict(cacheNames = CacheConfig.PHOTOS, allEntries = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public Photo save(String name, String contentType, InputStream content) throws IOException {
+        String type = toContentType(contentType);
+        PhotoBlob blob = photoStorageService.store(content, maxBytes);
+
+        Photo photo = new Photo(StringUtils.hasText(name) ? StringUtils.getFilename(name) : blob.getHash());
+        photo.setContentHash(blob.getHash());
+        photo.setContentType(type);
+        photo.setContentLength(blob.getLength());
+        photo.setVariantsPending(true);
+        Photo saved = photoRepository.save(photo);
+        photoVariantService.submit(saved.getPhotoId());
+        return saved;
+    }
+
+    /**
+     * Finds where the uploaded content of a photo is kept
+     * @param photoId the primary key (long) of the photo
+     * @return the hash, media type and length of the content
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public PhotoContent findPhotoContent(long photoId) {
+        PhotoContent content = photoRepository
+                .findContentByPhotoId(photoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Photo ID " + photoId + " not found!"));
+        if (content.getContentHash() == null) {
+            throw new ResourceNotFoundException("Photo ID " + photoId + " has no uploaded content");
+        }
+        return content;
+    }
+
+    /**
+     * Finds where one size of the uploaded content of a photo is kept, the original if that size has not been made
+     * @param photoId the primary key (long) of the photo
+     * @param size which of the sizes you seek
+     * @return the hash, media type and length of the content
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public PhotoContent findPhotoContent(long photoId, PhotoSize size) {
+        return photoVariantRepository
+                .findVariantContent(photoId, size)
+                .orElseGet(() -> findPhotoContent(photoId));
+    }
+
+    /**
+     * Checks an upload is one of the accepted media types
+     * @param contentType the media type (String) sent by the client
+     * @return the media type without its parameters, in lowercase
+     */
+    private String toContentType(String contentType) {
+        try {
+            if (contentType != null) {
+                MediaType mediaType = MediaType.parseMediaType(contentType);
+                String type = (mediaType.getType() + "/" + mediaType.getSubtype()).toLowerCase();
+                if (contentTypes.contains(type)) {
+                    return type;
+                }
+            }
+        } catch (InvalidMediaTypeException ignored) {
+            // reported below
+        }
+        throw new ResourceFoundException("Photos must be one of " + contentTypes + ", not " + contentType);
+    }
+
     /**
      * Removes a market from the database based on the marketId provided
+     * The posts using the photo and its variants are deleted first, see BulkDeleteService
      * @param photoId The primary key (long) of the market to be removed
      */
-    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PHOTOS, allEntries = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public void delete(long photoId) {
-        Photo photo = findByPhotoId(photoId);
-        photoRepository.delete(photo);
+        if (!photoRepository.existsById(photoId)) {
+            throw new ResourceNotFoundException("Photo ID " + photoId + " not found!");
+        }
+        bulkDeleteService.deletePhoto(photoId);
     }
 
     /**
      * Deletes all records from the markets table
      * Used primarily to clear the table before seeding with test data
+     * Every post and photo variant is deleted first, a chunk per transaction, see BulkDeleteService
      */
-    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PHOTOS, allEntries = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public void deleteAll() {
-        photoRepository.deleteAll();
+        bulkDeleteService.deleteAllPhotos();
     }
 }
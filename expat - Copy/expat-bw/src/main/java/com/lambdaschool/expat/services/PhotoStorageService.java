@@ -0,0 +1,32 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.PhotoBlob;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * The Service that keeps the content of uploaded photos on the local disk.
+ * <p>
+ * Content is stored under its SHA-256 hash, so the same file uploaded twice is stored once.
+ */
+public interface PhotoStorageService {
+    /**
+     * Streams content to the store, a buffer at a time, computing its hash on the way
+     *
+     * @param content  the content to store. It is read to the end but not closed.
+     * @param maxBytes the most bytes (long) accepted
+     * @return the hash and length of the stored content
+     * @throws IOException if the content cannot be read or written
+     * @throws org.springframework.web.multipart.MaxUploadSizeExceededException if the content is longer than maxBytes
+     */
+    PhotoBlob store(InputStream content, long maxBytes) throws IOException;
+
+    /**
+     * Finds the file holding the content with the given hash
+     *
+     * @param hash the SHA-256 hash (String) of the content, in lowercase hex
+     * @return the file holding the content. It may not exist.
+     */
+    Path locate(String hash);
+}
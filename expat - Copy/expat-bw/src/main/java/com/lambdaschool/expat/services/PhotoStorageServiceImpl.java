@@ -0,0 +1,119 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.PhotoBlob;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+/**
+ * Implements the PhotoStorageService Interface
+ * <p>
+ * Content is written to a temporary file in the tmp folder of the store while its hash is computed, then moved to
+ * ab/cd/abcd... (the first two bytes of the hash name two levels of folders, so no folder gets too big).
+ * If that file already exists the temporary file is dropped. Files are never changed once moved in place.
+ */
+@Service(value = "photoStorageService")
+public class PhotoStorageServiceImpl implements PhotoStorageService {
+    /**
+     * Bytes read from the upload at a time
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * What a hash looks like. Anything else cannot name a file in the store.
+     */
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * The folder of the store
+     */
+    private final Path root;
+
+    /**
+     * The folder uploads are written to before they are moved in place
+     */
+    private final Path tmp;
+
+    public PhotoStorageServiceImpl(@Value("${photo.storage.dir:photo-store}") String dir) throws IOException {
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+        this.tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+    }
+
+    @Override
+    public PhotoBlob store(InputStream content, long maxBytes) throws IOException {
+        MessageDigest digest = sha256();
+        Path upload = Files.createTempFile(tmp, "upload", ".part");
+        try {
+            long length = 0;
+            try (OutputStream out = Files.newOutputStream(upload)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    length += read;
+                    if (length > maxBytes) {
+                        throw new MaxUploadSizeExceededException(maxBytes);
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            String hash = toHex(digest.digest());
+            Path target = locate(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(upload, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(upload, target);
+                } catch (FileAlreadyExistsException e) {
+                    // stored by another upload of the same content in the meantime
+                }
+            }
+            return new PhotoBlob(hash, length);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    @Override
+    public Path locate(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Not a SHA-256 hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
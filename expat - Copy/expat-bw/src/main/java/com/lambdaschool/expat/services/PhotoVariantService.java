@@ -0,0 +1,29 @@
+package com.lambdaschool.expat.services;
+
+/**
+ * The Service that makes the resized copies (thumb, feed and full, see PhotoSize) of uploaded photos.
+ * <p>
+ * Copies are made in the background, so uploading a photo does not wait for them. Until they are made the
+ * original is served for every size.
+ */
+public interface PhotoVariantService {
+    /**
+     * Asks for the copies of a photo to be made in the background. Inside a transaction, this happens once the
+     * transaction commits. If the background work is full the photo stays pending and is picked up later.
+     *
+     * @param photoId the primary key (long) of the photo, which must be marked as pending
+     */
+    void submit(long photoId);
+
+    /**
+     * Hands the pending photos to the background work, as many as it has room for
+     */
+    void submitPending();
+
+    /**
+     * Makes the copies of a pending photo on the calling thread. Photos that are not pending are left alone.
+     *
+     * @param photoId the primary key (long) of the photo
+     */
+    void process(long photoId);
+}
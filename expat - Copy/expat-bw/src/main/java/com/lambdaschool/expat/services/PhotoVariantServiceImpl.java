@@ -0,0 +1,348 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.PhotoBlob;
+import com.lambdaschool.expat.models.PhotoSize;
+import com.lambdaschool.expat.models.PhotoVariant;
+import com.lambdaschool.expat.repository.PhotoRepository;
+import com.lambdaschool.expat.repository.PhotoVariantRepository;
+import com.lambdaschool.expat.views.PhotoContent;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implements the PhotoVariantService Interface
+ * <p>
+ * Copies are made on a small pool of photo.variants.threads threads with a queue of photo.variants.queue.size photos.
+ * When the queue is full a photo is not queued, it stays pending in the database. Every
+ * photo.variants.sweep.interval.ms the pending photos are queued again, only as many as there is room for, so a burst
+ * of uploads is worked through at the pace of the pool and never grows the memory used.
+ * <p>
+ * The image is decoded once, skipping pixels (subsampling) when it is much larger than the full size, then scaled
+ * down from one size to the next. Images with transparency are written as PNG, others as JPEG. When another photo
+ * has the same content its copies are reused without decoding anything. Content Java cannot decode, such as WebP,
+ * gets no copies and the original is served for every size.
+ */
+@Service(value = "photoVariantService")
+public class PhotoVariantServiceImpl implements PhotoVariantService, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(PhotoVariantServiceImpl.class);
+
+    /**
+     * The sizes from the largest to the smallest, the order they are made in
+     */
+    private static final PhotoSize[] LARGEST_FIRST = { PhotoSize.FULL, PhotoSize.FEED, PhotoSize.THUMB };
+
+    private final PhotoRepository photoRepository;
+
+    private final PhotoVariantRepository photoVariantRepository;
+
+    private final PhotoStorageService photoStorageService;
+
+    /**
+     * Saves the copies and clears the pending flag in one transaction
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The bounded pool the copies are made on
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * The photos queued or being worked on, so a photo is never queued twice
+     */
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The quality (float) of the JPEG copies, from 0 to 1
+     */
+    private final float jpegQuality;
+
+    /**
+     * Images with more pixels than this are not decoded
+     */
+    private final long maxPixels;
+
+    public PhotoVariantServiceImpl(
+            PhotoRepository photoRepository,
+            PhotoVariantRepository photoVariantRepository,
+            PhotoStorageService photoStorageService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${photo.variants.threads:2}") int threads,
+            @Value("${photo.variants.queue.size:100}") int queueSize,
+            @Value("${photo.variants.jpeg.quality:0.85}") float jpegQuality,
+            @Value("${photo.variants.max.pixels:100000000}") long maxPixels) {
+        this.photoRepository = photoRepository;
+        this.photoVariantRepository = photoVariantRepository;
+        this.photoStorageService = photoStorageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), r -> {
+            Thread t = new Thread(r, "photo-variants-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void submit(long photoId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(photoId);
+                }
+            });
+        } else {
+            enqueue(photoId);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${photo.variants.sweep.interval.ms:60000}",
+            fixedDelayString = "${photo.variants.sweep.interval.ms:60000}")
+    @Override
+    public void submitPending() {
+        int room = executor.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        // the photos already queued are pending too, read past them
+        for (Long photoId : photoRepository.findPendingVariantPhotoIds(PageRequest.of(0, room + queued.size()))) {
+            if (!queued.contains(photoId) && !enqueue(photoId)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void process(long photoId) {
+        PhotoContent content = photoRepository.findContentByPhotoId(photoId).orElse(null);
+        if (content == null || content.getContentHash() == null || !Boolean.TRUE.equals(content.getVariantsPending())) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        String outcome = "reused";
+        List<PhotoVariant> variants = reuse(content);
+        if (variants.isEmpty()) {
+            try {
+                variants = render(content);
+                outcome = variants.isEmpty() ? "unsupported" : "rendered";
+            } catch (IOException | RuntimeException e) {
+                // the original keeps being served for every size
+                logger.warn("Could not resize photo {}", photoId, e);
+                outcome = "failed";
+            }
+        }
+
+        List<PhotoVariant> made = variants;
+        transactionTemplate.executeWithoutResult(status -> photoRepository.findById(photoId).ifPresent(photo -> {
+            if (Boolean.TRUE.equals(photo.getVariantsPending())) {
+                for (PhotoVariant variant : made) {
+                    variant.setPhoto(photo);
+                    photo.getVariants().add(variant);
+                }
+                photo.setVariantsPending(false);
+            }
+        }));
+        meterRegistry.timer("photo.variants", "outcome", outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Queues a photo if the queue has room
+     *
+     * @param photoId the primary key (long) of the photo
+     * @return false if the queue is full
+     */
+    private boolean enqueue(long photoId) {
+        if (!queued.add(photoId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(photoId);
+                } finally {
+                    queued.remove(photoId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // left pending, the sweep queues it once there is room
+            queued.remove(photoId);
+            return false;
+        }
+    }
+
+    /**
+     * Copies the variants already made for another photo of the same content
+     *
+     * @param content the content of the photo
+     * @return a copy of every size, or an empty list if some size has not been made for the same content
+     */
+    private List<PhotoVariant> reuse(PhotoContent content) {
+        Map<PhotoSize, PhotoVariant> bySize = new EnumMap<>(PhotoSize.class);
+        for (PhotoVariant variant : photoVariantRepository.findByContentHashOfOtherPhotos(content.getContentHash(), content.getPhotoId())) {
+            bySize.put(variant.getSize(), variant);
+        }
+        if (bySize.size() < PhotoSize.values().length) {
+            return Collections.emptyList();
+        }
+        List<PhotoVariant> variants = new ArrayList<>();
+        for (PhotoVariant variant : bySize.values()) {
+            variants.add(new PhotoVariant(variant.getSize(), variant.getContentHash(), variant.getContentType(),
+                    variant.getContentLength(), variant.getWidth(), variant.getHeight()));
+        }
+        return variants;
+    }
+
+    /**
+     * Decodes the content and makes every size of it
+     *
+     * @param content the content of the photo
+     * @return a variant for every size, or an empty list if the content cannot be decoded
+     * @throws IOException if the content cannot be read or a copy cannot be stored
+     */
+    private List<PhotoVariant> render(PhotoContent content) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(photoStorageService.locate(content.getContentHash()).toFile())) {
+            Iterator<ImageReader> readers = in == null ? Collections.emptyIterator() : ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return Collections.emptyList();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    return Collections.emptyList();
+                }
+
+                // decode at no less than twice the full size, which is plenty to scale down from
+                int longest = Math.max(width, height);
+                int step = Math.max(1, longest / (2 * PhotoSize.FULL.getMaxDimension()));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+
+                List<PhotoVariant> variants = new ArrayList<>();
+                for (PhotoSize size : LARGEST_FIRST) {
+                    if (longest <= size.getMaxDimension()) {
+                        // small enough already, the original is used
+                        variants.add(new PhotoVariant(size, content.getContentHash(), content.getContentType(),
+                                content.getContentLength(), width, height));
+                        continue;
+                    }
+                    double scale = (double) size.getMaxDimension() / longest;
+                    image = resize(image, Math.max(1, (int) Math.round(width * scale)), Math.max(1, (int) Math.round(height * scale)));
+                    String type = image.getColorModel().hasAlpha() ? "image/png" : "image/jpeg";
+                    PhotoBlob blob = encode(image, type);
+                    variants.add(new PhotoVariant(size, blob.getHash(), type, blob.getLength(), image.getWidth(), image.getHeight()));
+                }
+                return variants;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image down, halving it at most at each step so no pixels are skipped
+     *
+     * @param source the image
+     * @param width  the width (int) wanted
+     * @param height the height (int) wanted
+     * @return the scaled image
+     */
+    private static BufferedImage resize(BufferedImage source, int width, int height) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        do {
+            int w = Math.max(width, current.getWidth() / 2);
+            int h = Math.max(height, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (current.getWidth() != width || current.getHeight() != height);
+        return current;
+    }
+
+    /**
+     * Encodes an image and stores it in the photo store
+     *
+     * @param image the image
+     * @param type  the media type (String) to encode to, image/jpeg or image/png
+     * @return the hash and length of the stored image
+     * @throws IOException if the image cannot be encoded or stored
+     */
+    private PhotoBlob encode(BufferedImage image, String type) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByMIMEType(type).next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed() && "image/jpeg".equals(type)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return photoStorageService.store(new ByteArrayInputStream(bytes.toByteArray()), Long.MAX_VALUE);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
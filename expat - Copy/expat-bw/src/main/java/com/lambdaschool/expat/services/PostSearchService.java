@@ -0,0 +1,54 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.PostSearchPage;
+
+/**
+ * The Service that searches the names and descriptions of posts.
+ * <p>
+ * Searches are answered from an index held in memory. PostServiceImpl keeps the index up to date as posts change.
+ */
+public interface PostSearchService
+{
+    /**
+     * Finds one page of the posts matching the search, best match first
+     *
+     * @param query the words (String) to search for
+     * @param page  the number (int) of the page wanted, starting at 0
+     * @param size  the number of posts wanted. Values below 1 get the default page size, values above the maximum get the maximum.
+     * @return the posts on the page and the number of posts that matched
+     */
+    PostSearchPage search(
+        String query,
+        int page,
+        int size);
+
+    /**
+     * Adds a post to the index, or replaces it if it is already there.
+     * Inside a transaction, this happens once the transaction commits.
+     *
+     * @param postId      the primary key (long) of the post
+     * @param name        the name (String) of the post
+     * @param description the description (String) of the post
+     */
+    void index(
+        long postId,
+        String name,
+        String description);
+
+    /**
+     * Removes a post from the index. Inside a transaction, this happens once the transaction commits.
+     *
+     * @param postId the primary key (long) of the post
+     */
+    void remove(long postId);
+
+    /**
+     * Removes every post from the index. Inside a transaction, this happens once the transaction commits.
+     */
+    void removeAll();
+
+    /**
+     * Builds the index again from the posts in the database. Done when the application starts.
+     */
+    void rebuild();
+}
@@ -0,0 +1,514 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.PostSearchPage;
+import com.lambdaschool.expat.repository.PostRepository;
+import com.lambdaschool.expat.views.PostFeedItem;
+import com.lambdaschool.expat.views.PostText;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Implements the PostSearchService Interface
+ * <p>
+ * The index maps every word to the posts it appears in (an inverted index), so a search only looks at the posts
+ * that contain one of its words. Words are the runs of letters and digits of the name and description, lowercased.
+ * Posts are ranked with BM25, words in the name counting twice as much as words in the description.
+ * <p>
+ * The index is built from the database when the application starts, reading the posts in batches by primary key.
+ * Posts changed while it is being built are applied to the new index before it replaces the old one.
+ */
+@Service(value = "postSearchService")
+public class PostSearchServiceImpl
+    implements PostSearchService
+{
+    /**
+     * How much more a word in the name counts than a word in the description
+     */
+    private static final float NAME_WEIGHT = 2.0f;
+
+    /**
+     * BM25 term frequency saturation
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * BM25 length normalization
+     */
+    private static final double B = 0.75;
+
+    /**
+     * Posts read from the database at a time when building the index
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * Anything that is not a letter or a digit separates words
+     */
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Connects this service to the Post table
+     */
+    private final PostRepository postRepository;
+
+    /**
+     * Number of posts on a page when the client does not ask for a size
+     */
+    private final int defaultPageSize;
+
+    /**
+     * Largest number of posts a client can get on a single page
+     */
+    private final int maxPageSize;
+
+    /**
+     * The index searches are answered from
+     */
+    private volatile Index index = new Index();
+
+    /**
+     * Guards changes to the index and the list of changes made during a rebuild
+     */
+    private final Object changeLock = new Object();
+
+    /**
+     * Changes made while the index is being rebuilt, to be applied to the new index. Null when not rebuilding.
+     */
+    private List<Consumer<Index>> changesDuringRebuild;
+
+    public PostSearchServiceImpl(
+        PostRepository postRepository,
+        @Value("${feed.page.size:20}") int defaultPageSize,
+        @Value("${feed.page.max.size:100}") int maxPageSize)
+    {
+        this.postRepository = postRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Builds the index once the application context is ready, before the web server takes requests
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void onStartup()
+    {
+        rebuild();
+    }
+
+    @Override
+    public PostSearchPage search(
+        String query,
+        int page,
+        int size)
+    {
+        int pageNumber = Math.max(page,
+            0);
+        int pageSize = size < 1 ? defaultPageSize : Math.min(size,
+            maxPageSize);
+
+        // long math, a page number near Integer.MAX_VALUE would otherwise overflow into a negative offset
+        int offset = (int) Math.min((long) pageNumber * pageSize,
+            Integer.MAX_VALUE);
+
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        Index.Hits hits = index.search(words,
+            offset,
+            pageSize);
+        if (hits.ids.isEmpty())
+        {
+            return new PostSearchPage(Collections.emptyList(),
+                hits.total,
+                pageNumber,
+                pageSize);
+        }
+
+        Map<Long, PostFeedItem> found = new HashMap<>();
+        for (PostFeedItem post : postRepository.findPostViewsByPostIdIn(hits.ids))
+        {
+            found.put(post.getPostId(),
+                post);
+        }
+        List<PostFeedItem> posts = new ArrayList<>(hits.ids.size());
+        for (Long id : hits.ids)
+        {
+            PostFeedItem post = found.get(id);
+            if (post != null)
+            {
+                posts.add(post);
+            }
+        }
+        return new PostSearchPage(posts,
+            hits.total,
+            pageNumber,
+            pageSize);
+    }
+
+    @Override
+    public void index(
+        long postId,
+        String name,
+        String description)
+    {
+        afterCommit(i -> i.add(postId,
+            name,
+            description));
+    }
+
+    @Override
+    public void remove(long postId)
+    {
+        afterCommit(i -> i.remove(postId));
+    }
+
+    @Override
+    public void removeAll()
+    {
+        afterCommit(Index::clear);
+    }
+
+    @Override
+    public void rebuild()
+    {
+        synchronized (changeLock)
+        {
+            if (changesDuringRebuild != null)
+            {
+                // a rebuild is already running
+                return;
+            }
+            changesDuringRebuild = new ArrayList<>();
+        }
+
+        Index rebuilt = new Index();
+        boolean complete = false;
+        try
+        {
+            long after = 0;
+            List<PostText> batch;
+            do
+            {
+                batch = postRepository.findPostTextsAfter(after,
+                    PageRequest.of(0,
+                        REBUILD_BATCH_SIZE));
+                for (PostText post : batch)
+                {
+                    rebuilt.add(post.getPostId(),
+                        post.getName(),
+                        post.getDescription());
+                    after = post.getPostId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            complete = true;
+        } finally
+        {
+            synchronized (changeLock)
+            {
+                // if reading the posts failed, the old index, which has every change, stays in use
+                if (complete)
+                {
+                    changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                    index = rebuilt;
+                }
+                changesDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Applies a change to the index once the current transaction commits, or straight away outside a transaction.
+     * A transaction that rolls back leaves the index alone.
+     *
+     * @param change the change to make to the index
+     */
+    private void afterCommit(Consumer<Index> change)
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    apply(change);
+                }
+            });
+        } else
+        {
+            apply(change);
+        }
+    }
+
+    /**
+     * Applies a change to the index, and remembers it for the new index if a rebuild is running
+     *
+     * @param change the change to make to the index
+     */
+    private void apply(Consumer<Index> change)
+    {
+        synchronized (changeLock)
+        {
+            change.accept(index);
+            if (changesDuringRebuild != null)
+            {
+                changesDuringRebuild.add(change);
+            }
+        }
+    }
+
+    /**
+     * Splits text into lowercase words of letters and digits
+     *
+     * @param text the text (String) to split, may be null
+     * @return the words in the order they appear
+     */
+    static List<String> tokenize(String text)
+    {
+        List<String> words = new ArrayList<>();
+        if (text != null)
+        {
+            for (String word : SEPARATORS.split(text.toLowerCase(Locale.ROOT)))
+            {
+                if (!word.isEmpty())
+                {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * The inverted index. Many searches can read it at the same time, changes wait for them to finish.
+     */
+    private static final class Index
+    {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * Every word, and the weighted number of times it appears in each post
+         */
+        private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+
+        /**
+         * Every post, and the words it holds, so it can be removed from the postings
+         */
+        private final Map<Long, String[]> words = new HashMap<>();
+
+        /**
+         * The weighted length of every post
+         */
+        private final Map<Long, Float> lengths = new HashMap<>();
+
+        /**
+         * The weighted length of all posts together
+         */
+        private double totalLength;
+
+        void add(
+            long postId,
+            String name,
+            String description)
+        {
+            Map<String, Float> frequencies = new HashMap<>();
+            for (String word : tokenize(name))
+            {
+                frequencies.merge(word,
+                    NAME_WEIGHT,
+                    Float::sum);
+            }
+            for (String word : tokenize(description))
+            {
+                frequencies.merge(word,
+                    1.0f,
+                    Float::sum);
+            }
+            float length = 0;
+            for (float frequency : frequencies.values())
+            {
+                length += frequency;
+            }
+
+            lock.writeLock()
+                .lock();
+            try
+            {
+                removeLocked(postId);
+                for (Map.Entry<String, Float> frequency : frequencies.entrySet())
+                {
+                    postings.computeIfAbsent(frequency.getKey(),
+                        w -> new HashMap<>())
+                        .put(postId,
+                            frequency.getValue());
+                }
+                words.put(postId,
+                    frequencies.keySet()
+                        .toArray(new String[0]));
+                lengths.put(postId,
+                    length);
+                totalLength += length;
+            } finally
+            {
+                lock.writeLock()
+                    .unlock();
+            }
+        }
+
+        void remove(long postId)
+        {
+            lock.writeLock()
+                .lock();
+            try
+            {
+                removeLocked(postId);
+            } finally
+            {
+                lock.writeLock()
+                    .unlock();
+            }
+        }
+
+        void clear()
+        {
+            lock.writeLock()
+                .lock();
+            try
+            {
+                postings.clear();
+                words.clear();
+                lengths.clear();
+                totalLength = 0;
+            } finally
+            {
+                lock.writeLock()
+                    .unlock();
+            }
+        }
+
+        private void removeLocked(long postId)
+        {
+            String[] postWords = words.remove(postId);
+            if (postWords == null)
+            {
+                return;
+            }
+            for (String word : postWords)
+            {
+                Map<Long, Float> posts = postings.get(word);
+                posts.remove(postId);
+                if (posts.isEmpty())
+                {
+                    postings.remove(word);
+                }
+            }
+            totalLength -= lengths.remove(postId);
+        }
+
+        /**
+         * Scores every post holding one of the words and keeps the best offset + limit of them
+         *
+         * @param searchWords the distinct words searched for
+         * @param offset      the number (int) of best matches to skip
+         * @param limit       the most matches (int) to return
+         * @return the ids of the matches on the page, best first, and the number of posts that matched
+         */
+        Hits search(
+            List<String> searchWords,
+            int offset,
+            int limit)
+        {
+            Map<Long, Double> scores = new HashMap<>();
+            lock.readLock()
+                .lock();
+            try
+            {
+                int postCount = lengths.size();
+                double averageLength = postCount == 0 ? 1 : totalLength / postCount;
+                for (String word : searchWords)
+                {
+                    Map<Long, Float> posts = postings.get(word);
+                    if (posts == null)
+                    {
+                        continue;
+                    }
+                    double idf = Math.log(1 + (postCount - posts.size() + 0.5) / (posts.size() + 0.5));
+                    for (Map.Entry<Long, Float> post : posts.entrySet())
+                    {
+                        double frequency = post.getValue();
+                        double norm = K1 * (1 - B + B * lengths.get(post.getKey()) / averageLength);
+                        scores.merge(post.getKey(),
+                            idf * frequency * (K1 + 1) / (frequency + norm),
+                            Double::sum);
+                    }
+                }
+            } finally
+            {
+                lock.readLock()
+                    .unlock();
+            }
+
+            // best matches first, newest (highest id) first between equal scores
+            Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey());
+            int keep = (int) Math.min((long) offset + limit,
+                Integer.MAX_VALUE);
+            PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(ranking);
+            for (Map.Entry<Long, Double> score : scores.entrySet())
+            {
+                best.add(score);
+                if (best.size() > keep)
+                {
+                    best.poll();
+                }
+            }
+
+            List<Long> ids = new ArrayList<>(best.size());
+            while (!best.isEmpty())
+            {
+                ids.add(best.poll()
+                    .getKey());
+            }
+            Collections.reverse(ids);
+            return new Hits(scores.size(),
+                ids.subList(Math.min(offset,
+                    ids.size()),
+                    ids.size()));
+        }
+
+        /**
+         * The ids of one page of matches and the number of posts that matched
+         */
+        static final class Hits
+        {
+            final int total;
+
+            final List<Long> ids;
+
+            Hits(
+                int total,
+                List<Long> ids)
+            {
+                this.total = total;
+                this.ids = ids;
+            }
+        }
+    }
+}
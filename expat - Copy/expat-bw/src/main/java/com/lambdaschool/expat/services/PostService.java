@@ -1,6 +1,11 @@
 package com.lambdaschool.expat.services;
 
 import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.models.PostBatchResult;
+import com.lambdaschool.expat.models.PostFeedPage;
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.views.PostFeedItem;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -16,6 +21,30 @@ public interface PostService {
      */
     List<Post> findByUserId(long userId);
 
+    /**
+     * Find lean views of the posts associated with a specific user, newest first
+     *
+     * @param userId the userId of the user assigned to each post
+     * @return a list of post views assigned to the user
+     */
+    List<PostFeedItem> findPostViewsByUserId(long userId);
+
+    /**
+     * Find a lean view of a specific post
+     *
+     * @param postId the postId associated with the post you seek
+     * @return the view of the post you seek
+     */
+    PostFeedItem findPostViewById(long postId);
+
+    /**
+     * Find when a specific post was last modified, without reading the post
+     *
+     * @param postId the postId associated with the post
+     * @return the date and time the post was last modified
+     */
+    Date findPostLastModified(long postId);
+
     /**
      * Find a list of all items
      *
@@ -23,6 +52,15 @@ public interface PostService {
      */
     List<Post> findAllPosts();
 
+    /**
+     * Find one page of the post feed, newest first
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param size   the number of posts wanted. Values below 1 get the default page size, values above the maximum get the maximum.
+     * @return the posts on the page and the cursor of the next page
+     */
+    PostFeedPage findFeedPage(String cursor, int size);
+
     /**
      * Find a specific item object by the provided itemId
      * @param itemId the itemId associated with the object you seek
@@ -40,6 +78,16 @@ public interface PostService {
      */
     Post save(Post post);
 
+    /**
+     * Saves many new posts at once, in one transaction. Posts without a name, or whose photo or story does not exist,
+     * are rejected and the others are still saved.
+     *
+     * @param posts the posts to save, each with a name and the ids of an existing photo and story
+     * @param user  the user the posts belong to
+     * @return what happened to each post, in the order given
+     */
+    PostBatchResult saveAll(List<Post> posts, User user);
+
     /**
      * Updates the provided fields in the user record referenced by the primary key.
      * <p>
@@ -1,13 +1,40 @@
 package com.lambdaschool.expat.services;
 
+import com.lambdaschool.expat.exceptions.ResourceFoundException;
 import com.lambdaschool.expat.exceptions.ResourceNotFoundException;
+import com.lambdaschool.expat.models.FeedCursor;
+import com.lambdaschool.expat.models.Photo;
 import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.models.PostBatchItem;
+import com.lambdaschool.expat.models.PostBatchResult;
+import com.lambdaschool.expat.models.PostFeedPage;
+import com.lambdaschool.expat.models.Story;
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.repository.PhotoRepository;
 import com.lambdaschool.expat.repository.PostRepository;
+import com.lambdaschool.expat.repository.StoryRepository;
+import com.lambdaschool.expat.views.PostFeedItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implements ItemService Interface
@@ -21,18 +48,113 @@ public class PostServiceImpl implements PostService {
      */
     private final PostRepository postRepository;
 
+    /**
+     * Sends the inserts of a batch before it is timed, the post repository has no flush of its own
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
      * Connects this service to the HelpFunctions service
      * Used in place of @Autowire
      */
     private final HelperFunctions helperFunctions;
 
+    /**
+     * Keeps the post search index up to date as posts change
+     * Used in place of @Autowire
+     */
+    private final PostSearchService postSearchService;
+
+    /**
+     * Checks the photos referenced by a batch of posts
+     * Used in place of @Autowire
+     */
+    private final PhotoRepository photoRepository;
+
+    /**
+     * Checks the stories referenced by a batch of posts
+     * Used in place of @Autowire
+     */
+    private final StoryRepository storyRepository;
+
+    /**
+     * Rebuilds the snapshot of the first feed pages as posts change
+     * Used in place of @Autowire
+     */
+    private final FeedSnapshotService feedSnapshotService;
+
+    /**
+     * Deletes posts in chunks
+     * Used in place of @Autowire
+     */
+    private final BulkDeleteService bulkDeleteService;
+
+    /**
+     * Number of posts on a feed page when the client does not ask for a size
+     */
+    private final int defaultPageSize;
+
+    /**
+     * Largest number of posts a client can get on a single feed page
+     */
+    private final int maxPageSize;
+
+    /**
+     * Largest number of posts a client can save at once
+     */
+    private final int maxBatchSize;
+
+    /**
+     * Time spent saving batches of posts
+     */
+    private final Timer batchTimer;
+
+    /**
+     * Posts saved by batches
+     */
+    private final Counter batchCreated;
+
+    /**
+     * Posts rejected by batches
+     */
+    private final Counter batchRejected;
+
     public PostServiceImpl(
             PostRepository postRepository,
-            HelperFunctions helperFunctions
+            HelperFunctions helperFunctions,
+            PostSearchService postSearchService,
+            PhotoRepository photoRepository,
+            StoryRepository storyRepository,
+            FeedSnapshotService feedSnapshotService,
+            BulkDeleteService bulkDeleteService,
+            MeterRegistry meterRegistry,
+            @Value("${feed.page.size:20}") int defaultPageSize,
+            @Value("${feed.page.max.size:100}") int maxPageSize,
+            @Value("${post.batch.max.size:500}") int maxBatchSize
     ) {
         this.postRepository = postRepository;
         this.helperFunctions = helperFunctions;
+        this.postSearchService = postSearchService;
+        this.photoRepository = photoRepository;
+        this.storyRepository = storyRepository;
+        this.feedSnapshotService = feedSnapshotService;
+        this.bulkDeleteService = bulkDeleteService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchSize = maxBatchSize;
+
+        this.batchTimer = Timer.builder("post.batch")
+                .description("Time spent saving batches of posts")
+                .register(meterRegistry);
+        this.batchCreated = Counter.builder("post.batch.posts")
+                .description("Posts sent in batches")
+                .tag("outcome", PostBatchItem.CREATED)
+                .register(meterRegistry);
+        this.batchRejected = Counter.builder("post.batch.posts")
+                .description("Posts sent in batches")
+                .tag("outcome", PostBatchItem.REJECTED)
+                .register(meterRegistry);
     }
 
     /**
@@ -41,25 +163,91 @@ public class PostServiceImpl implements PostService {
      * @param userId the userId of the user who's items you're looking for
      * @return returns a list of all items associated with the specified user
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Post> findByUserId(long userId) {
-        List<Post> returnList = new ArrayList<>();
-        postRepository
-                .findByUserUserId(userId)
-                .iterator()
-                .forEachRemaining(returnList::add);
-        return returnList;
+        return postRepository.findByUserUserid(userId);
+    }
+
+    /**
+     * Finds lean views of a user's posts. Nothing is left to lazy load once the transaction ends.
+     *
+     * @param userId the userId of the user who's posts you're looking for
+     * @return returns a list of views of all posts associated with the specified user
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<PostFeedItem> findPostViewsByUserId(long userId) {
+        return postRepository.findPostViewsByUserid(userId);
+    }
+
+    /**
+     * Finds a lean view of the specified post
+     * @param postId the postId associated with the post you seek
+     * @return returns the view of the post associated with the provided postId
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public PostFeedItem findPostViewById(long postId) {
+        return postRepository
+                .findPostViewById(postId)
+                .orElseThrow(
+                        () -> new ResourceNotFoundException("Post ID " + postId + " not found!")
+                );
+    }
+
+    /**
+     * Finds when the specified post was last modified, with a query that reads one column
+     * @param postId the postId associated with the post
+     * @return the date and time the post was last modified
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Date findPostLastModified(long postId) {
+        return postRepository
+                .findLastModifiedDateByPostId(postId)
+                .orElseThrow(
+                        () -> new ResourceNotFoundException("Post ID " + postId + " not found!")
+                );
     }
 
     /**
      * Finds a list of all items in the database
      * @return returns a list of all items in the database
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Post> findAllPosts() {
-        List<Post> returnList = new ArrayList<>();
-        postRepository.findAll().iterator().forEachRemaining(returnList::add);
-        return returnList;
+        return postRepository.findAllWithDetails();
+    }
+
+    /**
+     * Finds one page of the feed. One extra row is read to find out if there is a page after this one.
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param size the number of posts wanted
+     * @return the posts on the page and the cursor of the next page, null if this is the last page
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public PostFeedPage findFeedPage(String cursor, int size) {
+        int pageSize = size < 1 ? defaultPageSize : Math.min(size, maxPageSize);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<PostFeedItem> posts;
+        if (cursor == null || cursor.isEmpty()) {
+            posts = postRepository.findFeedFirstPage(limit);
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            posts = postRepository.findFeedPageAfter(after.getCreatedDate(), after.getPostId(), limit);
+        }
+
+        String next = null;
+        if (posts.size() > pageSize) {
+            posts = posts.subList(0, pageSize);
+            PostFeedItem last = posts.get(pageSize - 1);
+            next = new FeedCursor(last.getCreatedDate(), last.getPostId()).encode();
+        }
+        return new PostFeedPage(posts, next);
     }
 
     /**
@@ -97,7 +285,95 @@ public class PostServiceImpl implements PostService {
         newPost.setPhoto(post.getPhoto());
         newPost.setStory(post.getStory());
 
-        return postRepository.save(newPost);
+        newPost = postRepository.save(newPost);
+        postSearchService.index(newPost.getPostId(), newPost.getName(), newPost.getDescription());
+        feedSnapshotService.refresh();
+        return newPost;
+    }
+
+    /**
+     * Saves a batch of new posts. The user, photos and stories are looked up once for the whole batch: the user
+     * is given, the photo and story ids are checked with one query each. The posts are then inserted together,
+     * Hibernate sends the inserts in JDBC batches of hibernate.jdbc.batch_size. The inserts are flushed before the
+     * batch is timed and counted, so the time includes them and a batch that fails to insert is not counted.
+     * @param posts the posts to save, each with a name and the ids of an existing photo and story
+     * @param user the user the posts belong to
+     * @return what happened to each post, in the order given
+     */
+    @Transactional
+    @Override
+    public PostBatchResult saveAll(List<Post> posts, User user) {
+        if (posts.size() > maxBatchSize) {
+            throw new ResourceFoundException("At most " + maxBatchSize + " posts can be saved at once");
+        }
+        long start = System.nanoTime();
+
+        Set<Long> photoIds = new HashSet<>();
+        Set<Long> storyIds = new HashSet<>();
+        for (Post post : posts) {
+            if (post != null && post.getPhoto() != null) {
+                photoIds.add(post.getPhoto().getPhotoId());
+            }
+            if (post != null && post.getStory() != null) {
+                storyIds.add(post.getStory().getStoryId());
+            }
+        }
+        Map<Long, Photo> photos = new HashMap<>();
+        if (!photoIds.isEmpty()) {
+            for (long photoId : photoRepository.findExistingPhotoIds(photoIds)) {
+                Photo photo = new Photo();
+                photo.setPhotoId(photoId);
+                photos.put(photoId, photo);
+            }
+        }
+        Map<Long, Story> stories = new HashMap<>();
+        if (!storyIds.isEmpty()) {
+            for (long storyId : storyRepository.findExistingStoryIds(storyIds)) {
+                Story story = new Story();
+                story.setStoryId(storyId);
+                stories.put(storyId, story);
+            }
+        }
+
+        PostBatchItem[] items = new PostBatchItem[posts.size()];
+        List<Post> newPosts = new ArrayList<>(posts.size());
+        List<Integer> newPostIndexes = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+            if (post == null || post.getName() == null || post.getName().trim().isEmpty()) {
+                items[i] = PostBatchItem.rejected(i, "A post needs a name");
+            } else if (post.getPhoto() == null || !photos.containsKey(post.getPhoto().getPhotoId())) {
+                items[i] = PostBatchItem.rejected(i, "Photo " + (post.getPhoto() == null ? null : post.getPhoto().getPhotoId()) + " not found");
+            } else if (post.getStory() == null || !stories.containsKey(post.getStory().getStoryId())) {
+                items[i] = PostBatchItem.rejected(i, "Story " + (post.getStory() == null ? null : post.getStory().getStoryId()) + " not found");
+            } else {
+                Post newPost = new Post(post.getName(), post.getDescription());
+                newPost.setUser(user);
+                newPost.setPhoto(photos.get(post.getPhoto().getPhotoId()));
+                newPost.setStory(stories.get(post.getStory().getStoryId()));
+                newPosts.add(newPost);
+                newPostIndexes.add(i);
+            }
+        }
+
+        // ids are handed out here, the inserts themselves are only sent on flush
+        postRepository.saveAll(newPosts);
+        entityManager.flush();
+        for (int i = 0; i < newPosts.size(); i++) {
+            Post newPost = newPosts.get(i);
+            items[newPostIndexes.get(i)] = PostBatchItem.created(newPostIndexes.get(i), newPost.getPostId());
+            postSearchService.index(newPost.getPostId(), newPost.getName(), newPost.getDescription());
+        }
+        if (!newPosts.isEmpty()) {
+            feedSnapshotService.refresh();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        batchTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        batchCreated.increment(newPosts.size());
+        batchRejected.increment(posts.size() - newPosts.size());
+        return new PostBatchResult(Arrays.asList(items), newPosts.size(), posts.size() - newPosts.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
     }
 
     /**
@@ -138,7 +414,10 @@ public class PostServiceImpl implements PostService {
             }
 
             // Save the updated item to database
-            return postRepository.save(currentItem);
+            currentItem = postRepository.save(currentItem);
+            postSearchService.index(currentItem.getPostId(), currentItem.getName(), currentItem.getDescription());
+            feedSnapshotService.refresh();
+            return currentItem;
         } else {
             // note we should never get to this line but is needed for the compiler
             // to recognize that this exception can be thrown
@@ -167,6 +446,8 @@ public class PostServiceImpl implements PostService {
         ) {
             // Remove the item
             postRepository.deleteById(postId);
+            postSearchService.remove(postId);
+            feedSnapshotService.refresh();
         } else {
             // note we should never get to this line but is needed for the compiler
             // to recognize that this exception can be thrown
@@ -179,10 +460,11 @@ public class PostServiceImpl implements PostService {
     /**
      * Deletes all records from the items table
      * Used primarily to clear the table before seeding with test data
+     * The posts are deleted a chunk per transaction, see BulkDeleteService
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public void deleteAll() {
-        postRepository.deleteAll();
+        bulkDeleteService.deleteAllPosts();
     }
 }
\ No newline at end of file
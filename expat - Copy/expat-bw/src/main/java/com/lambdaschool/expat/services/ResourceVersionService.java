@@ -0,0 +1,68 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.ResourceVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * The Service that lets read endpoints answer conditional requests (If-None-Match, If-Modified-Since) with
+ * 304 Not Modified, without reading the database.
+ * <p>
+ * A version is kept for every entity class and moves on whenever a row of that class is saved or deleted
+ * (see ResourceVersionListener). An endpoint's ETag is made from the versions of the classes it reads. The versions
+ * are kept in the database, so every instance of the application answers with the same ETag for the same data.
+ */
+public interface ResourceVersionService
+{
+    /**
+     * Records that rows of an entity class changed. Inside a transaction, this happens once the transaction commits.
+     * Saves and deletes through JPA are recorded by ResourceVersionListener, only statements written by hand need this.
+     *
+     * @param entityClass the entity class whose rows changed
+     */
+    void changed(Class<?> entityClass);
+
+    /**
+     * The current version of the rows of some entity classes, taken together
+     *
+     * @param entityClasses the entity classes an endpoint reads
+     * @return the version covering all of them
+     */
+    ResourceVersion find(Class<?>... entityClasses);
+
+    /**
+     * How many times the rows of some entity classes changed, taken together. Only ever goes up, so a number that
+     * differs from one read earlier means something changed in between. Cheaper than find, it creates no objects.
+     *
+     * @param entityClasses the entity classes to count the changes of
+     * @return the number of changes to all of them since the versions started being kept
+     */
+    long changes(Class<?>... entityClasses);
+
+    /**
+     * The ETag (quoted String) an endpoint sends for a version of what it returns
+     *
+     * @param name    the name (String) of what the endpoint returns
+     * @param version the version of what the endpoint returns
+     * @return the ETag, quotes included
+     */
+    String etag(
+        String name,
+        ResourceVersion version);
+
+    /**
+     * Sets the ETag, Last-Modified and Cache-Control headers of a response, and answers 304 Not Modified if the
+     * client already has this version
+     *
+     * @param request      the request and its response
+     * @param name         the name (String) of what the endpoint returns, part of the ETag
+     * @param version      the version of what the endpoint returns
+     * @param cacheControl how the response may be cached
+     * @return true if 304 Not Modified has been set and nothing else should be written
+     */
+    boolean checkNotModified(
+        ServletWebRequest request,
+        String name,
+        ResourceVersion version,
+        CacheControl cacheControl);
+}
@@ -0,0 +1,361 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.config.CacheConfig;
+import com.lambdaschool.expat.models.ResourceVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implements the ResourceVersionService Interface
+ * <p>
+ * Versions are kept in the table resource_versions, one row per entity class, so every instance of the application
+ * hands out the same ETag and Last-Modified for the same data. A version is moved on in the transaction that
+ * changed the rows, on the same connection, the first time the transaction changes a row of the class. So the
+ * version commits or rolls back with the data and no second connection is needed. The time is taken from the database so the clocks of the instances do not matter. A row is
+ * added for every entity class at startup, so moving a version on is a single UPDATE. Each instance keeps a copy
+ * of the table in memory, read back after its own commits and every resource.version.refresh.ms, so the changes
+ * of other instances are seen within that time. The table also holds the time it was created, which is part
+ * of the ETag: a tag handed out before the database was recreated (the in memory H2 database at every start) never
+ * matches after it.
+ * <p>
+ * When a version moves on, the Spring caches holding lists of the entity class are cleared as well
+ * (see CacheConfig.listCachesOf), so a saved or updated story or photo shows up in the cached lists. Those caches
+ * are held in memory by each instance: changes made by this instance clear them at once, changes made by other
+ * instances only once this instance reads the new versions back.
+ */
+@Service(value = "resourceVersionService")
+public class ResourceVersionServiceImpl
+    implements ResourceVersionService
+{
+    private static final Logger logger = LoggerFactory.getLogger(ResourceVersionServiceImpl.class);
+
+    /**
+     * Creates the version table if it is not there yet. Works on both H2 and PostgreSQL.
+     */
+    private static final String SCHEMA = "CREATE TABLE IF NOT EXISTS resource_versions (entity VARCHAR(255) PRIMARY KEY, "
+        + "version BIGINT NOT NULL, changed_at TIMESTAMP NOT NULL)";
+
+    /**
+     * The row holding when the table was created instead of the version of an entity class
+     */
+    private static final String CREATED = "*";
+
+    /**
+     * Key of the classes changed by the current transaction, bound to the transaction until it completes
+     */
+    private final Object pendingKey = new Object();
+
+    /**
+     * Reads and writes the version table
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Holds the cached lists cleared when their entity class changes
+     */
+    private final CacheManager cacheManager;
+
+    /**
+     * The version table as last read, by entity class name. Replaced as a whole on every read.
+     */
+    private volatile Map<String, Version> versions = Collections.emptyMap();
+
+    /**
+     * Identifies the version table, the time (base 36 epoch milliseconds) it was created
+     */
+    private volatile String createdId = "0";
+
+    /**
+     * When (epoch milliseconds) the version table was created. Classes that have not changed since count as changed then.
+     */
+    private volatile long createdAt;
+
+    public ResourceVersionServiceImpl(
+        CacheManager cacheManager,
+        DataSource dataSource,
+        EntityManagerFactory entityManagerFactory)
+    {
+        this.cacheManager = cacheManager;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute(SCHEMA);
+        addRow(CREATED);
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel()
+            .getEntities())
+        {
+            addRow(entity.getJavaType()
+                .getName());
+        }
+        refresh();
+    }
+
+    @Override
+    public void changed(Class<?> entityClass)
+    {
+        if (!TransactionSynchronizationManager.isActualTransactionActive())
+        {
+            write(entityClass);
+            refreshAfterWrite(Collections.singleton(entityClass));
+            return;
+        }
+
+        // the version is moved on once per transaction however many rows of the class it saves, and read back
+        // once the transaction committed
+        @SuppressWarnings("unchecked")
+        Set<Class<?>> pending = (Set<Class<?>>) TransactionSynchronizationManager.getResource(pendingKey);
+        if (pending == null)
+        {
+            Set<Class<?>> changes = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(pendingKey,
+                changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    refreshAfterWrite(changes);
+                }
+
+                @Override
+                public void afterCompletion(int status)
+                {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingKey);
+                }
+            });
+            pending = changes;
+        }
+        if (pending.add(entityClass))
+        {
+            write(entityClass);
+        }
+    }
+
+    @Override
+    public ResourceVersion find(Class<?>... entityClasses)
+    {
+        Map<String, Version> current = versions;
+        StringBuilder tag = new StringBuilder(createdId);
+        long lastModified = createdAt;
+        for (Class<?> entityClass : entityClasses)
+        {
+            Version version = current.get(entityClass.getName());
+            tag.append('.');
+            if (version == null)
+            {
+                tag.append('0');
+            } else
+            {
+                tag.append(Long.toString(version.count,
+                    36));
+                lastModified = Math.max(lastModified,
+                    version.changedAt);
+            }
+        }
+        return new ResourceVersion(tag.toString(),
+            lastModified);
+    }
+
+    @Override
+    public long changes(Class<?>... entityClasses)
+    {
+        Map<String, Version> current = versions;
+        long changes = 0;
+        for (Class<?> entityClass : entityClasses)
+        {
+            Version version = current.get(entityClass.getName());
+            if (version != null)
+            {
+                changes += version.count;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Reads the version table back, picking up the changes of other instances, and clears the cached lists of every
+     * entity class whose version moved on since the last read
+     */
+    @Scheduled(initialDelayString = "${resource.version.refresh.ms:1000}",
+        fixedDelayString = "${resource.version.refresh.ms:1000}")
+    public synchronized void refresh()
+    {
+        Map<String, Version> read = new HashMap<>();
+        jdbcTemplate.query("SELECT entity, version, changed_at FROM resource_versions",
+            rs ->
+            {
+                read.put(rs.getString(1),
+                    new Version(rs.getLong(2),
+                        rs.getTimestamp(3)
+                            .getTime()));
+            });
+
+        Version created = read.remove(CREATED);
+        if (created != null)
+        {
+            createdId = Long.toString(created.changedAt,
+                36);
+            createdAt = created.changedAt / 1000 * 1000;
+        }
+
+        Map<String, Version> previous = versions;
+        versions = read;
+        for (Map.Entry<String, Version> version : read.entrySet())
+        {
+            Version before = previous.get(version.getKey());
+            if (before == null || before.count != version.getValue().count)
+            {
+                clearListCaches(version.getKey());
+            }
+        }
+    }
+
+    @Override
+    public String etag(
+        String name,
+        ResourceVersion version)
+    {
+        return "\"" + name + "-" + version.getTag() + "\"";
+    }
+
+    @Override
+    public boolean checkNotModified(
+        ServletWebRequest request,
+        String name,
+        ResourceVersion version,
+        CacheControl cacheControl)
+    {
+        if (request.getResponse() != null)
+        {
+            request.getResponse()
+                .setHeader(HttpHeaders.CACHE_CONTROL,
+                    cacheControl.getHeaderValue());
+        }
+        return request.checkNotModified(etag(name,
+            version),
+            version.getLastModified());
+    }
+
+    /**
+     * Moves the version of an entity class on, in the current transaction if there is one
+     *
+     * @param entityClass the entity class whose rows changed
+     */
+    private void write(Class<?> entityClass)
+    {
+        // Last-Modified has whole seconds, so two changes within a second share it. The ETag tells them apart
+        // and is checked first whenever the client sends one.
+        if (jdbcTemplate.update("UPDATE resource_versions SET version = version + 1, changed_at = CURRENT_TIMESTAMP WHERE entity = ?",
+            entityClass.getName()) == 0)
+        {
+            // not an entity known at startup. A failed statement would end the transaction on PostgreSQL, so
+            // the row is only added if it is still missing.
+            jdbcTemplate.update("INSERT INTO resource_versions (entity, version, changed_at) "
+                    + "SELECT ?, 1, CURRENT_TIMESTAMP WHERE NOT EXISTS (SELECT 1 FROM resource_versions WHERE entity = ?)",
+                entityClass.getName(),
+                entityClass.getName());
+        }
+    }
+
+    /**
+     * Reads the versions back once they are committed. The versions are already safe in the database, so if they
+     * cannot be read back now the scheduled refresh picks them up, and the cached lists of this instance are
+     * cleared meanwhile.
+     *
+     * @param entityClasses the entity classes whose rows changed
+     */
+    private void refreshAfterWrite(Collection<Class<?>> entityClasses)
+    {
+        try
+        {
+            refresh();
+        } catch (DataAccessException e)
+        {
+            logger.warn("Could not read the resource versions back",
+                e);
+            entityClasses.forEach(entityClass -> clearListCaches(entityClass.getName()));
+        }
+    }
+
+    /**
+     * Adds the row of a version if it is not there yet
+     *
+     * @param entity the name (String) of the entity class, or CREATED
+     */
+    private void addRow(String entity)
+    {
+        try
+        {
+            jdbcTemplate.update("INSERT INTO resource_versions (entity, version, changed_at) VALUES (?, 0, CURRENT_TIMESTAMP)",
+                entity);
+        } catch (DuplicateKeyException e)
+        {
+            // added by an earlier run, or by another instance
+        }
+    }
+
+    /**
+     * Clears the cached lists of an entity class
+     *
+     * @param entity the name (String) of the entity class
+     */
+    private void clearListCaches(String entity)
+    {
+        Class<?> entityClass;
+        try
+        {
+            entityClass = Class.forName(entity);
+        } catch (ClassNotFoundException e)
+        {
+            return;
+        }
+        for (String name : CacheConfig.listCachesOf(entityClass))
+        {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null)
+            {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * How many times the rows of one entity class changed, and when they last did
+     */
+    private static final class Version
+    {
+        private final long count;
+
+        private final long changedAt;
+
+        private Version(
+            long count,
+            long changedAt)
+        {
+            this.count = count;
+            this.changedAt = changedAt;
+        }
+    }
+}
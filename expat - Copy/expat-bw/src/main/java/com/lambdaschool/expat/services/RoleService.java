@@ -1,6 +1,7 @@
 package com.lambdaschool.expat.services;
 
 import com.lambdaschool.expat.models.Role;
+import com.lambdaschool.expat.views.RoleView;
 
 import java.util.List;
 
@@ -18,6 +19,29 @@ public interface RoleService
      */
     List<Role> findAll();
 
+    /**
+     * Returns lean views of all roles, without their users
+     *
+     * @return list of all role views
+     */
+    List<RoleView> findAllViews();
+
+    /**
+     * Return the view of the Role matching the given primary key
+     *
+     * @param id The primary key (long) of the Role you seek
+     * @return The view of the Role you seek
+     */
+    RoleView findRoleViewById(long id);
+
+    /**
+     * Return the view of the Role matching the given name
+     *
+     * @param name The name (String) of the role you seek
+     * @return The view of the Role matching the given name
+     */
+    RoleView findRoleViewByName(String name);
+
     /**
      * Return the first Role matching the given primary key
      *
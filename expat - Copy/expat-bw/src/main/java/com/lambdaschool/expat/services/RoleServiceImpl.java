@@ -5,8 +5,10 @@ import com.lambdaschool.expat.exceptions.ResourceNotFoundException;
 import com.lambdaschool.expat.models.Role;
 import com.lambdaschool.expat.repository.RoleRepository;
 import com.lambdaschool.expat.repository.UserRepository;
+import com.lambdaschool.expat.views.RoleView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
@@ -38,6 +40,24 @@ public class RoleServiceImpl
     @Autowired
     private UserAuditing userAuditing;
 
+    /**
+     * Connects this service to the principal cache. The authorities of cached users come from their roles.
+     */
+    @Autowired
+    private UserPrincipalService userPrincipalService;
+
+    /**
+     * Connects this service to the resource versions. Renaming a role is an UPDATE query the entity listener does not see.
+     */
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    /**
+     * Connects this service to the bulk deletes. Roles go after the user roles holding them, in chunks.
+     */
+    @Autowired
+    private BulkDeleteService bulkDeleteService;
+
     @Override
     public List<Role> findAll()
     {
@@ -52,6 +72,28 @@ public class RoleServiceImpl
         return list;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<RoleView> findAllViews()
+    {
+        return rolerepos.findAllByOrderByRoleidAsc();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public RoleView findRoleViewById(long id)
+    {
+        return rolerepos.findViewByRoleid(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Role id " + id + " not found!"));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public RoleView findRoleViewByName(String name)
+    {
+        return rolerepos.findViewByNameIgnoreCase(name)
+            .orElseThrow(() -> new ResourceNotFoundException(name));
+    }
 
     @Override
     public Role findRoleById(long id)
@@ -87,11 +129,12 @@ public class RoleServiceImpl
         return rolerepos.save(role);
     }
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public void deleteAll()
     {
-        rolerepos.deleteAll();
+        bulkDeleteService.deleteAllRoles();
+        userPrincipalService.evictAll();
     }
 
     @Transactional
@@ -117,6 +160,8 @@ public class RoleServiceImpl
                 .get(),
             id,
             role.getName());
+        userPrincipalService.evictAll();
+        resourceVersionService.changed(Role.class);
         return findRoleById(id);
     }
 }
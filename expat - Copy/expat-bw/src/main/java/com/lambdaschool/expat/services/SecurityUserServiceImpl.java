@@ -5,6 +5,7 @@ import com.lambdaschool.expat.models.User;
 import com.lambdaschool.expat.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,37 +15,76 @@ import org.springframework.transaction.annotation.Transactional;
 
 /**
  * This implements User Details Service that allows us to authenticate a user.
+ * It also implements User Details Password Service so password hashes can be upgraded when a user logs in.
  */
 @Service(value = "securityUserService")
 public class SecurityUserServiceImpl
-    implements UserDetailsService
+    implements UserDetailsService,
+               UserDetailsPasswordService
 {
     /**
-     * Ties this implementation to the User Repository so we can find a user in the database.
+     * Ties this implementation to the User Repository so upgraded password hashes can be saved.
      */
     @Autowired
     private UserRepository userrepos;
 
     /**
-     * Verifies that the user is correct and if so creates the authenticated user
+     * Ties this implementation to the principal cache so we only go to the database when the user is not cached.
+     */
+    @Autowired
+    private UserPrincipalService userPrincipalService;
+
+    /**
+     * The hash is saved with an UPDATE query the entity listener does not see, so the version of users is moved
+     * on here and the other instances drop their cached principals.
+     */
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    /**
+     * Verifies that the user is correct and if so creates the authenticated user. No transaction is started here,
+     * a cached user costs no connection and one that is not cached is read from the primary database
+     * (see UserPrincipalServiceImpl).
      *
      * @param s The user name we are look for
      * @return a security user detail that is now an authenticated user
      * @throws ResourceNotFoundException if the user name is not found
      */
-    @Transactional
     @Override
     public UserDetails loadUserByUsername(String s)
         throws
         ResourceNotFoundException
     {
-        User user = userrepos.findByUsername(s.toLowerCase());
-        if (user == null)
+        try
+        {
+            return userPrincipalService.findByName(s)
+                .toUserDetails();
+        } catch (ResourceNotFoundException e)
         {
             throw new ResourceNotFoundException("Invalid username or password.");
         }
-        return new org.springframework.security.core.userdetails.User(user.getUsername(),
-            user.getPassword(),
-            user.getAuthority());
+    }
+
+    /**
+     * Saves a new hash of the user's password. Called by Spring Security after a successful login
+     * when the stored hash was made with a lower cost than the one configured.
+     *
+     * @param user        the user that just logged in
+     * @param newPassword the new password hash (String)
+     * @return the user with the new password hash
+     */
+    @Transactional
+    @Override
+    public UserDetails updatePassword(
+        UserDetails user,
+        String newPassword)
+    {
+        userrepos.updatePassword(user.getUsername(),
+            newPassword);
+        userPrincipalService.evict(user.getUsername());
+        resourceVersionService.changed(User.class);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+            .password(newPassword)
+            .build();
     }
 }
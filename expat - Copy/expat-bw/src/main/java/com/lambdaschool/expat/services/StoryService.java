@@ -6,9 +6,9 @@ import java.util.List;
 
 public interface StoryService {
     List<Story> findAllStory();
-/**
+
     List<StoryCategoryList> getStoryCategoryList();
-**/
+
     Story findByStoryId(long storyId);
 
     void delete(long storyId);
@@ -1,12 +1,16 @@
 package com.lambdaschool.expat.services;
 
+import com.lambdaschool.expat.config.CacheConfig;
 import com.lambdaschool.expat.exceptions.ResourceNotFoundException;
 import com.lambdaschool.expat.models.Story;
 import com.lambdaschool.expat.repository.StoryRepository;
 import com.lambdaschool.expat.views.StoryCategoryList;
 import java.util.ArrayList;
 import java.util.List;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Transactional
@@ -18,21 +22,44 @@ public class StoryServiceImpl implements StoryService {
      */
     private final StoryRepository storyRepository;
 
-    public StoryServiceImpl(StoryRepository storyRepository) {
+    /**
+     * Connects this service to the story name suggestions so they follow the stories
+     */
+    private final TypeaheadService typeaheadService;
+
+    /**
+     * Deletes stories together with their posts, in chunks
+     */
+    private final BulkDeleteService bulkDeleteService;
+
+    public StoryServiceImpl(
+            StoryRepository storyRepository,
+            TypeaheadService typeaheadService,
+            BulkDeleteService bulkDeleteService) {
         this.storyRepository = storyRepository;
+        this.typeaheadService = typeaheadService;
+        this.bulkDeleteService = bulkDeleteService;
     }
-/**
+
+    /**
+     * Finds the id and name of every story. The list is cached until a story is saved, updated or removed, or the cache entry expires.
+     *
+     * @return a list of story categories
+     */
+    @Cacheable(CacheConfig.STORY_CATEGORIES)
+    @Transactional(readOnly = true)
     @Override
     public List<StoryCategoryList> getStoryCategoryList() {
         List<StoryCategoryList> returnList = storyRepository.getStoryCategoryList();
         return returnList;
     }
-**/
+
     /**
      * Finds a list of all products in the database
      *
      * @return a list of all products in the database
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Story> findAllStory() {
         List<Story> storyList = new ArrayList<>();
@@ -46,6 +73,7 @@ public class StoryServiceImpl implements StoryService {
      * @param storyId the productId associated with the object you seek
      * @return returns the product object associated with the provided productId
      */
+    @Transactional(readOnly = true)
     @Override
     public Story findByStoryId(long storyId) {
         return storyRepository
@@ -61,23 +89,30 @@ public class StoryServiceImpl implements StoryService {
     /**
      * Removes a product from the database based on the productId provided
      *
+     * The posts telling the story are deleted first, see BulkDeleteService
+     *
      * @param storyId The primary key (long) of the product to be removed
      */
-    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STORY_CATEGORIES, allEntries = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public void delete(long storyId) {
-        Story story = findByStoryId(storyId);
-        storyRepository.delete(story);
+        if (!storyRepository.existsById(storyId)) {
+            throw new ResourceNotFoundException("Story ID " + storyId + " not found!");
+        }
+        bulkDeleteService.deleteStory(storyId);
     }
 
     /**
      * Deletes all records from the products table
      * Used primarily to clear the table before seeding with test data
+     * Every post is deleted first, a chunk per transaction, see BulkDeleteService
      */
-    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STORY_CATEGORIES, allEntries = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public void deleteAll() {
-        storyRepository.deleteAll();
+        bulkDeleteService.deleteAllStories();
     }
 }
 
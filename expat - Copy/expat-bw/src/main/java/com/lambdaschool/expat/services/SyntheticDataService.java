@@ -0,0 +1,22 @@
+package com.lambdaschool.expat.services;
+
+/**
+ * The Service that fills the database with generated users, stories, photos and posts for load and capacity
+ * testing, from thousands up to millions of rows.
+ * <p>
+ * The data is skewed the way real data is: a few power users write most of the posts, and a few stories are told
+ * far more often than the long tail of the others. The same seed and sizes always give the same rows.
+ */
+public interface SyntheticDataService {
+    /**
+     * Adds generated rows next to the ones already in the database. Every user gets a second email and the user
+     * role, which has to exist.
+     *
+     * @param users   the number (long) of users to add
+     * @param stories the number (long) of stories to add
+     * @param photos  the number (long) of photos to add
+     * @param posts   the number (long) of posts to add, each by one of the added users, about one of the added
+     *                stories, with one of the added photos
+     */
+    void generate(long users, long stories, long photos, long posts);
+}
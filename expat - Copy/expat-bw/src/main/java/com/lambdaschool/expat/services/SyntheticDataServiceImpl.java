@@ -0,0 +1,468 @@
+package com.lambdaschool.expat.services;
+
+import com.github.javafaker.Faker;
+import com.lambdaschool.expat.config.CacheConfig;
+import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.PooledSequenceGenerator;
+import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.models.Story;
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.models.UserRoles;
+import com.lambdaschool.expat.models.Useremail;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implements the SyntheticDataService Interface
+ * <p>
+ * Rows are written with JDBC batches of synthetic.data.batch.size statements. Each table is cut into slices of
+ * SLICE rows, and the slices are written on synthetic.data.threads threads, each in its own transaction. Every slice
+ * draws from its own random generator, seeded from synthetic.data.seed, the table and the slice, so the rows do not
+ * depend on which thread writes them or in what order.
+ * <p>
+ * The authors of posts are drawn from a power law with exponent synthetic.data.user.skew, and their stories with
+ * exponent synthetic.data.story.skew: the first users and stories added are the popular ones. 0 draws them evenly.
+ * <p>
+ * Keys are reserved from the tables' sequences (see PooledSequenceGenerator) before writing, so the application keeps
+ * adding rows after the generated ones. Nothing else should add rows to the database while this runs. Every user
+ * gets the same password, hashed once.
+ */
+@Service(value = "syntheticDataService")
+public class SyntheticDataServiceImpl implements SyntheticDataService {
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataServiceImpl.class);
+
+    /**
+     * The number of rows drawn from one random generator, and written by one thread in one transaction
+     */
+    private static final int SLICE = 10_000;
+
+    /**
+     * The number of each kind of fake value (names, cities, sentences) rows are put together from
+     */
+    private static final int WORDS = 1000;
+
+    /**
+     * The longest text the name and description columns take
+     */
+    private static final int MAX_TEXT = 255;
+
+    private static final String AUDITOR = "SYSTEM";
+
+    private static final String USERS_SQL = "INSERT INTO users (userid, username, password, primaryemail, " +
+            "created_by, created_date, last_modified_by, last_modified_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String USEREMAILS_SQL = "INSERT INTO useremails (useremailid, useremail, userid, " +
+            "created_by, created_date, last_modified_by, last_modified_date) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String USERROLES_SQL = "INSERT INTO userroles (userid, roleid, " +
+            "created_by, created_date, last_modified_by, last_modified_date) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String PHOTOS_SQL = "INSERT INTO photos (photo_id, name, " +
+            "created_by, created_date, last_modified_by, last_modified_date) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String STORYS_SQL = "INSERT INTO storys (story_id, name, " +
+            "created_by, created_date, last_modified_by, last_modified_date) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String POSTS_SQL = "INSERT INTO posts (post_id, name, description, user_id, photo_id, " +
+            "story_id, created_by, created_date, last_modified_by, last_modified_date) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final RoleService roleService;
+
+    private final PasswordHashingService passwordHashingService;
+
+    private final ResourceVersionService resourceVersionService;
+
+    private final PostSearchService postSearchService;
+
+    private final TypeaheadService typeaheadService;
+
+    private final FeedSnapshotService feedSnapshotService;
+
+    /**
+     * Tells which sequence and table each entity uses
+     */
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long seed;
+
+    private final int threads;
+
+    private final int batchSize;
+
+    private final double userSkew;
+
+    private final double storySkew;
+
+    /**
+     * How far back, in milliseconds, the generated rows are dated
+     */
+    private final long window;
+
+    /**
+     * The plain text password of every generated user
+     */
+    private final String password;
+
+    public SyntheticDataServiceImpl(
+            RoleService roleService,
+            PasswordHashingService passwordHashingService,
+            ResourceVersionService resourceVersionService,
+            PostSearchService postSearchService,
+            TypeaheadService typeaheadService,
+            FeedSnapshotService feedSnapshotService,
+            EntityManagerFactory entityManagerFactory,
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            @Value("${synthetic.data.seed:42}") long seed,
+            @Value("${synthetic.data.threads:4}") int threads,
+            @Value("${synthetic.data.batch.size:1000}") int batchSize,
+            @Value("${synthetic.data.user.skew:1.1}") double userSkew,
+            @Value("${synthetic.data.story.skew:1.3}") double storySkew,
+            @Value("${synthetic.data.days:365}") int days,
+            @Value("${synthetic.data.password:password}") String password) {
+        this.roleService = roleService;
+        this.passwordHashingService = passwordHashingService;
+        this.resourceVersionService = resourceVersionService;
+        this.postSearchService = postSearchService;
+        this.typeaheadService = typeaheadService;
+        this.feedSnapshotService = feedSnapshotService;
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.seed = seed;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(1, batchSize);
+        this.userSkew = userSkew;
+        this.storySkew = storySkew;
+        this.window = TimeUnit.DAYS.toMillis(Math.max(1, days));
+        this.password = password;
+    }
+
+    @CacheEvict(cacheNames = {CacheConfig.PHOTOS, CacheConfig.STORY_CATEGORIES}, allEntries = true)
+    @Override
+    public void generate(long users, long stories, long photos, long posts) {
+        if (users < 0 || stories < 0 || photos < 0 || posts < 0) {
+            throw new IllegalArgumentException("Synthetic data sizes cannot be negative");
+        }
+        if (posts > 0 && (users == 0 || stories == 0 || photos == 0)) {
+            throw new IllegalArgumentException("Synthetic posts need synthetic users, stories and photos");
+        }
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        long roleId = users > 0 ? roleService.findByName("user").getRoleid() : 0;
+        String hash = users > 0 ? passwordHashingService.encode(password) : null;
+
+        long userBase = reserve(User.class, users);
+        long useremailBase = reserve(Useremail.class, users);
+        long storyBase = reserve(Story.class, stories);
+        long photoBase = reserve(Photo.class, photos);
+        long postBase = reserve(Post.class, posts);
+        Words words = new Words(new Faker(Locale.US, new Random(seed)));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "synthetic-data-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            insert(executor,
+                    new Table("users", USERS_SQL, users, (ps, i, random) -> {
+                        long id = userBase + i;
+                        String username = words.pick(words.firstNames, random) + "." +
+                                words.pick(words.lastNames, random) + "." + id;
+                        Timestamp created = date(now, random);
+                        ps.setLong(1, id);
+                        ps.setString(2, username);
+                        ps.setString(3, hash);
+                        ps.setString(4, username + "@synthetic.local");
+                        audit(ps, 5, created);
+                    }),
+                    new Table("stories", STORYS_SQL, stories, (ps, i, random) -> {
+                        ps.setLong(1, storyBase + i);
+                        ps.setString(2, "Living in " + words.pick(words.cities, random));
+                        audit(ps, 3, date(now, random));
+                    }),
+                    new Table("photos", PHOTOS_SQL, photos, (ps, i, random) -> {
+                        ps.setLong(1, photoBase + i);
+                        ps.setString(2, "https://picsum.photos/seed/" + (photoBase + i) + "/1080/720");
+                        audit(ps, 3, date(now, random));
+                    }));
+
+            insert(executor,
+                    new Table("useremails", USEREMAILS_SQL, users, (ps, i, random) -> {
+                        ps.setLong(1, useremailBase + i);
+                        ps.setString(2, words.pick(words.firstNames, random) + "." +
+                                words.pick(words.lastNames, random) + "@" + words.pick(words.domains, random));
+                        ps.setLong(3, userBase + i);
+                        audit(ps, 4, date(now, random));
+                    }),
+                    new Table("userroles", USERROLES_SQL, users, (ps, i, random) -> {
+                        ps.setLong(1, userBase + i);
+                        ps.setLong(2, roleId);
+                        audit(ps, 3, date(now, random));
+                    }),
+                    new Table("posts", POSTS_SQL, posts, (ps, i, random) -> {
+                        ps.setLong(1, postBase + i);
+                        ps.setString(2, words.pick(words.titles, random));
+                        ps.setString(3, text(words.pick(words.sentences, random) + " " +
+                                words.pick(words.sentences, random) + " " + words.pick(words.sentences, random)));
+                        ps.setLong(4, userBase + zipf(users, userSkew, random.nextDouble()) - 1);
+                        ps.setLong(5, photoBase + i % photos);
+                        ps.setLong(6, storyBase + zipf(stories, storySkew, random.nextDouble()) - 1);
+                        audit(ps, 7, date(now, random));
+                    }));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the rows were written past the entity listeners and the services
+        for (Class<?> entity : new Class<?>[]{User.class, Useremail.class, UserRoles.class, Story.class, Photo.class,
+                Post.class}) {
+            resourceVersionService.changed(entity);
+        }
+        postSearchService.rebuild();
+        typeaheadService.rebuild();
+        feedSnapshotService.refresh();
+
+        logger.info("Generated {} users, {} stories, {} photos and {} posts in {} ms", users, stories, photos, posts,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Reserves keys for new rows of an entity. The keys start at the next value of the entity's sequence, or after
+     * the largest key in its table, and the sequence is moved past them.
+     *
+     * @param entity the entity (Class) the rows are of
+     * @param count  the number (long) of keys
+     * @return the first key (long)
+     */
+    private long reserve(Class<?> entity, long count) {
+        if (count == 0) {
+            return 0;
+        }
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        AbstractEntityPersister persister = (AbstractEntityPersister) sessionFactory.getMetamodel()
+                .entityPersister(entity);
+        String sequence = ((PooledSequenceGenerator) persister.getIdentifierGenerator()).getDatabaseStructure()
+                .getName();
+
+        Long next = jdbcTemplate.queryForObject(sessionFactory.getJdbcServices().getDialect()
+                .getSequenceNextValString(sequence), Long.class);
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(" + persister.getIdentifierColumnNames()[0] + ") FROM " +
+                persister.getTableName(), Long.class);
+        long first = Math.max(next == null ? 1 : next, max == null ? 1 : max + 1);
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (first + count));
+        return first;
+    }
+
+    /**
+     * Writes the rows of some tables, which cannot depend on each other, and waits for them
+     *
+     * @param executor the threads to write on
+     * @param tables   the tables
+     */
+    private void insert(ExecutorService executor, Table... tables) {
+        List<Future<?>> slices = new ArrayList<>();
+        for (Table table : tables) {
+            for (long first = 0; first < table.count; first += SLICE) {
+                long from = first;
+                long to = Math.min(table.count, first + SLICE);
+                slices.add(executor.submit(() -> insert(table, from, to)));
+            }
+        }
+
+        try {
+            for (Future<?> slice : slices) {
+                slice.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating synthetic data", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Could not generate synthetic data", e.getCause());
+        }
+    }
+
+    /**
+     * Writes one slice of a table in one transaction
+     *
+     * @param table the table
+     * @param from  the index (long) of the first row of the slice
+     * @param to    the index (long) after the last row of the slice
+     */
+    private void insert(Table table, long from, long to) {
+        Random random = new Random(seed * 0x9E3779B97F4A7C15L + table.name.hashCode() * 0xBF58476D1CE4E5B9L + from);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (long first = from; first < to; first += batchSize) {
+                long batchFirst = first;
+                int size = (int) Math.min(batchSize, to - first);
+                jdbcTemplate.batchUpdate(table.sql, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        table.row.write(ps, batchFirst + i, random);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                });
+            }
+        });
+        table.written(to - from);
+    }
+
+    /**
+     * Draws a rank from 1 to n, rank r about as often as 1 / r^skew
+     *
+     * @param n       the number (long) of ranks
+     * @param skew    the exponent (double) of the power law, 0 for every rank as often
+     * @param uniform a random number (double) from 0 to 1
+     * @return the rank (long)
+     */
+    private static long zipf(long n, double skew, double uniform) {
+        double rank;
+        if (Math.abs(skew - 1) < 1e-9) {
+            rank = Math.pow(n + 1, uniform);
+        } else {
+            double a = 1 - skew;
+            rank = Math.pow((Math.pow(n + 1, a) - 1) * uniform + 1, 1 / a);
+        }
+        return Math.max(1, Math.min(n, (long) rank));
+    }
+
+    /**
+     * A date within the window, up to now
+     */
+    private Timestamp date(long now, Random random) {
+        return new Timestamp(now - (long) (random.nextDouble() * window));
+    }
+
+    /**
+     * Sets the audit columns, created and last modified by the system at the same time
+     */
+    private static void audit(PreparedStatement ps, int index, Timestamp date) throws SQLException {
+        ps.setString(index, AUDITOR);
+        ps.setTimestamp(index + 1, date);
+        ps.setString(index + 2, AUDITOR);
+        ps.setTimestamp(index + 3, date);
+    }
+
+    private static String text(String text) {
+        return text.length() > MAX_TEXT ? text.substring(0, MAX_TEXT) : text;
+    }
+
+    /**
+     * The values of the row at an index, drawn from the slice's random generator
+     */
+    @FunctionalInterface
+    private interface Row {
+        void write(PreparedStatement ps, long i, Random random) throws SQLException;
+    }
+
+    /**
+     * The fake values rows are put together from. Faker takes tens of microseconds per value, too slow to call for
+     * every row of millions, so a set of each kind is drawn from it once, from the seed, and rows pick from them.
+     */
+    private static final class Words {
+        private final String[] firstNames = new String[WORDS];
+
+        private final String[] lastNames = new String[WORDS];
+
+        private final String[] domains = new String[WORDS];
+
+        private final String[] cities = new String[WORDS];
+
+        private final String[] titles = new String[WORDS];
+
+        private final String[] sentences = new String[WORDS];
+
+        private Words(Faker faker) {
+            for (int i = 0; i < WORDS; i++) {
+                firstNames[i] = letters(faker.name().firstName());
+                lastNames[i] = letters(faker.name().lastName());
+                domains[i] = faker.internet().domainName();
+                cities[i] = faker.address().city();
+                titles[i] = text(faker.lorem().sentence(3));
+                sentences[i] = faker.lorem().sentence();
+            }
+        }
+
+        private String pick(String[] words, Random random) {
+            return words[random.nextInt(words.length)];
+        }
+
+        /**
+         * The letters of a name, in lower case, so it can be part of a username and email
+         */
+        private static String letters(String name) {
+            return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+        }
+    }
+
+    /**
+     * A table to write, and how far writing it has come
+     */
+    private static final class Table {
+        private final String name;
+
+        private final String sql;
+
+        private final long count;
+
+        private final Row row;
+
+        private final AtomicLong written = new AtomicLong();
+
+        private Table(String name, String sql, long count, Row row) {
+            this.name = name;
+            this.sql = sql;
+            this.count = count;
+            this.row = row;
+        }
+
+        /**
+         * Counts rows written, logging each tenth of the table
+         */
+        private void written(long rows) {
+            long done = written.addAndGet(rows);
+            if ((done - rows) * 10 / count != done * 10 / count) {
+                logger.info("Generating {}: {} of {} rows written", name, done, count);
+            }
+        }
+    }
+}
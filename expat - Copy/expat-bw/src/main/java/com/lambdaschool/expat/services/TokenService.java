@@ -0,0 +1,19 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.UserPrincipal;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+/**
+ * The Service that issues access tokens without going through the /login endpoint.
+ */
+public interface TokenService
+{
+    /**
+     * Issues an access token for the given user, exactly as if the user had signed on through /login with the
+     * password grant. The token is kept in the same token store as every other token.
+     *
+     * @param principal the user (UserPrincipal) the token is for. Their password has already been checked or just set.
+     * @return the access token
+     */
+    OAuth2AccessToken issueToken(UserPrincipal principal);
+}
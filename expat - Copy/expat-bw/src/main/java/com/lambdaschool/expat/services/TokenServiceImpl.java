@@ -0,0 +1,77 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.ClientDetails;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.TokenRequest;
+import org.springframework.security.oauth2.provider.token.AuthorizationServerTokenServices;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+
+/**
+ * Implements the TokenService Interface
+ * <p>
+ * Uses the token services and client details of the authorization server (see AuthorizationServerConfig), so tokens
+ * issued here are the same as the ones /login issues and live in the same token store.
+ */
+@Service(value = "tokenService")
+public class TokenServiceImpl
+    implements TokenService
+{
+    /**
+     * The grant the issued tokens are recorded as
+     */
+    private static final String GRANT_TYPE_PASSWORD = "password";
+
+    /**
+     * Creates and stores access tokens for the authorization server
+     */
+    private final AuthorizationServerTokenServices tokenServices;
+
+    /**
+     * The clients known to the authorization server
+     */
+    private final ClientDetailsService clientDetailsService;
+
+    /**
+     * The client the tokens are issued to. The same client configured in AuthorizationServerConfig
+     */
+    private final String clientId;
+
+    public TokenServiceImpl(
+        AuthorizationServerTokenServices tokenServices,
+        ClientDetailsService clientDetailsService,
+        @Value("${CLIENT_ID:}") String clientId)
+    {
+        this.tokenServices = tokenServices;
+        this.clientDetailsService = clientDetailsService;
+        this.clientId = clientId;
+    }
+
+    @Override
+    public OAuth2AccessToken issueToken(UserPrincipal principal)
+    {
+        ClientDetails client = clientDetailsService.loadClientByClientId(clientId);
+        TokenRequest tokenRequest = new TokenRequest(Collections.singletonMap("grant_type",
+            GRANT_TYPE_PASSWORD),
+            clientId,
+            client.getScope(),
+            GRANT_TYPE_PASSWORD);
+
+        UserDetails user = principal.toUserDetails();
+        UsernamePasswordAuthenticationToken userAuthentication = new UsernamePasswordAuthenticationToken(user,
+            null,
+            user.getAuthorities());
+        // the password hash never goes into the token store, same as when signing on through /login
+        userAuthentication.eraseCredentials();
+
+        return tokenServices.createAccessToken(new OAuth2Authentication(tokenRequest.createOAuth2Request(client),
+            userAuthentication));
+    }
+}
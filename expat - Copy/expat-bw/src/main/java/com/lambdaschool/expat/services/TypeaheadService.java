@@ -0,0 +1,75 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.views.TypeaheadMatch;
+
+import java.util.List;
+
+/**
+ * The Service that suggests usernames and story names from the first letters typed.
+ * <p>
+ * Suggestions come from sorted lists held in memory. UserServiceImpl and StoryServiceImpl keep them up to date.
+ */
+public interface TypeaheadService
+{
+    /**
+     * Finds the users whose username starts with the given letters, in username order
+     *
+     * @param prefix the first letters (String) of the username, any case
+     * @param limit  the most matches wanted. Values below 1 get the default, values above the maximum get the maximum.
+     * @return the ids and usernames of the matching users
+     */
+    List<TypeaheadMatch> findUsernames(
+        String prefix,
+        int limit);
+
+    /**
+     * Finds the stories whose name starts with the given letters, in name order ignoring case
+     *
+     * @param prefix the first letters (String) of the story name, any case
+     * @param limit  the most matches wanted. Values below 1 get the default, values above the maximum get the maximum.
+     * @return the ids and names of the matching stories
+     */
+    List<TypeaheadMatch> findStories(
+        String prefix,
+        int limit);
+
+    /**
+     * Adds a user to the suggestions or replaces their username. Inside a transaction, this happens once the transaction commits.
+     *
+     * @param userid   the primary key (long) of the user
+     * @param username the username (String) of the user
+     */
+    void putUser(
+        long userid,
+        String username);
+
+    /**
+     * Removes a user from the suggestions. Inside a transaction, this happens once the transaction commits.
+     *
+     * @param userid the primary key (long) of the user
+     */
+    void removeUser(long userid);
+
+    /**
+     * Removes every user from the suggestions. Inside a transaction, this happens once the transaction commits.
+     */
+    void removeAllUsers();
+
+    /**
+     * Removes a story from the suggestions. Inside a transaction, this happens once the transaction commits.
+     *
+     * @param storyId the primary key (long) of the story
+     */
+    void removeStory(long storyId);
+
+    /**
+     * Removes every story from the suggestions. Inside a transaction, this happens once the transaction commits.
+     */
+    void removeAllStories();
+
+    /**
+     * Builds the suggestions again from the database. Done when the application starts and then on a schedule,
+     * which also picks up users and stories written without going through the services.
+     */
+    void rebuild();
+}
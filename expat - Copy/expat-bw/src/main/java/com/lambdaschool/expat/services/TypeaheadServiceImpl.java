@@ -0,0 +1,451 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.repository.StoryRepository;
+import com.lambdaschool.expat.repository.UserRepository;
+import com.lambdaschool.expat.views.TypeaheadMatch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Implements the TypeaheadService Interface
+ * <p>
+ * Usernames and story names are each kept in a sorted array, lowercased. A lookup is a binary search for the
+ * first name at or after the prefix followed by a walk over at most limit entries, so it takes well under a
+ * millisecond whatever the number of names. Writes copy the array, which is cheap next to the database write
+ * that comes with them.
+ * <p>
+ * The arrays are filled from the database in a background thread when the application starts. Until then
+ * lookups go to the database, which can use the username index for the prefix.
+ */
+@Service(value = "typeaheadService")
+public class TypeaheadServiceImpl
+    implements TypeaheadService
+{
+    /**
+     * Rows read from the database at a time when building the suggestions
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * Connects this service to the User table
+     */
+    private final UserRepository userrepos;
+
+    /**
+     * Connects this service to the Story table
+     */
+    private final StoryRepository storyRepository;
+
+    /**
+     * Number of matches returned when the client does not ask for a number
+     */
+    private final int defaultLimit;
+
+    /**
+     * Largest number of matches a client can get
+     */
+    private final int maxLimit;
+
+    /**
+     * The usernames
+     */
+    private final PrefixIndex usernames = new PrefixIndex();
+
+    /**
+     * The story names
+     */
+    private final PrefixIndex stories = new PrefixIndex();
+
+    public TypeaheadServiceImpl(
+        UserRepository userrepos,
+        StoryRepository storyRepository,
+        @Value("${typeahead.default.results:10}") int defaultLimit,
+        @Value("${typeahead.max.results:20}") int maxLimit)
+    {
+        this.userrepos = userrepos;
+        this.storyRepository = storyRepository;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @Override
+    public List<TypeaheadMatch> findUsernames(
+        String prefix,
+        int limit)
+    {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int count = limit(limit);
+        if (!usernames.isReady())
+        {
+            return userrepos.findTypeaheadByUsernameStartingWith(escapeLike(key),
+                PageRequest.of(0,
+                    count));
+        }
+        return usernames.find(key,
+            count);
+    }
+
+    @Override
+    public List<TypeaheadMatch> findStories(
+        String prefix,
+        int limit)
+    {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int count = limit(limit);
+        if (!stories.isReady())
+        {
+            return storyRepository.findTypeaheadByNameStartingWith(escapeLike(key),
+                PageRequest.of(0,
+                    count));
+        }
+        return stories.find(key,
+            count);
+    }
+
+    @Override
+    public void putUser(
+        long userid,
+        String username)
+    {
+        afterCommit(() -> usernames.put(new TypeaheadMatch(userid,
+            username)));
+    }
+
+    @Override
+    public void removeUser(long userid)
+    {
+        afterCommit(() -> usernames.remove(userid));
+    }
+
+    @Override
+    public void removeAllUsers()
+    {
+        afterCommit(usernames::clear);
+    }
+
+    @Override
+    public void removeStory(long storyId)
+    {
+        afterCommit(() -> stories.remove(storyId));
+    }
+
+    @Override
+    public void removeAllStories()
+    {
+        afterCommit(stories::clear);
+    }
+
+    @Scheduled(initialDelay = 0,
+        fixedDelayString = "${typeahead.rebuild.interval.ms:600000}")
+    @Override
+    public void rebuild()
+    {
+        usernames.rebuild(() -> load(userrepos::findTypeaheadAfter));
+        stories.rebuild(() -> load(storyRepository::findTypeaheadAfter));
+    }
+
+    /**
+     * Bounds the number of matches asked for
+     *
+     * @param limit the number (int) of matches the client asked for
+     * @return the number of matches to return
+     */
+    private int limit(int limit)
+    {
+        return limit < 1 ? defaultLimit : Math.min(limit,
+            maxLimit);
+    }
+
+    /**
+     * Reads every id and name from the database, a batch at a time in id order
+     *
+     * @param batchAfter reads the batch that follows the given id
+     * @return every id and name
+     */
+    private static List<TypeaheadMatch> load(BiFunction<Long, Pageable, List<TypeaheadMatch>> batchAfter)
+    {
+        List<TypeaheadMatch> all = new ArrayList<>();
+        long after = 0;
+        List<TypeaheadMatch> batch;
+        do
+        {
+            batch = batchAfter.apply(after,
+                PageRequest.of(0,
+                    REBUILD_BATCH_SIZE));
+            all.addAll(batch);
+            if (!batch.isEmpty())
+            {
+                after = batch.get(batch.size() - 1)
+                    .getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        return all;
+    }
+
+    /**
+     * Escapes the LIKE wildcards in a prefix, so they only match themselves. The queries use \ as the escape.
+     *
+     * @param prefix the prefix (String) typed by the client
+     * @return the prefix with \, % and _ escaped
+     */
+    private static String escapeLike(String prefix)
+    {
+        return prefix.replace("\\",
+            "\\\\")
+            .replace("%",
+                "\\%")
+            .replace("_",
+                "\\_");
+    }
+
+    /**
+     * Runs a change once the current transaction commits, or straight away outside a transaction.
+     * A transaction that rolls back leaves the suggestions alone.
+     *
+     * @param change the change to make to the suggestions
+     */
+    private static void afterCommit(Runnable change)
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    change.run();
+                }
+            });
+        } else
+        {
+            change.run();
+        }
+    }
+
+    /**
+     * Names sorted by their lowercase form, then by id. Readers use whichever array was current when they started,
+     * writers replace the array under a lock.
+     */
+    private static final class PrefixIndex
+    {
+        private static final Comparator<Entry> ORDER = Comparator.comparing((Entry e) -> e.key)
+            .thenComparingLong(e -> e.match.getId());
+
+        /**
+         * The entries, sorted. Never changed once published.
+         */
+        private volatile Entry[] entries = new Entry[0];
+
+        /**
+         * False until the first rebuild is done
+         */
+        private volatile boolean ready;
+
+        /**
+         * The lowercase name of every id, to find the entry to replace or remove
+         */
+        private final Map<Long, String> keys = new HashMap<>();
+
+        /**
+         * Changes made while a rebuild is reading the database, to be applied to the rebuilt entries.
+         * Null when not rebuilding.
+         */
+        private List<Consumer<PrefixIndex>> changesDuringRebuild;
+
+        boolean isReady()
+        {
+            return ready;
+        }
+
+        List<TypeaheadMatch> find(
+            String prefix,
+            int limit)
+        {
+            Entry[] current = entries;
+            int i = Arrays.binarySearch(current,
+                new Entry(prefix,
+                    new TypeaheadMatch(Long.MIN_VALUE,
+                        prefix)),
+                ORDER);
+            if (i < 0)
+            {
+                i = -i - 1;
+            }
+            List<TypeaheadMatch> matches = new ArrayList<>(limit);
+            for (; i < current.length && matches.size() < limit && current[i].key.startsWith(prefix); i++)
+            {
+                matches.add(current[i].match);
+            }
+            return matches;
+        }
+
+        synchronized void put(TypeaheadMatch match)
+        {
+            record(index -> index.put(match));
+            removeLocked(match.getId());
+
+            Entry entry = new Entry(match.getName()
+                .toLowerCase(Locale.ROOT),
+                match);
+            Entry[] current = entries;
+            int at = -Arrays.binarySearch(current,
+                entry,
+                ORDER) - 1;
+            Entry[] updated = new Entry[current.length + 1];
+            System.arraycopy(current,
+                0,
+                updated,
+                0,
+                at);
+            updated[at] = entry;
+            System.arraycopy(current,
+                at,
+                updated,
+                at + 1,
+                current.length - at);
+            entries = updated;
+            keys.put(match.getId(),
+                entry.key);
+        }
+
+        synchronized void remove(long id)
+        {
+            record(index -> index.remove(id));
+            removeLocked(id);
+        }
+
+        synchronized void clear()
+        {
+            record(PrefixIndex::clear);
+            entries = new Entry[0];
+            keys.clear();
+        }
+
+        /**
+         * Replaces every entry with the ones read from the database. Changes made while reading are applied afterwards.
+         *
+         * @param reader reads every id and name from the database
+         */
+        void rebuild(Supplier<List<TypeaheadMatch>> reader)
+        {
+            synchronized (this)
+            {
+                if (changesDuringRebuild != null)
+                {
+                    return;
+                }
+                changesDuringRebuild = new ArrayList<>();
+            }
+
+            List<TypeaheadMatch> all = null;
+            try
+            {
+                all = reader.get();
+            } finally
+            {
+                synchronized (this)
+                {
+                    List<Consumer<PrefixIndex>> changes = changesDuringRebuild;
+                    changesDuringRebuild = null;
+                    if (all != null)
+                    {
+                        Entry[] rebuilt = new Entry[all.size()];
+                        keys.clear();
+                        for (int i = 0; i < rebuilt.length; i++)
+                        {
+                            TypeaheadMatch match = all.get(i);
+                            rebuilt[i] = new Entry(match.getName()
+                                .toLowerCase(Locale.ROOT),
+                                match);
+                            keys.put(match.getId(),
+                                rebuilt[i].key);
+                        }
+                        Arrays.sort(rebuilt,
+                            ORDER);
+                        entries = rebuilt;
+                        changes.forEach(change -> change.accept(this));
+                        ready = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Remembers a change so it can be applied again once a running rebuild has read the database
+         *
+         * @param change the change
+         */
+        private void record(Consumer<PrefixIndex> change)
+        {
+            if (changesDuringRebuild != null)
+            {
+                changesDuringRebuild.add(change);
+            }
+        }
+
+        private void removeLocked(long id)
+        {
+            String key = keys.remove(id);
+            if (key == null)
+            {
+                return;
+            }
+            Entry[] current = entries;
+            int at = Arrays.binarySearch(current,
+                new Entry(key,
+                    new TypeaheadMatch(id,
+                        key)),
+                ORDER);
+            if (at < 0)
+            {
+                return;
+            }
+            Entry[] updated = new Entry[current.length - 1];
+            System.arraycopy(current,
+                0,
+                updated,
+                0,
+                at);
+            System.arraycopy(current,
+                at + 1,
+                updated,
+                at,
+                current.length - at - 1);
+            entries = updated;
+        }
+    }
+
+    /**
+     * A name in lowercase, the sort key, with the match it belongs to
+     */
+    private static final class Entry
+    {
+        final String key;
+
+        final TypeaheadMatch match;
+
+        Entry(
+            String key,
+            TypeaheadMatch match)
+        {
+            this.key = key;
+            this.match = match;
+        }
+    }
+}
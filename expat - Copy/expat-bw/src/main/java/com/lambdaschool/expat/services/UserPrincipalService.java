@@ -0,0 +1,39 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.models.UserPrincipal;
+import org.springframework.security.core.Authentication;
+
+/**
+ * The Service that works with the principal cache, the authenticated users' ids, names and authorities.
+ */
+public interface UserPrincipalService
+{
+    /**
+     * Returns the principal of the user with the given name. Only goes to the database when the principal is not cached.
+     *
+     * @param username The name (String) of the user you seek
+     * @return The principal of the user or throws an exception if the user is not found
+     */
+    UserPrincipal findByName(String username);
+
+    /**
+     * Returns the principal of the authenticated user. When the authentication carries the principal, read from a
+     * signed token or created when the user signed on, it is returned as is, otherwise it is looked up by name.
+     *
+     * @param authentication The authentication of the current request
+     * @return The principal of the user or throws an exception if the user is not found
+     */
+    UserPrincipal findByAuthentication(Authentication authentication);
+
+    /**
+     * Removes the principal of the given user from the cache. Called whenever the user changes.
+     *
+     * @param username The name (String) of the user that changed
+     */
+    void evict(String username);
+
+    /**
+     * Removes every principal from the cache. Called whenever a role changes.
+     */
+    void evictAll();
+}
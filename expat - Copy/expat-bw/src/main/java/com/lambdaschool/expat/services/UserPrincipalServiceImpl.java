@@ -0,0 +1,128 @@
+package com.lambdaschool.expat.services;
+
+import com.lambdaschool.expat.config.CacheConfig;
+import com.lambdaschool.expat.config.ReplicaRoutingDataSource;
+import com.lambdaschool.expat.exceptions.ResourceNotFoundException;
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.models.UserPrincipal;
+import com.lambdaschool.expat.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implements the UserPrincipalService Interface
+ * <p>
+ * Principals are cached by lowercase username. The cache is bounded and entries expire (see CacheConfig),
+ * UserServiceImpl and RoleServiceImpl evict entries when users or roles change, and every instance clears the
+ * cache when it sees the version of users or roles move on (see ResourceVersionService).
+ * <p>
+ * The cache is checked before any transaction starts, so a cached principal costs no connection. A principal that
+ * is not cached is read from the primary database, a read replica may not have a user who has just signed up yet.
+ */
+@Service(value = "userPrincipalService")
+public class UserPrincipalServiceImpl
+    implements UserPrincipalService
+{
+    /**
+     * Connects this service to the User table
+     */
+    private final UserRepository userrepos;
+
+    /**
+     * The principal cache
+     */
+    private final Cache principals;
+
+    /**
+     * Reads the principals that are not cached, in a read only transaction
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    public UserPrincipalServiceImpl(
+        UserRepository userrepos,
+        CacheManager cacheManager,
+        PlatformTransactionManager transactionManager)
+    {
+        this.userrepos = userrepos;
+        this.principals = cacheManager.getCache(CacheConfig.PRINCIPALS);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public UserPrincipal findByName(String username)
+    {
+        String key = username.toLowerCase();
+        UserPrincipal principal = principals.get(key,
+            UserPrincipal.class);
+        if (principal == null)
+        {
+            principal = transactionTemplate.execute(status ->
+            {
+                ReplicaRoutingDataSource.readFromPrimary();
+                User user = userrepos.findByUsername(key);
+                if (user == null)
+                {
+                    throw new ResourceNotFoundException("User name " + username + " not found!");
+                }
+                return new UserPrincipal(user);
+            });
+            principals.put(key,
+                principal);
+        }
+        return principal;
+    }
+
+    @Override
+    public UserPrincipal findByAuthentication(Authentication authentication)
+    {
+        UserPrincipal principal = UserPrincipal.of(authentication);
+        if (principal != null)
+        {
+            return principal;
+        }
+        return findByName(authentication.getName());
+    }
+
+    @Override
+    public void evict(String username)
+    {
+        String key = username.toLowerCase();
+        principals.evict(key);
+        afterCommit(() -> principals.evict(key));
+    }
+
+    @Override
+    public void evictAll()
+    {
+        principals.clear();
+        afterCommit(principals::clear);
+    }
+
+    /**
+     * Runs the eviction again once the current transaction commits, so a principal read by another request
+     * while the change was in flight does not stay in the cache.
+     *
+     * @param eviction the eviction to run after commit
+     */
+    private void afterCommit(Runnable eviction)
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.lambdaschool.expat.services;
 
 import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.views.UserDetail;
+import com.lambdaschool.expat.views.UserSummary;
 
 import java.util.List;
 
@@ -28,6 +30,37 @@ public interface UserService
      */
     List<User> findByNameContaining(String username);
 
+    /**
+     * Returns lean views of all the Users
+     *
+     * @return List of user summaries. If no users, empty list.
+     */
+    List<UserSummary> findAllSummaries();
+
+    /**
+     * Lean views of all users whose username contains the given substring
+     *
+     * @param username The substring (String) of the username of the Users you seek
+     * @return List of user summaries whose username contains the given substring
+     */
+    List<UserSummary> findSummariesByNameContaining(String username);
+
+    /**
+     * Returns the view of the user with the given primary key including role names and emails.
+     *
+     * @param id The primary key (long) of the user you seek.
+     * @return The view of the given User or throws an exception if not found.
+     */
+    UserDetail findUserDetailById(long id);
+
+    /**
+     * Returns the view of the user with the given name including role names and emails.
+     *
+     * @param name The full name (String) of the User you seek.
+     * @return The view of the User with the given name or throws an exception if not found.
+     */
+    UserDetail findUserDetailByName(String name);
+
     /**
      * Returns the user with the given primary key.
      *
@@ -6,15 +6,23 @@ import com.lambdaschool.expat.models.User;
 import com.lambdaschool.expat.models.UserRoles;
 import com.lambdaschool.expat.models.Useremail;
 import com.lambdaschool.expat.repository.UserRepository;
+import com.lambdaschool.expat.views.UserDetail;
+import com.lambdaschool.expat.views.UserSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Implements UserService Interface
+ * <p>
+ * Passwords are hashed before save and update start their transaction, so no database connection is held while
+ * a request waits for the password hashing threads.
  */
 @Transactional
 @Service(value = "userService")
@@ -36,6 +44,36 @@ public class UserServiceImpl
     @Autowired
     private HelperFunctions helperFunctions;
 
+    /**
+     * Connects this service to the principal cache so changed users are evicted from it
+     */
+    @Autowired
+    private UserPrincipalService userPrincipalService;
+
+    /**
+     * Connects this service to the username suggestions so they follow the users
+     */
+    @Autowired
+    private TypeaheadService typeaheadService;
+
+    /**
+     * Connects this service to the bulk deletes. Users go with their posts, emails and roles, in chunks.
+     */
+    @Autowired
+    private BulkDeleteService bulkDeleteService;
+
+    /**
+     * Connects this service to the password hashing. Users are given plain text passwords and saved with their hashes.
+     */
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    /**
+     * Starts the transaction of save and update once the password is hashed, or joins the caller's
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     public User findUserById(long id) throws
                                       ResourceNotFoundException
     {
@@ -50,6 +88,35 @@ public class UserServiceImpl
         return userrepos.findByUsernameContainingIgnoreCase(username.toLowerCase());
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<UserSummary> findAllSummaries()
+    {
+        return userrepos.findAllByOrderByUseridAsc();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<UserSummary> findSummariesByNameContaining(String username)
+    {
+        return userrepos.findSummariesByUsernameContainingIgnoreCase(username.toLowerCase());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public UserDetail findUserDetailById(long id)
+    {
+        // built inside the transaction so roles and emails are loaded before the JSON is written
+        return new UserDetail(findUserById(id));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public UserDetail findUserDetailByName(String name)
+    {
+        return new UserDetail(findByName(name));
+    }
+
     @Override
     public List<User> findAll()
     {
@@ -68,9 +135,11 @@ public class UserServiceImpl
     @Override
     public void delete(long id)
     {
-        userrepos.findById(id)
+        User user = userrepos.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("User id " + id + " not found!"));
         userrepos.deleteById(id);
+        userPrincipalService.evict(user.getUsername());
+        typeaheadService.removeUser(id);
     }
 
     @Override
@@ -84,23 +153,39 @@ public class UserServiceImpl
         return uu;
     }
 
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     @Override
     public User save(User user)
     {
+        String password = hash(user.getPassword());
+        return new TransactionTemplate(transactionManager).execute(status -> save(user,
+            password));
+    }
 
+    /**
+     * Saves a user with a password already hashed, inside a transaction
+     *
+     * @param user     the user to save, its password is not used
+     * @param password the hash (String) of the user's password
+     * @return the saved user
+     */
+    private User save(
+        User user,
+        String password)
+    {
         User newUser = new User();
 
         if (user.getUserid() != 0)
         {
-            userrepos.findById(user.getUserid())
+            User oldUser = userrepos.findById(user.getUserid())
                 .orElseThrow(() -> new ResourceNotFoundException("User id " + user.getUserid() + " not found!"));
             newUser.setUserid(user.getUserid());
+            userPrincipalService.evict(oldUser.getUsername());
         }
 
         newUser.setUsername(user.getUsername()
             .toLowerCase());
-        newUser.setPasswordNoEncrypt(user.getPassword());
+        newUser.setPassword(password);
         newUser.setPrimaryemail(user.getPrimaryemail()
             .toLowerCase());
 
@@ -124,14 +209,37 @@ public class UserServiceImpl
                     ue.getUseremail()));
         }
 
-        return userrepos.save(newUser);
+        userPrincipalService.evict(newUser.getUsername());
+        User savedUser = userrepos.save(newUser);
+        typeaheadService.putUser(savedUser.getUserid(),
+            savedUser.getUsername());
+        return savedUser;
     }
 
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     @Override
     public User update(
         User user,
         long id)
+    {
+        String password = hash(user.getPassword());
+        return new TransactionTemplate(transactionManager).execute(status -> update(user,
+            password,
+            id));
+    }
+
+    /**
+     * Updates a user with a password already hashed, inside a transaction
+     *
+     * @param user     the fields to change, its password is not used
+     * @param password the hash (String) of the new password, null to keep the password
+     * @param id       the primary key (long) of the user to update
+     * @return the updated user
+     */
+    private User update(
+        User user,
+        String password,
+        long id)
     {
         User currentUser = findUserById(id);
 
@@ -139,15 +247,18 @@ public class UserServiceImpl
         // admin update
         if (helperFunctions.isAuthorizedToMakeChange(currentUser.getUsername()))
         {
+            // the cached principal is stale whatever changes, and it is cached under the old name
+            userPrincipalService.evict(currentUser.getUsername());
+
             if (user.getUsername() != null)
             {
                 currentUser.setUsername(user.getUsername()
                     .toLowerCase());
             }
 
-            if (user.getPassword() != null)
+            if (password != null)
             {
-                currentUser.setPasswordNoEncrypt(user.getPassword());
+                currentUser.setPassword(password);
             }
 
             if (user.getPrimaryemail() != null)
@@ -185,7 +296,10 @@ public class UserServiceImpl
                 }
             }
 
-            return userrepos.save(currentUser);
+            User savedUser = userrepos.save(currentUser);
+            typeaheadService.putUser(savedUser.getUserid(),
+                savedUser.getUsername());
+            return savedUser;
         } else
         {
             // note we should never get to this line but is needed for the compiler
@@ -194,10 +308,22 @@ public class UserServiceImpl
         }
     }
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public void deleteAll()
     {
-        userrepos.deleteAll();
+        bulkDeleteService.deleteAllUsers();
+        userPrincipalService.evictAll();
+    }
+
+    /**
+     * Hashes a plain text password on the password hashing threads
+     *
+     * @param password the plain text password (String)
+     * @return the hash (String) of the password, null if there is no password so the user fails validation as before
+     */
+    private String hash(String password)
+    {
+        return password == null ? null : passwordHashingService.encode(password);
     }
 }
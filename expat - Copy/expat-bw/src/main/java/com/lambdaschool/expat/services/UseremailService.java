@@ -1,6 +1,7 @@
 package com.lambdaschool.expat.services;
 
 import com.lambdaschool.expat.models.Useremail;
+import com.lambdaschool.expat.views.UseremailView;
 
 import java.util.List;
 
@@ -19,6 +20,21 @@ public interface UseremailService
      */
     List<Useremail> findAll();
 
+    /**
+     * Returns lean views of all users emails with just the id and name of their user
+     *
+     * @return List of user email views
+     */
+    List<UseremailView> findAllViews();
+
+    /**
+     * Returns the view of the user email combination associated with the given id
+     *
+     * @param id The primary key (long) of the user email combination you seek
+     * @return The view of the user email combination you seek
+     */
+    UseremailView findUseremailViewById(long id);
+
     /**
      * Returns the user email combination associated with the given id
      *
@@ -4,6 +4,7 @@ import com.lambdaschool.expat.exceptions.ResourceNotFoundException;
 import com.lambdaschool.expat.models.User;
 import com.lambdaschool.expat.models.Useremail;
 import com.lambdaschool.expat.repository.UseremailRepository;
+import com.lambdaschool.expat.views.UseremailView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -48,6 +49,21 @@ public class UseremailServiceImpl
         return list;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<UseremailView> findAllViews()
+    {
+        return useremailrepos.findAllViews();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public UseremailView findUseremailViewById(long id)
+    {
+        return useremailrepos.findViewById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Useremail with id " + id + " Not Found!"));
+    }
+
     @Override
     public Useremail findUseremailById(long id)
     {
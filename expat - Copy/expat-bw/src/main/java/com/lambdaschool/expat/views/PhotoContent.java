@@ -0,0 +1,19 @@
+package com.lambdaschool.expat.views;
+
+/**
+ * Read only view of what is needed to serve the uploaded content of a photo.
+ */
+public interface PhotoContent {
+    long getPhotoId();
+
+    String getContentHash();
+
+    String getContentType();
+
+    Long getContentLength();
+
+    /**
+     * @return true while the resized copies of the photo are still to be made
+     */
+    Boolean getVariantsPending();
+}
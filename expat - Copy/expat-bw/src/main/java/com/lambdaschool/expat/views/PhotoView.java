@@ -0,0 +1,20 @@
+package com.lambdaschool.expat.views;
+
+/**
+ * Read only view of a photo. The posts using the photo are not part of this view.
+ */
+public interface PhotoView {
+    long getPhotoId();
+
+    String getName();
+
+    /**
+     * @return the media type of the uploaded content, null if the photo is only a link
+     */
+    String getContentType();
+
+    /**
+     * @return the length in bytes of the uploaded content, null if the photo is only a link
+     */
+    Long getContentLength();
+}
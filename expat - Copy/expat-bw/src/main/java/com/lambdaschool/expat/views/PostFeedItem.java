@@ -0,0 +1,47 @@
+package com.lambdaschool.expat.views;
+
+import java.util.Date;
+
+/**
+ * Lean, read only view of a post for the post feed and the other post read endpoints.
+ * Only the columns a post entry shows are selected, and the user, photo and story are joined in the same statement,
+ * so reading a list of posts is a single query.
+ * <p>
+ * The photo is the feed size copy (see PhotoSize), the smallest that fills a post in the feed.
+ */
+public interface PostFeedItem {
+    long getPostId();
+
+    String getName();
+
+    String getDescription();
+
+    Date getCreatedDate();
+
+    long getUserId();
+
+    String getUsername();
+
+    long getPhotoId();
+
+    String getPhotoName();
+
+    /**
+     * @return where to get the image of the post: the feed size copy of an uploaded photo, or the link of the photo
+     */
+    String getPhotoUrl();
+
+    /**
+     * @return the width in pixels of the feed size copy, null until it is made or for linked photos
+     */
+    Integer getPhotoWidth();
+
+    /**
+     * @return the height in pixels of the feed size copy, null until it is made or for linked photos
+     */
+    Integer getPhotoHeight();
+
+    long getStoryId();
+
+    String getStoryName();
+}
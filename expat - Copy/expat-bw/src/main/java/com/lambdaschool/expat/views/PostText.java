@@ -0,0 +1,12 @@
+package com.lambdaschool.expat.views;
+
+/**
+ * The searchable text of a post. Read in batches to build the post search index.
+ */
+public interface PostText {
+    long getPostId();
+
+    String getName();
+
+    String getDescription();
+}
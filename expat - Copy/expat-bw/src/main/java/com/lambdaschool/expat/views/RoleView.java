@@ -0,0 +1,10 @@
+package com.lambdaschool.expat.views;
+
+/**
+ * Read only view of a role. The users assigned to the role are not part of this view.
+ */
+public interface RoleView {
+    long getRoleid();
+
+    String getName();
+}
@@ -0,0 +1,35 @@
+package com.lambdaschool.expat.views;
+
+/**
+ * Lean, read only view of a user or story for typeahead suggestions: just the id and the name.
+ */
+public class TypeaheadMatch
+{
+    private final long id;
+
+    private final String name;
+
+    /**
+     * Given the params, create a new match. Also used by the typeahead queries of the repositories.
+     *
+     * @param id   the primary key (long) of the user or story
+     * @param name the username or story name (String)
+     */
+    public TypeaheadMatch(
+        long id,
+        String name)
+    {
+        this.id = id;
+        this.name = name;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+}
@@ -0,0 +1,71 @@
+package com.lambdaschool.expat.views;
+
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.models.UserRoles;
+import com.lambdaschool.expat.models.Useremail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read only view of a single user with the names of their roles and their email addresses.
+ * Built inside a transaction from the User entity so nothing is lazy loaded while the JSON is written.
+ */
+public class UserDetail
+{
+    private final long userid;
+
+    private final String username;
+
+    private final String primaryemail;
+
+    private final List<String> roles = new ArrayList<>();
+
+    private final List<String> useremails = new ArrayList<>();
+
+    /**
+     * Copies what the view needs out of the given user. Must be called while the user's roles and emails can still be loaded.
+     *
+     * @param user the user entity this view describes
+     */
+    public UserDetail(User user)
+    {
+        this.userid = user.getUserid();
+        this.username = user.getUsername();
+        this.primaryemail = user.getPrimaryemail();
+        for (UserRoles ur : user.getRoles())
+        {
+            roles.add(ur.getRole()
+                .getName());
+        }
+        for (Useremail ue : user.getUseremails())
+        {
+            useremails.add(ue.getUseremail());
+        }
+    }
+
+    public long getUserid()
+    {
+        return userid;
+    }
+
+    public String getUsername()
+    {
+        return username;
+    }
+
+    public String getPrimaryemail()
+    {
+        return primaryemail;
+    }
+
+    public List<String> getRoles()
+    {
+        return roles;
+    }
+
+    public List<String> getUseremails()
+    {
+        return useremails;
+    }
+}
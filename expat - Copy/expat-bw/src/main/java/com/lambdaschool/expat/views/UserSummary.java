@@ -0,0 +1,13 @@
+package com.lambdaschool.expat.views;
+
+/**
+ * Read only view of a user for list endpoints. Only the user's own columns are selected,
+ * no roles, emails or audit fields.
+ */
+public interface UserSummary {
+    long getUserid();
+
+    String getUsername();
+
+    String getPrimaryemail();
+}
@@ -0,0 +1,14 @@
+package com.lambdaschool.expat.views;
+
+/**
+ * Read only view of a user email combination with just the id and name of the user it belongs to.
+ */
+public interface UseremailView {
+    long getUseremailid();
+
+    String getUseremail();
+
+    long getUserid();
+
+    String getUsername();
+}
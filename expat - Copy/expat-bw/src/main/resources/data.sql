@@ -1,15 +1,15 @@
-INSERT INTO USERS (USER_ID, CREATED_BY, CREATED_DATE, LAST_MODIFIED_BY, LAST_MODIFIED_DATE, NAME, PASSWORD, PRIMARY_EMAIL)
+INSERT INTO USERS (USERID, CREATED_BY, CREATED_DATE, LAST_MODIFIED_BY, LAST_MODIFIED_DATE, USERNAME, PASSWORD, PRIMARYEMAIL)
 VALUES (1, CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP, 'Jill', '$2a$10$UQv7DHutyDHasewr4tiSgeGz2hZtc/jmJzE2UN2bctI9U9s45BQZS', 'jill@anaddress.com'),
        (2, CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP, 'Jack', '$2a$10$UQv7DHutyDHasewr4tiSgeGz2hZtc/jmJzE2UN2bctI9U9s45BQZS', 'jack@anaddress.com'),
        (3, CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP, 'Tom', '$2a$10$UQv7DHutyDHasewr4tiSgeGz2hZtc/jmJzE2UN2bctI9U9s45BQZS', 'tom@anaddress.com');
 
-INSERT INTO ROLES (ROLE_ID, CREATED_BY, CREATED_DATE, LAST_MODIFIED_BY, LAST_MODIFIED_DATE, NAME)
+INSERT INTO ROLES (ROLEID, CREATED_BY, CREATED_DATE, LAST_MODIFIED_BY, LAST_MODIFIED_DATE, NAME)
 VALUES (1, CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP, 'ADMIN'),
        (2, CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP, 'USER'),
        (3, CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP, 'DATA');
 
 
-INSERT INTO USER_ROLES (ROLE_ID, USER_ID, CREATED_BY, CREATED_DATE, LAST_MODIFIED_BY, LAST_MODIFIED_DATE)
+INSERT INTO USERROLES (ROLEID, USERID, CREATED_BY, CREATED_DATE, LAST_MODIFIED_BY, LAST_MODIFIED_DATE)
 VALUES (1, 1, CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
        (1, 2, CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
        (2, 2, CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
@@ -18,18 +18,12 @@ VALUES (1, 1, CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
 INSERT INTO PHOTOS (PHOTO_ID, NAME, CREATED_BY, CREATED_DATE, LAST_MODIFIED_BY, LAST_MODIFIED_DATE)
 VALUES (1, 'https://img.etimg.com/thumb/msid-66129697,width-640,resizemode-4,imgsize-342241/how-to-get-your-trips-sponsored.jpg', CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
        (2, 'https://www.telegraph.co.uk/content/dam/news/2020/05/29/GettyImages-833247510_trans_NvBQzQNjv4BqtGQB12KHxxQCrwnTZkX0nwgWqwm85JEWpGVhFb46TTg.jpg', CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
-       (3, 'https://encrypted-tbn0.gstatic.com/images?q=tbn%3AANd9GcTrYlepyOxzv8_0s1u5yIbNwbMUf9r2Np8srA&usqp=CAU', CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
-
-
-
-
-
-
-INSERT INTO Stories (STORY_ID, NAME, CREATED_BY, CREATED_DATE, LAST_MODIFIED_BY, LAST_MODIFIED_DATE)
-VALUES (1, 1, 'I WENT HERE' CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
-       (1, 2, 'TOTALLY COOL',  CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
-       (1, 3, 'Wake up people!',  CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
+       (3, 'https://encrypted-tbn0.gstatic.com/images?q=tbn%3AANd9GcTrYlepyOxzv8_0s1u5yIbNwbMUf9r2Np8srA&usqp=CAU', CURRENT_USER ,CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP);
 
+INSERT INTO STORYS (STORY_ID, NAME, CREATED_BY, CREATED_DATE, LAST_MODIFIED_BY, LAST_MODIFIED_DATE)
+VALUES (1, 'I WENT HERE', CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
+       (2, 'TOTALLY COOL',  CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
+       (3, 'Wake up people!',  CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP);
 
 INSERT INTO POSTS (POST_ID, NAME, DESCRIPTION , PHOTO_ID,
                    STORY_ID, USER_ID,
@@ -38,10 +32,14 @@ VALUES (1, 'OMG', 'I WENT HERE', 1,
         1, 1,
         CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
        (2, 'HOLY COW', 'YEP', 2,
-        4, 2,
+        2, 2,
         CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP),
        (3, 'PRETTY', 'YOU WISH', 3,
-        6, 3,
+        3, 3,
         CURRENT_USER, CURRENT_TIMESTAMP, CURRENT_USER, CURRENT_TIMESTAMP);
 
-alter sequence hibernate_sequence restart with 15;
\ No newline at end of file
+alter sequence users_seq restart with 100;
+alter sequence roles_seq restart with 100;
+alter sequence photos_seq restart with 100;
+alter sequence storys_seq restart with 100;
+alter sequence posts_seq restart with 100;
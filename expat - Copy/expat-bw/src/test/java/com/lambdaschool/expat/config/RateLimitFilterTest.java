@@ -0,0 +1,238 @@
+package com.lambdaschool.expat.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for RateLimitFilter, sending mock requests through it. The limits refill over minutes, so no token
+ * comes back while a test runs.
+ */
+public class RateLimitFilterTest
+{
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RateLimitFilter filter(String rules)
+    {
+        return new RateLimitFilter(true,
+            rules,
+            1024,
+            meterRegistry);
+    }
+
+    private MockHttpServletResponse send(
+        RateLimitFilter filter,
+        String method,
+        String path,
+        String address,
+        String username) throws
+                         IOException,
+                         ServletException
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest(method,
+            path);
+        request.setServletPath(path);
+        request.setRemoteAddr(address);
+        if (username != null)
+        {
+            request.setParameter("username",
+                username);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request,
+            response,
+            new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    public void requestsOverLimitGet429WithRetryAfter() throws
+                                                        Exception
+    {
+        RateLimitFilter filter = filter("POST /login ip 2 60");
+
+        assertEquals(200,
+            send(filter,
+                "POST",
+                "/login",
+                "10.0.0.1",
+                null).getStatus());
+        assertEquals(200,
+            send(filter,
+                "POST",
+                "/login",
+                "10.0.0.1",
+                null).getStatus());
+
+        MockHttpServletResponse rejected = send(filter,
+            "POST",
+            "/login",
+            "10.0.0.1",
+            null);
+        assertEquals(429,
+            rejected.getStatus());
+        long retryAfter = Long.parseLong(rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(retryAfter >= 1 && retryAfter <= 30);
+        assertEquals(1.0,
+            meterRegistry.get("rate.limit.rejected")
+                .counter()
+                .count(),
+            0);
+    }
+
+    @Test
+    public void onlyMatchingMethodAndPathAreLimited() throws
+                                                      Exception
+    {
+        RateLimitFilter filter = filter("POST /users/** ip 1 60");
+
+        assertEquals(200,
+            send(filter,
+                "POST",
+                "/users/user/1",
+                "10.0.0.1",
+                null).getStatus());
+        assertEquals(429,
+            send(filter,
+                "POST",
+                "/users/users",
+                "10.0.0.1",
+                null).getStatus());
+
+        // another method, another path, or another address
+        assertEquals(200,
+            send(filter,
+                "GET",
+                "/users/users",
+                "10.0.0.1",
+                null).getStatus());
+        assertEquals(200,
+            send(filter,
+                "POST",
+                "/posts",
+                "10.0.0.1",
+                null).getStatus());
+        assertEquals(200,
+            send(filter,
+                "POST",
+                "/users/users",
+                "10.0.0.2",
+                null).getStatus());
+    }
+
+    @Test
+    public void ruleSkippedForRequestsWithoutItsKey() throws
+                                                      Exception
+    {
+        RateLimitFilter filter = filter("POST /login username_ip 1 60");
+
+        for (int i = 0; i < 3; i++)
+        {
+            MockHttpServletResponse response = send(filter,
+                "POST",
+                "/login",
+                "10.0.0.1",
+                null);
+            assertEquals(200,
+                response.getStatus());
+            assertNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+        }
+    }
+
+    @Test
+    public void usernameLimitedPerAddress() throws
+                                            Exception
+    {
+        RateLimitFilter filter = filter("POST /login username_ip 1 300");
+
+        assertEquals(200,
+            send(filter,
+                "POST",
+                "/login",
+                "10.0.0.1",
+                "Admin").getStatus());
+        assertEquals(429,
+            send(filter,
+                "POST",
+                "/login",
+                "10.0.0.1",
+                "admin").getStatus());
+
+        // guessing from one address does not lock the user out from another
+        assertEquals(200,
+            send(filter,
+                "POST",
+                "/login",
+                "10.0.0.2",
+                "admin").getStatus());
+    }
+
+    @Test
+    public void rejectedRequestDoesNotUseUpEarlierRules() throws
+                                                          Exception
+    {
+        RateLimitFilter filter = filter("POST /login ip 2 60, POST /login username_ip 1 300");
+
+        assertEquals(200,
+            send(filter,
+                "POST",
+                "/login",
+                "10.0.0.1",
+                "alice").getStatus());
+
+        // turned away by the username rule, the token taken from the address is given back
+        MockHttpServletResponse rejected = send(filter,
+            "POST",
+            "/login",
+            "10.0.0.1",
+            "alice");
+        assertEquals(429,
+            rejected.getStatus());
+        assertNotNull(rejected.getHeader(HttpHeaders.RETRY_AFTER));
+
+        assertEquals(200,
+            send(filter,
+                "POST",
+                "/login",
+                "10.0.0.1",
+                "bob").getStatus());
+        assertEquals(429,
+            send(filter,
+                "POST",
+                "/login",
+                "10.0.0.1",
+                "carol").getStatus());
+    }
+
+    @Test
+    public void disabledFilterLetsEverythingThrough() throws
+                                                      Exception
+    {
+        RateLimitFilter filter = new RateLimitFilter(false,
+            "* /** ip 1 60",
+            1024,
+            meterRegistry);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(200,
+                send(filter,
+                    "GET",
+                    "/posts",
+                    "10.0.0.1",
+                    null).getStatus());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.lambdaschool.expat.config;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for TokenBuckets. Times are given to the buckets, so nothing here waits.
+ */
+public class TokenBucketsTest
+{
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 5 tokens, one back every 2 seconds
+     */
+    private final TokenBuckets.Limit limit = new TokenBuckets.Limit(5,
+        10);
+
+    private final TokenBuckets buckets = new TokenBuckets(16);
+
+    @Test
+    public void fullBucketAllowsBurstOfCapacity()
+    {
+        long now = 1000 * SECOND;
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(0,
+                buckets.take(limit,
+                    "a",
+                    now));
+        }
+        assertTrue(buckets.take(limit,
+            "a",
+            now) > 0);
+    }
+
+    @Test
+    public void rejectionTellsTimeUntilNextToken()
+    {
+        long now = 1000 * SECOND;
+        for (int i = 0; i < 5; i++)
+        {
+            buckets.take(limit,
+                "a",
+                now);
+        }
+        assertEquals(2 * SECOND,
+            buckets.take(limit,
+                "a",
+                now));
+        assertEquals(SECOND / 2,
+            buckets.take(limit,
+                "a",
+                now + 3 * SECOND / 2));
+    }
+
+    @Test
+    public void tokensComeBackOverTime()
+    {
+        long now = 1000 * SECOND;
+        for (int i = 0; i < 5; i++)
+        {
+            buckets.take(limit,
+                "a",
+                now);
+        }
+
+        // one token back after 2 seconds, and only one
+        assertEquals(0,
+            buckets.take(limit,
+                "a",
+                now + 2 * SECOND));
+        assertTrue(buckets.take(limit,
+            "a",
+            now + 2 * SECOND) > 0);
+
+        // the whole capacity back after 10 seconds, never more
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(0,
+                buckets.take(limit,
+                    "a",
+                    now + 100 * SECOND));
+        }
+        assertTrue(buckets.take(limit,
+            "a",
+            now + 100 * SECOND) > 0);
+    }
+
+    @Test
+    public void rejectedRequestTakesNoToken()
+    {
+        long now = 1000 * SECOND;
+        for (int i = 0; i < 5; i++)
+        {
+            buckets.take(limit,
+                "a",
+                now);
+        }
+        for (int i = 0; i < 10; i++)
+        {
+            buckets.take(limit,
+                "a",
+                now);
+        }
+        assertEquals(0,
+            buckets.take(limit,
+                "a",
+                now + 2 * SECOND));
+    }
+
+    @Test
+    public void keysHaveBucketsOfTheirOwn()
+    {
+        long now = 1000 * SECOND;
+        for (int i = 0; i < 5; i++)
+        {
+            buckets.take(limit,
+                "a",
+                now);
+        }
+        assertEquals(0,
+            buckets.take(limit,
+                "b",
+                now));
+    }
+
+    @Test
+    public void tokenGivenBackCanBeTakenAgain()
+    {
+        long now = 1000 * SECOND;
+        for (int i = 0; i < 5; i++)
+        {
+            buckets.take(limit,
+                "a",
+                now);
+        }
+        buckets.giveBack(limit,
+            "a",
+            now);
+        assertEquals(0,
+            buckets.take(limit,
+                "a",
+                now));
+        assertTrue(buckets.take(limit,
+            "a",
+            now) > 0);
+    }
+
+    @Test
+    public void tokenGivenBackToFullBucketIsLost()
+    {
+        long now = 1000 * SECOND;
+        buckets.giveBack(limit,
+            "a",
+            now);
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(0,
+                buckets.take(limit,
+                    "a",
+                    now));
+        }
+        assertTrue(buckets.take(limit,
+            "a",
+            now) > 0);
+    }
+}
@@ -0,0 +1,18 @@
+package com.lambdaschool.foundation;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Starts the application for the tests from the com.lambdaschool.expat packages, where its beans, entities and
+ * repositories live. Tests using it run with the test profile (application-test.properties) and the seed data.
+ */
+@EnableJpaAuditing
+@SpringBootApplication(scanBasePackages = "com.lambdaschool.expat")
+@EntityScan("com.lambdaschool.expat.models")
+@EnableJpaRepositories("com.lambdaschool.expat.repository")
+public class ExpatTestApplication
+{
+}
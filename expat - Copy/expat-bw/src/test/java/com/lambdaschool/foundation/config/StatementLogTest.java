@@ -0,0 +1,173 @@
+package com.lambdaschool.foundation.config;
+
+import com.lambdaschool.expat.config.StatementCountingDataSource;
+import com.lambdaschool.expat.config.StatementLog;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for StatementLog, counting the statements run on an in memory H2 database
+ */
+public class StatementLogTest
+{
+    private StatementCountingDataSource dataSource;
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws
+                        SQLException
+    {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:statement_log_test");
+        dataSource = new StatementCountingDataSource(h2);
+        connection = dataSource.getConnection();
+        run("CREATE TABLE places (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+        run("INSERT INTO places VALUES (1, 'Lisbon'), (2, 'Porto'), (3, 'Faro')");
+    }
+
+    @After
+    public void tearDown() throws
+                           SQLException
+    {
+        connection.close();
+    }
+
+    @Test
+    public void countsOnlyStatementsRunWhileStarted() throws
+                                                      SQLException
+    {
+        run("SELECT name FROM places");
+
+        StatementLog log = StatementLog.start();
+        run("SELECT name FROM places");
+        run("SELECT id FROM places");
+        log.stop();
+
+        run("SELECT name FROM places");
+        assertEquals(2,
+            log.getStatements());
+        assertTrue(log.getNanos() > 0);
+    }
+
+    @Test
+    public void leavesLiteralsOutOfShape() throws
+                                           SQLException
+    {
+        StatementLog log = StatementLog.start();
+        run("SELECT name FROM places WHERE id = 1");
+        run("SELECT name FROM places WHERE id = 2");
+        run("SELECT id FROM places WHERE name = 'Faro'");
+        log.stop();
+
+        Map<String, Integer> shapes = log.getRepeated(1);
+        assertEquals(2,
+            shapes.size());
+        assertEquals(Integer.valueOf(2),
+            shapes.get("SELECT name FROM places WHERE id = ?"));
+        assertEquals(Integer.valueOf(1),
+            shapes.get("SELECT id FROM places WHERE name = ?"));
+        assertEquals(2,
+            log.getMostRepeated());
+    }
+
+    @Test
+    public void keepsParameterizedStatementAsShape() throws
+                                                     SQLException
+    {
+        StatementLog log = StatementLog.start();
+        for (long id = 1; id <= 3; id++)
+        {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT name FROM places WHERE id = ?"))
+            {
+                statement.setLong(1,
+                    id);
+                statement.executeQuery()
+                    .close();
+            }
+        }
+        log.stop();
+
+        assertEquals(Integer.valueOf(3),
+            log.getRepeated(3)
+                .get("SELECT name FROM places WHERE id = ?"));
+    }
+
+    @Test
+    public void countsInEveryNestedLog() throws
+                                         SQLException
+    {
+        StatementLog outer = StatementLog.start();
+        run("SELECT name FROM places");
+        StatementLog inner = StatementLog.start();
+        run("SELECT id FROM places");
+        inner.stop();
+        run("SELECT name FROM places");
+        outer.stop();
+
+        assertEquals(1,
+            inner.getStatements());
+        assertEquals(3,
+            outer.getStatements());
+    }
+
+    @Test(expected = AssertionError.class)
+    public void flagsRepeatedShape() throws
+                                     SQLException
+    {
+        StatementLog log = StatementLog.start();
+        run("SELECT name FROM places WHERE id = 1");
+        run("SELECT name FROM places WHERE id = 2");
+        log.stop()
+            .assertNoneRepeated(2);
+    }
+
+    @Test
+    public void passesShapesRunFewerTimes() throws
+                                            SQLException
+    {
+        StatementLog log = StatementLog.start();
+        run("SELECT name FROM places WHERE id = 1");
+        run("SELECT name FROM places WHERE id = 2");
+        log.stop()
+            .assertNoneRepeated(3)
+            .assertAtMost(2);
+    }
+
+    @Test(expected = AssertionError.class)
+    public void flagsStatementsOverBudget() throws
+                                            SQLException
+    {
+        StatementLog log = StatementLog.start();
+        run("SELECT name FROM places");
+        run("SELECT id FROM places");
+        log.stop()
+            .assertAtMost(1);
+    }
+
+    /**
+     * Runs a statement written without parameters
+     *
+     * @param sql the statement (String) to run
+     * @throws SQLException if the statement fails
+     */
+    private void run(String sql) throws
+                                 SQLException
+    {
+        try (Statement statement = connection.createStatement())
+        {
+            statement.execute(sql);
+        }
+    }
+}
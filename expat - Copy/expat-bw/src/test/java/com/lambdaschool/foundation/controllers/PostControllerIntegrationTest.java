@@ -0,0 +1,200 @@
+package com.lambdaschool.foundation.controllers;
+
+import com.lambdaschool.expat.models.FeedSnapshotPage;
+import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.models.Story;
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.repository.PhotoRepository;
+import com.lambdaschool.expat.repository.StoryRepository;
+import com.lambdaschool.expat.repository.UserRepository;
+import com.lambdaschool.expat.services.FeedSnapshotService;
+import com.lambdaschool.expat.services.PostSearchService;
+import com.lambdaschool.expat.services.ResourceVersionService;
+import com.lambdaschool.foundation.ExpatTestApplication;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for the public post endpoints, /posts and /posts/search
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ExpatTestApplication.class)
+@ActiveProfiles("test")
+public class PostControllerIntegrationTest
+{
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private PostSearchService postSearchService;
+
+    @Autowired
+    private FeedSnapshotService feedSnapshotService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    /**
+     * The photo and story saved by a test for its posts, removed again after it
+     */
+    private Photo photo;
+
+    private Story story;
+
+    @Before
+    public void setUp()
+    {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+            .apply(SecurityMockMvcConfigurers.springSecurity())
+            .build();
+    }
+
+    @After
+    public void tearDown()
+    {
+        postSearchService.remove(900001L);
+        postSearchService.remove(900002L);
+
+        if (jdbcTemplate.update("DELETE FROM posts WHERE post_id = 900100") > 0)
+        {
+            resourceVersionService.changed(Post.class);
+        }
+        if (photo != null)
+        {
+            photoRepository.deleteById(photo.getPhotoId());
+        }
+        if (story != null)
+        {
+            storyRepository.deleteById(story.getStoryId());
+        }
+    }
+
+    @Test
+    public void getFeedFirstPage() throws
+                                   Exception
+    {
+        this.mockMvc.perform(get("/posts"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("\"posts\"")));
+    }
+
+    @Test
+    public void getFeedWithGarbageCursorIsBadRequest() throws
+                                                      Exception
+    {
+        this.mockMvc.perform(get("/posts").param("cursor",
+            "not-a-cursor!"))
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("Feed cursor")));
+    }
+
+    @Test
+    public void getFeedWithTamperedCursorIsBadRequest() throws
+                                                        Exception
+    {
+        // valid base64 of text without the created date and post id
+        this.mockMvc.perform(get("/posts").param("cursor",
+            "aGVsbG8"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void searchPageBeyondIntegerRangeIsEmpty() throws
+                                                      Exception
+    {
+        // only the index needs the posts, a page past the matches never looks them up
+        postSearchService.index(900001L,
+            "Lisbon tram",
+            "Riding the zeppelinword tram");
+        postSearchService.index(900002L,
+            "Porto",
+            "Another zeppelinword post");
+
+        this.mockMvc.perform(get("/posts/search").param("q",
+            "zeppelinword")
+            .param("page",
+                String.valueOf(Integer.MAX_VALUE))
+            .param("size",
+                "50"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("\"total\":2")));
+    }
+
+    @Test
+    public void getFeedRebuiltAfterPostFromAnotherInstance() throws
+                                                             Exception
+    {
+        User user = userRepository.findByUsername("admin");
+        photo = photoRepository.save(new Photo("lisbon.jpg"));
+        story = storyRepository.save(new Story("Lisbon"));
+
+        // wait for a snapshot built after the photo and story were saved
+        String etag = resourceVersionService.etag("posts",
+            resourceVersionService.find(FeedSnapshotService.FEED_ENTITIES));
+        long deadline = System.currentTimeMillis() + 10000;
+        FeedSnapshotPage first = feedSnapshotService.find(null,
+            0);
+        while ((first == null || !first.getEtag()
+            .equals(etag)) && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(100);
+            first = feedSnapshotService.find(null,
+                0);
+        }
+
+        // another instance saves a post and moves the shared version of the posts on, the post never goes through
+        // this instance's entities
+        jdbcTemplate.update("INSERT INTO posts (post_id, name, description, user_id, photo_id, story_id, created_date, last_modified_date) " +
+                "VALUES (900100, 'Posted elsewhere', 'Saved by another instance', ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+            user.getUserid(),
+            photo.getPhotoId(),
+            story.getStoryId());
+        resourceVersionService.changed(Post.class);
+
+        boolean seen = false;
+        deadline = System.currentTimeMillis() + 10000;
+        while (!seen && System.currentTimeMillis() < deadline)
+        {
+            seen = this.mockMvc.perform(get("/posts"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .contains("Posted elsewhere");
+            Thread.sleep(100);
+        }
+        assertTrue(seen);
+    }
+}
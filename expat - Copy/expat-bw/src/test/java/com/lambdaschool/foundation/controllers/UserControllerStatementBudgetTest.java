@@ -0,0 +1,98 @@
+package com.lambdaschool.foundation.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambdaschool.expat.config.StatementLog;
+import com.lambdaschool.foundation.ExpatTestApplication;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the SQL statements UserController endpoints run stay within a budget (see StatementLog)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ExpatTestApplication.class)
+@ActiveProfiles("test")
+public class UserControllerStatementBudgetTest
+{
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Value("${CLIENT_ID:lambda-client}")
+    private String clientId;
+
+    @Value("${CLIENT_SECRET:lambda-secret}")
+    private String clientSecret;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp()
+    {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+            .apply(SecurityMockMvcConfigurers.springSecurity())
+            .build();
+    }
+
+    @Test
+    public void getAllUsersStatementBudget() throws
+                                             Exception
+    {
+        String token = login("admin",
+            "password");
+
+        StatementLog log = StatementLog.start();
+        this.mockMvc.perform(get("/users/users").header(HttpHeaders.AUTHORIZATION,
+            "Bearer " + token))
+            .andExpect(status().isOk());
+        // one for the users, two for the token store to read the access token and its authentication
+        log.stop()
+            .assertAtMost(3)
+            .assertNoneRepeated(2);
+    }
+
+    /**
+     * Logs a user in the way clients do, at /login
+     *
+     * @param username the name (String) of the user
+     * @param password the password (String) of the user
+     * @return the access token (String) handed out
+     * @throws Exception if the login fails
+     */
+    private String login(
+        String username,
+        String password) throws
+                         Exception
+    {
+        String body = this.mockMvc.perform(post("/login").with(httpBasic(clientId,
+            clientSecret))
+            .param("grant_type",
+                "password")
+            .param("username",
+                username)
+            .param("password",
+                password))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        return new ObjectMapper().readTree(body)
+            .get("access_token")
+            .asText();
+    }
+}
@@ -8,6 +8,8 @@ import com.lambdaschool.expat.models.User;
 import com.lambdaschool.expat.models.UserRoles;
 import com.lambdaschool.expat.models.Useremail;
 import com.lambdaschool.expat.services.UserService;
+import com.lambdaschool.expat.views.UserDetail;
+import com.lambdaschool.expat.views.UserSummary;
 import io.restassured.module.mockmvc.RestAssuredMockMvc;
 import org.junit.After;
 import org.junit.Before;
@@ -18,6 +20,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
@@ -189,6 +192,18 @@ public class UserControllerUnitTest
             .build();
     }
 
+    private List<UserSummary> summaries(List<User> users)
+    {
+        SpelAwareProxyProjectionFactory factory = new SpelAwareProxyProjectionFactory();
+        List<UserSummary> summaryList = new ArrayList<>();
+        for (User u : users)
+        {
+            summaryList.add(factory.createProjection(UserSummary.class,
+                u));
+        }
+        return summaryList;
+    }
+
     @After
     public void tearDown() throws
                            Exception
@@ -201,8 +216,9 @@ public class UserControllerUnitTest
     {
         String apiUrl = "/users/users";
 
-        Mockito.when(userService.findAll())
-            .thenReturn(userList);
+        List<UserSummary> summaryList = summaries(userList);
+        Mockito.when(userService.findAllSummaries())
+            .thenReturn(summaryList);
 
         RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
             .accept(MediaType.APPLICATION_JSON);
@@ -214,7 +230,7 @@ public class UserControllerUnitTest
             .getContentAsString();
 
         ObjectMapper mapper = new ObjectMapper();
-        String er = mapper.writeValueAsString(userList);
+        String er = mapper.writeValueAsString(summaryList);
 
         System.out.println("Expect: " + er);
         System.out.println("Actual: " + tr);
@@ -230,8 +246,9 @@ public class UserControllerUnitTest
     {
         String apiUrl = "/users/user/name/like/cin";
 
-        Mockito.when(userService.findByNameContaining(any(String.class)))
-            .thenReturn(userList);
+        List<UserSummary> summaryList = summaries(userList);
+        Mockito.when(userService.findSummariesByNameContaining(any(String.class)))
+            .thenReturn(summaryList);
 
         RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
             .accept(MediaType.APPLICATION_JSON);
@@ -243,7 +260,7 @@ public class UserControllerUnitTest
             .getContentAsString();
 
         ObjectMapper mapper = new ObjectMapper();
-        String er = mapper.writeValueAsString(userList);
+        String er = mapper.writeValueAsString(summaryList);
 
         System.out.println("Expect: " + er);
         System.out.println("Actual: " + tr);
@@ -259,8 +276,9 @@ public class UserControllerUnitTest
     {
         String apiUrl = "/users/user/12";
 
-        Mockito.when(userService.findUserById(12))
-            .thenReturn(userList.get(1));
+        UserDetail detail = new UserDetail(userList.get(1));
+        Mockito.when(userService.findUserDetailById(12))
+            .thenReturn(detail);
 
         RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
             .accept(MediaType.APPLICATION_JSON);
@@ -270,7 +288,7 @@ public class UserControllerUnitTest
             .getContentAsString();
 
         ObjectMapper mapper = new ObjectMapper();
-        String er = mapper.writeValueAsString(userList.get(1));
+        String er = mapper.writeValueAsString(detail);
 
         System.out.println("Expect: " + er);
         System.out.println("Actual: " + tr);
@@ -286,7 +304,7 @@ public class UserControllerUnitTest
     {
         String apiUrl = "/users/user/77";
 
-        Mockito.when(userService.findUserById(77))
+        Mockito.when(userService.findUserDetailById(77))
             .thenReturn(null);
 
         RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
@@ -312,8 +330,9 @@ public class UserControllerUnitTest
     {
         String apiUrl = "/users/user/name/testing";
 
-        Mockito.when(userService.findByName("testing"))
-            .thenReturn(userList.get(0));
+        UserDetail detail = new UserDetail(userList.get(0));
+        Mockito.when(userService.findUserDetailByName("testing"))
+            .thenReturn(detail);
 
         RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
             .accept(MediaType.APPLICATION_JSON);
@@ -323,7 +342,7 @@ public class UserControllerUnitTest
             .getContentAsString();
 
         ObjectMapper mapper = new ObjectMapper();
-        String er = mapper.writeValueAsString(userList.get(0));
+        String er = mapper.writeValueAsString(detail);
 
         System.out.println("Expect: " + er);
         System.out.println("Actual: " + tr);
@@ -339,8 +358,9 @@ public class UserControllerUnitTest
     {
         String apiUrl = "/users/getuserinfo";
 
-        Mockito.when(userService.findByName(anyString()))
-            .thenReturn(userList.get(0));
+        UserDetail detail = new UserDetail(userList.get(0));
+        Mockito.when(userService.findUserDetailByName(anyString()))
+            .thenReturn(detail);
 
         RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
             .accept(MediaType.APPLICATION_JSON);
@@ -350,7 +370,7 @@ public class UserControllerUnitTest
             .getContentAsString();
 
         ObjectMapper mapper = new ObjectMapper();
-        String er = mapper.writeValueAsString(userList.get(0));
+        String er = mapper.writeValueAsString(detail);
 
         System.out.println("Expect: " + er);
         System.out.println("Actual: " + tr);
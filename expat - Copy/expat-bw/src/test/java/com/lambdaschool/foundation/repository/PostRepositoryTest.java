@@ -0,0 +1,158 @@
+package com.lambdaschool.foundation.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambdaschool.expat.models.Photo;
+import com.lambdaschool.expat.models.Post;
+import com.lambdaschool.expat.models.Role;
+import com.lambdaschool.expat.models.Story;
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.models.UserRoles;
+import com.lambdaschool.expat.models.Useremail;
+import com.lambdaschool.expat.repository.PostRepository;
+import com.lambdaschool.expat.views.PostFeedItem;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that reading lists of posts costs a fixed number of SQL statements however many posts and users are read.
+ * Statements are counted with Hibernate statistics.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ContextConfiguration(classes = PostRepositoryTest.JpaConfig.class)
+public class PostRepositoryTest
+{
+    /**
+     * Only the JPA layer is needed for these tests
+     */
+    @Configuration
+    @EnableAutoConfiguration
+    @EnableJpaAuditing
+    @EntityScan("com.lambdaschool.expat.models")
+    @EnableJpaRepositories("com.lambdaschool.expat.repository")
+    static class JpaConfig
+    {
+    }
+
+    private static final int USERS = 12;
+
+    private static final int POSTS_PER_USER = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private Statistics statistics;
+
+    private long firstUserId;
+
+    @Before
+    public void setUp()
+    {
+        Role role = entityManager.persist(new Role("user"));
+        Photo photo = entityManager.persist(new Photo("https://example.com/photo.jpg"));
+
+        for (int u = 0; u < USERS; u++)
+        {
+            User user = new User("user" + u,
+                "password",
+                "user" + u + "@lambdaschool.local");
+            user.getRoles()
+                .add(new UserRoles(user,
+                    role));
+            user.getUseremails()
+                .add(new Useremail(user,
+                    "user" + u + "@email.local"));
+            user = entityManager.persist(user);
+            if (u == 0)
+            {
+                firstUserId = user.getUserid();
+            }
+
+            Story story = entityManager.persist(new Story("story" + u));
+            for (int p = 0; p < POSTS_PER_USER; p++)
+            {
+                Post post = new Post("post" + p,
+                    "description" + p);
+                post.setUser(user);
+                post.setPhoto(photo);
+                post.setStory(story);
+                entityManager.persist(post);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class)
+            .getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void findAllWithDetailsUsesFixedStatementCount() throws
+                                                           Exception
+    {
+        List<Post> posts = postRepository.findAllWithDetails();
+        // serializing walks user, roles, role, useremails, photo and story of every post
+        new ObjectMapper().writeValueAsString(posts);
+
+        assertEquals(USERS * POSTS_PER_USER,
+            posts.size());
+        // posts with user, photo and story + one batch of roles + one batch of emails
+        assertEquals(3,
+            statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findByUserUseridUsesFixedStatementCount() throws
+                                                          Exception
+    {
+        List<Post> posts = postRepository.findByUserUserid(firstUserId);
+        new ObjectMapper().writeValueAsString(posts);
+
+        assertEquals(POSTS_PER_USER,
+            posts.size());
+        assertTrue(statistics.getPrepareStatementCount() <= 3);
+    }
+
+    @Test
+    public void feedPageIsOneStatement() throws
+                                         Exception
+    {
+        List<PostFeedItem> page = postRepository.findFeedFirstPage(PageRequest.of(0,
+            USERS * POSTS_PER_USER));
+        String json = new ObjectMapper().writerFor(PostFeedItem.class)
+            .writeValueAsString(page.get(0));
+
+        assertEquals(USERS * POSTS_PER_USER,
+            page.size());
+        assertEquals(1,
+            statistics.getPrepareStatementCount());
+        assertTrue(json.contains("\"username\""));
+    }
+}
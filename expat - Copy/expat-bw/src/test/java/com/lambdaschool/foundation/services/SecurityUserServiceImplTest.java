@@ -0,0 +1,123 @@
+package com.lambdaschool.foundation.services;
+
+import com.lambdaschool.expat.config.CacheConfig;
+import com.lambdaschool.expat.models.User;
+import com.lambdaschool.expat.repository.UserRepository;
+import com.lambdaschool.expat.services.ResourceVersionService;
+import com.lambdaschool.expat.services.UserPrincipalService;
+import com.lambdaschool.foundation.ExpatTestApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks users signing in are looked up on the primary database when read replicas are configured. The replica
+ * here is an empty in memory database, so any read sent to it fails. Also checks the cached principals are
+ * dropped when the version of users moves on.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ExpatTestApplication.class,
+    properties = {"datasource.replica.urls=jdbc:h2:mem:replica_db", "datasource.replica.health.interval.ms=100"})
+@ActiveProfiles("test")
+@DirtiesContext
+public class SecurityUserServiceImplTest
+{
+    @Autowired
+    private UserDetailsService securityUserService;
+
+    @Autowired
+    private UserPrincipalService userPrincipalService;
+
+    @Autowired
+    private UserRepository userrepos;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private TransactionTemplate readOnly;
+
+    @Before
+    public void setUp() throws
+                        Exception
+    {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (meterRegistry.get("datasource.replica.healthy")
+            .gauge()
+            .value() < 1 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(100);
+        }
+        userPrincipalService.evict("admin");
+    }
+
+    @Test
+    public void readOnlyLookupGoesToReplica()
+    {
+        try
+        {
+            readOnly.execute(status -> userrepos.findByUsername("admin"));
+            fail("The read only lookup was not sent to the replica");
+        } catch (DataAccessException e)
+        {
+            // the replica has no users table
+        }
+    }
+
+    @Test
+    public void loadUserByUsernameReadsFromPrimary()
+    {
+        assertEquals("admin",
+            securityUserService.loadUserByUsername("admin")
+                .getUsername());
+    }
+
+    @Test
+    public void loadUserByUsernameInReadOnlyTransactionReadsFromPrimary()
+    {
+        assertEquals("admin",
+            readOnly.execute(status -> securityUserService.loadUserByUsername("admin")
+                .getUsername()));
+    }
+
+    @Test
+    public void principalsClearedWhenUserVersionMovesOn()
+    {
+        securityUserService.loadUserByUsername("admin");
+        assertNotNull(cacheManager.getCache(CacheConfig.PRINCIPALS)
+            .get("admin"));
+
+        // the same write another instance makes when a user changes there
+        resourceVersionService.changed(User.class);
+
+        assertNull(cacheManager.getCache(CacheConfig.PRINCIPALS)
+            .get("admin"));
+    }
+}